@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat;
+
+import ca.hedlund.jpraat.binding.Praat;
+import ca.hedlund.jpraat.binding.sys.PraatVersion;
+import ca.phon.util.PrefHelper;
+import com.sun.jna.NativeLibrary;
+
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+/**
+ * Loads the native Praat library on a background thread.  Loading is
+ * started by {@link PraatStartupHook} and code using Praat must call
+ * {@link #await()} before calling into native code.
+ */
+public final class PraatLibrary {
+
+	private static final Logger LOGGER = Logger
+			.getLogger(PraatLibrary.class.getName());
+
+	/**
+	 * Lock held for calls into the Praat library from worker threads.  Praat
+	 * keeps global state (object bookkeeping, error messages) and is not
+	 * thread safe; work which does not call into Praat should be done outside
+	 * of the lock.
+	 */
+	public static final Object LOCK = new Object();
+
+	private static CompletableFuture<PraatVersion> initFuture;
+
+	private PraatLibrary() {
+	}
+
+	/**
+	 * Start loading the Praat library if not already started.
+	 *
+	 * @return future completed with the Praat version when the library is loaded
+	 */
+	public static synchronized CompletableFuture<PraatVersion> initAsync() {
+		if(initFuture == null) {
+			initFuture = new CompletableFuture<>();
+			final Thread initThread = new Thread(PraatLibrary::initLibrary, "praat-library-init");
+			initThread.setDaemon(true);
+			initThread.start();
+		}
+		return initFuture;
+	}
+
+	private static void initLibrary() {
+		try {
+			LOGGER.info("Initializing Praat library");
+
+			final String praatSearchFolder =
+					PrefHelper.get(PraatStartupHook.PRAAT_SEARCH_FOLDER, null);
+			if(praatSearchFolder != null) {
+				NativeLibrary.addSearchPath("praat", praatSearchFolder);
+			}
+
+			Praat.initLibrary();
+
+			final PraatVersion praatVersion = PraatVersion.getVersion();
+			// print version information to log
+			final StringBuilder sb = new StringBuilder();
+			sb.append("Praat version: ").append(praatVersion.versionStr);
+			sb.append(" ").append(praatVersion.day).append('-').append(praatVersion.month).append('-').append(praatVersion.year);
+			LOGGER.info(sb.toString());
+
+			initFuture.complete(praatVersion);
+		} catch (Throwable e) {
+			LOGGER.log(Level.SEVERE, e.getLocalizedMessage(), e);
+			initFuture.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Wait for the Praat library to load, starting initialization if necessary.
+	 *
+	 * @return Praat version
+	 * @throws UnsatisfiedLinkError if the native library could not be loaded
+	 */
+	public static PraatVersion await() {
+		try {
+			return initAsync().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while loading Praat library", e);
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if(cause instanceof UnsatisfiedLinkError ule) {
+				throw ule;
+			} else if(cause instanceof Error err) {
+				throw err;
+			} else {
+				final UnsatisfiedLinkError ule = new UnsatisfiedLinkError(cause.getLocalizedMessage());
+				ule.initCause(cause);
+				throw ule;
+			}
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the library has been loaded successfully
+	 */
+	public static synchronized boolean isLoaded() {
+		return initFuture != null && initFuture.isDone() && !initFuture.isCompletedExceptionally();
+	}
+
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat;
+
+import ca.phon.util.PrefHelper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.*;
+
+/**
+ * Runs Praat scripts using a long-lived server process.  Scripts are
+ * written to the process' standard input with a request id and may be
+ * pipelined; results are matched to requests using the id.  Praat does
+ * not implement this protocol itself, the server command must start a
+ * program which does.
+ *
+ * Protocol (UTF-8, one item per line):
+ * <pre>
+ * request:  #!request &lt;id&gt; &lt;lineCount&gt;
+ *           &lt;lineCount lines of script&gt;
+ * response: #!response &lt;id&gt;
+ *           &lt;output lines&gt;
+ *           #!end &lt;id&gt; &lt;status&gt;
+ * </pre>
+ * A status of 0 indicates success.  Output which does not follow the
+ * protocol is treated as a server failure, the server process is destroyed
+ * and pending requests fail.
+ *
+ * The server command is set using the {@link #SERVER_COMMAND} preference
+ * (space separated).  When no server command is configured (the default),
+ * scripts are executed using a new Praat process for each script
+ * (<code>praat --run</code>).  A reference server for unix-like systems
+ * is available as the resource {@link #REFERENCE_SERVER_SCRIPT}; it
+ * implements the protocol by running each request with <code>praat --run</code>
+ * (the executable may be set using the <code>PRAAT</code> environment variable).
+ *
+ * Note: neither the default nor the reference server keeps Praat loaded
+ * between scripts, every script still pays Praat start-up.  The reference
+ * server only keeps the (cheap) shell process alive; this class provides the
+ * request protocol, pipelining and response matching, a server which keeps a
+ * single Praat instance warm is not included and must be supplied using
+ * {@link #SERVER_COMMAND}.
+ */
+public class PraatProcessRunner implements Closeable {
+
+	private static final Logger LOGGER = Logger
+			.getLogger(PraatProcessRunner.class.getName());
+
+	/** Location of Praat executable used for single scripts */
+	public static final String PRAAT_EXECUTABLE = PraatProcessRunner.class.getName() + ".praatExecutable";
+
+	public static final String DEFAULT_PRAAT_EXECUTABLE = "praat";
+
+	/** Command for persistent script server */
+	public static final String SERVER_COMMAND = PraatProcessRunner.class.getName() + ".serverCommand";
+
+	/** Classpath location of the reference server script */
+	public static final String REFERENCE_SERVER_SCRIPT = "/ca/phon/plugins/praat/praat-server.sh";
+
+	private static final String REQUEST_PREFIX = "#!request";
+
+	private static final String RESPONSE_PREFIX = "#!response";
+
+	private static final String END_PREFIX = "#!end";
+
+	private static PraatProcessRunner sharedRunner;
+
+	private final List<String> command;
+
+	private Process process;
+
+	private Writer stdin;
+
+	private final Map<Long, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+
+	private final AtomicLong nextId = new AtomicLong(1L);
+
+	public PraatProcessRunner(List<String> command) {
+		super();
+		this.command = List.copyOf(command);
+	}
+
+	/**
+	 * Shared runner for the configured server command.
+	 *
+	 * @return shared runner or <code>null</code> if no server command is configured
+	 */
+	public static synchronized PraatProcessRunner getSharedRunner() {
+		if(sharedRunner == null) {
+			final String serverCommand = PrefHelper.get(SERVER_COMMAND, null);
+			if(serverCommand == null || serverCommand.isBlank()) return null;
+			sharedRunner = new PraatProcessRunner(Arrays.asList(serverCommand.trim().split("\\s+")));
+			Runtime.getRuntime().addShutdownHook(new Thread(sharedRunner::close));
+		}
+		return sharedRunner;
+	}
+
+	/**
+	 * Run script using the shared server process if configured, otherwise
+	 * using a new Praat process.
+	 *
+	 * @param script
+	 * @return script output
+	 * @throws IOException
+	 */
+	public static String runScript(String script) throws IOException {
+		final PraatProcessRunner runner = getSharedRunner();
+		if(runner != null) {
+			try {
+				return runner.submit(script).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			} catch (ExecutionException e) {
+				throw (e.getCause() instanceof IOException ioe ? ioe : new IOException(e.getCause()));
+			}
+		} else {
+			return runOnce(PrefHelper.get(PRAAT_EXECUTABLE, DEFAULT_PRAAT_EXECUTABLE), script);
+		}
+	}
+
+	/**
+	 * Run script using a new Praat process.
+	 *
+	 * @param praatExecutable
+	 * @param script
+	 * @return script output
+	 * @throws IOException
+	 */
+	public static String runOnce(String praatExecutable, String script) throws IOException {
+		final File scriptFile = File.createTempFile("phon", ".praat");
+		try {
+			Files.writeString(scriptFile.toPath(), script, StandardCharsets.UTF_8);
+			final Process p = new ProcessBuilder(praatExecutable, "--run", scriptFile.getAbsolutePath())
+					.redirectErrorStream(true).start();
+			final String output = new String(p.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+			final int status = p.waitFor();
+			if(status != 0) {
+				throw new IOException("Praat exited with status " + status + ": " + output);
+			}
+			return output;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} finally {
+			Files.deleteIfExists(scriptFile.toPath());
+		}
+	}
+
+	/**
+	 * Submit script to server process, starting the process if necessary.
+	 *
+	 * @param script
+	 * @return future for script output
+	 */
+	public synchronized CompletableFuture<String> submit(String script) {
+		final long id = nextId.getAndIncrement();
+		final CompletableFuture<String> retVal = new CompletableFuture<>();
+
+		try {
+			ensureStarted();
+			pending.put(id, retVal);
+
+			final String[] lines = script.split("\r?\n", -1);
+			final StringBuilder sb = new StringBuilder();
+			sb.append(REQUEST_PREFIX).append(' ').append(id).append(' ').append(lines.length).append('\n');
+			for(String line:lines) sb.append(line).append('\n');
+			stdin.write(sb.toString());
+			stdin.flush();
+		} catch (IOException e) {
+			pending.remove(id);
+			retVal.completeExceptionally(e);
+		}
+
+		return retVal;
+	}
+
+	/**
+	 * @return number of requests waiting for a response
+	 */
+	public int getPendingCount() {
+		return pending.size();
+	}
+
+	public synchronized boolean isRunning() {
+		return process != null && process.isAlive();
+	}
+
+	private void ensureStarted() throws IOException {
+		if(isRunning()) return;
+		if(process != null) {
+			// requests sent to previous process will not be answered
+			failPending(new IOException("Praat server exited"));
+		}
+
+		LOGGER.info("Starting Praat server " + command);
+		final Process p = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+		process = p;
+		stdin = new BufferedWriter(new OutputStreamWriter(p.getOutputStream(), StandardCharsets.UTF_8));
+
+		final Thread readerThread = new Thread(() -> readResponses(p), "praat-server-reader");
+		readerThread.setDaemon(true);
+		readerThread.start();
+	}
+
+	private void readResponses(Process p) {
+		try(BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+			long currentId = -1L;
+			final StringBuilder output = new StringBuilder();
+			String line = null;
+			while((line = in.readLine()) != null) {
+				if(line.startsWith(RESPONSE_PREFIX + " ")) {
+					currentId = Long.parseLong(line.substring(RESPONSE_PREFIX.length()).trim());
+					output.setLength(0);
+				} else if(currentId >= 0 && line.startsWith(END_PREFIX + " " + currentId + " ")) {
+					final int status = Integer.parseInt(line.substring(line.lastIndexOf(' ') + 1));
+					final CompletableFuture<String> future = pending.remove(currentId);
+					if(future != null) {
+						if(status == 0)
+							future.complete(output.toString());
+						else
+							future.completeExceptionally(new IOException("Script failed with status " + status + ": " + output));
+					}
+					currentId = -1L;
+				} else if(currentId >= 0) {
+					output.append(line).append('\n');
+				} else {
+					LOGGER.fine(line);
+				}
+			}
+		} catch (IOException | NumberFormatException e) {
+			// stream is closed when the process is destroyed by close()
+			LOGGER.log((isCurrent(p) ? Level.WARNING : Level.FINE), e.getLocalizedMessage(), e);
+		}
+
+		// the process may still be alive after a protocol error, make sure
+		// it does not outlive this reader
+		p.destroy();
+		synchronized(this) {
+			if(process == p) {
+				process = null;
+				stdin = null;
+				failPending(new IOException("Praat server exited"));
+			}
+		}
+	}
+
+	private synchronized boolean isCurrent(Process p) {
+		return process == p;
+	}
+
+	private void failPending(IOException e) {
+		for(Long id:new ArrayList<>(pending.keySet())) {
+			final CompletableFuture<String> future = pending.remove(id);
+			if(future != null) future.completeExceptionally(e);
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		if(process != null) {
+			process.destroy();
+			process = null;
+			stdin = null;
+		}
+		failPending(new IOException("Praat server closed"));
+	}
+
+}
@@ -15,50 +15,22 @@
  */
 package ca.phon.plugins.praat;
 
-import ca.hedlund.jpraat.binding.Praat;
-import ca.hedlund.jpraat.binding.sys.PraatVersion;
 import ca.phon.app.hooks.PhonStartupHook;
 import ca.phon.plugin.*;
-import ca.phon.util.PrefHelper;
-import com.sun.jna.NativeLibrary;
-
-import java.util.logging.*;
 
 /**
- * Init Praat library on startup.
+ * Start loading the Praat library on startup.
  *
  */
 public class PraatStartupHook implements PhonStartupHook, IPluginExtensionPoint<PhonStartupHook> {
 
-	private static final Logger LOGGER = Logger
-			.getLogger(PraatStartupHook.class.getName());
-	
 	public static final String PRAAT_SEARCH_FOLDER = PraatStartupHook.class.getName() + 
 			".praatSearchFolder";
 	
 	@Override
 	public void startup() throws PluginException {
-		
-		try {
-			LOGGER.info("Initializing Praat library");
-			
-			final String praatSearchFolder = 
-					PrefHelper.get(PRAAT_SEARCH_FOLDER, null);
-			if(praatSearchFolder != null) {
-				NativeLibrary.addSearchPath("praat", praatSearchFolder);
-			}
-			
-			Praat.initLibrary();
-			
-			final PraatVersion praatVersion = PraatVersion.getVersion();
-			// print version information to log
-			final StringBuilder sb = new StringBuilder();
-			sb.append("Praat version: ").append(praatVersion.versionStr);
-			sb.append(" ").append(praatVersion.day).append('-').append(praatVersion.month).append('-').append(praatVersion.year);
-			LOGGER.info(sb.toString());
-		} catch (UnsatisfiedLinkError e) {
-			LOGGER.log(Level.SEVERE, e.getLocalizedMessage(), e);
-		}
+		// load native library in background, see PraatLibrary.await()
+		PraatLibrary.initAsync();
 	}
 
 	@Override
@@ -16,8 +16,13 @@
 package ca.phon.plugins.praat;
 
 import ca.phon.plugin.*;
+import ca.phon.plugins.praat.script.PraatBatchScript;
+import ca.phon.util.PrefHelper;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.*;
 
@@ -33,6 +38,16 @@ import java.util.logging.*;
  *  * output -> OutputStream: output stream for Praat return data
  *    or
  *    outputFile -> File: output file for Praat return data
+ *
+ * Batch arguments (optional), when segments are given the script is executed
+ * for each segment using a single {@link PraatBatchScript}:
+ *
+ *  * segments -> List&lt;PraatBatchScript.Segment&gt;: segments to process
+ *  * audioFile -> File: audio file, required with segments
+ *  * textGridFile -> File: TextGrid file. Optional.
+ *  * resultHandler -> PraatBatchScript.ResultHandler: receives parsed results
+ *    for each segment.  Output arguments are optional when a result handler
+ *    is given.
  */
 @PhonPlugin(name="phon-textgrid-plugin",version="0.1",author="Greg J. Hedlund")
 public class SendPraatEP implements IPluginEntryPoint {
@@ -48,6 +63,11 @@ public class SendPraatEP implements IPluginEntryPoint {
 	private final static String OUTPUT_ARG = "output";
 	private final static String OUTPUTFILE_ARG = "outputFile";
 
+	private final static String SEGMENTS_ARG = "segments";
+	private final static String AUDIOFILE_ARG = "audioFile";
+	private final static String TEXTGRIDFILE_ARG = "textGridFile";
+	private final static String RESULTHANDLER_ARG = "resultHandler";
+
 	@Override
 	public void pluginStart(Map<String, Object> args) {
 		/* 
@@ -57,11 +77,19 @@ public class SendPraatEP implements IPluginEntryPoint {
 			throw new IllegalArgumentException("[SendPraat] No script given");
 		}
 		String script = (String)args.get(SCRIPT_ARG);
+		if(script == null) {
+			try {
+				script = Files.readString(((File)args.get(SCRIPTFILE_ARG)).toPath(), StandardCharsets.UTF_8);
+			} catch (IOException e) {
+				LOGGER.log(Level.SEVERE, e.getLocalizedMessage(), e);
+				return;
+			}
+		}
 		
-		if(args.get(OUTPUT_ARG) == null && args.get(OUTPUTFILE_ARG) == null) {
+		final PraatBatchScript.ResultHandler resultHandler = (PraatBatchScript.ResultHandler)args.get(RESULTHANDLER_ARG);
+		if(args.get(OUTPUT_ARG) == null && args.get(OUTPUTFILE_ARG) == null && resultHandler == null) {
 			throw new IllegalArgumentException("[SendPraat] No output given");
 		}
-		OutputStream os = (OutputStream)args.get(OUTPUT_ARG);
 		
 		boolean runInBatch = true;
 		if(args.get(BATCHMODE_ARG) != null) {
@@ -69,18 +97,81 @@ public class SendPraatEP implements IPluginEntryPoint {
 		}
 		
 		String retVal = "";
-//		if(runInBatch)
-//			retVal = SendPraat.sendPraatInBatch(script);
-//		else
-//			retVal = SendPraat.sendPraat(script);
+		try {
+			if(args.get(SEGMENTS_ARG) != null) {
+				final PraatBatchScript batchScript = createBatchScript(script, args);
+				retVal = PraatProcessRunner.runScript(batchScript.generateScript());
+				if(resultHandler != null)
+					batchScript.parseResults(retVal, resultHandler);
+			} else if(runInBatch)
+				retVal = PraatProcessRunner.runScript(script);
+			else
+				sendToPraat(script);
+		} catch (IOException e) {
+			LOGGER.log(Level.SEVERE, e.getLocalizedMessage(), e);
+			return;
+		}
 		
-		if(retVal != null) {
-			try {
-				os.write(retVal.getBytes());
-				os.flush();
-			} catch (IOException e) {
-				LOGGER.log(Level.SEVERE, e.getLocalizedMessage(), e);
-			}
+		if(args.get(OUTPUT_ARG) == null && args.get(OUTPUTFILE_ARG) == null) return;
+		final OutputStream os = (OutputStream)args.get(OUTPUT_ARG);
+		try(OutputStream out = (os != null ? new FilterOutputStream(os) {
+					// don't close given stream
+					@Override
+					public void close() throws IOException {
+						flush();
+					}
+				} : new FileOutputStream((File)args.get(OUTPUTFILE_ARG)))) {
+			out.write(retVal.getBytes(StandardCharsets.UTF_8));
+			out.flush();
+		} catch (IOException e) {
+			LOGGER.log(Level.SEVERE, e.getLocalizedMessage(), e);
+		}
+	}
+	
+	/**
+	 * Create batch script executing the given script for each segment.
+	 * 
+	 * @param segmentScript
+	 * @param args
+	 * @return batch script
+	 */
+	@SuppressWarnings("unchecked")
+	private PraatBatchScript createBatchScript(String segmentScript, Map<String, Object> args) {
+		final File audioFile = (File)args.get(AUDIOFILE_ARG);
+		if(audioFile == null) {
+			throw new IllegalArgumentException("[SendPraat] No audio file given");
+		}
+		final File textGridFile = (File)args.get(TEXTGRIDFILE_ARG);
+		
+		final PraatBatchScript retVal = new PraatBatchScript(audioFile.getAbsolutePath(),
+				(textGridFile != null ? textGridFile.getAbsolutePath() : null), segmentScript);
+		for(PraatBatchScript.Segment segment:(List<PraatBatchScript.Segment>)args.get(SEGMENTS_ARG)) {
+			retVal.addSegment(segment);
+		}
+		return retVal;
+	}
+	
+	/**
+	 * Send script to a running Praat GUI, output is not returned.
+	 * 
+	 * @param script
+	 * @throws IOException
+	 */
+	private void sendToPraat(String script) throws IOException {
+		final File scriptFile = File.createTempFile("phon", ".praat");
+		try {
+			Files.writeString(scriptFile.toPath(), script, StandardCharsets.UTF_8);
+			final Process p = new ProcessBuilder(
+					PrefHelper.get(PraatProcessRunner.PRAAT_EXECUTABLE, PraatProcessRunner.DEFAULT_PRAAT_EXECUTABLE),
+					"--send", scriptFile.getAbsolutePath())
+				.redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+			// wait for script to be sent before removing it
+			p.waitFor();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} finally {
+			Files.deleteIfExists(scriptFile.toPath());
 		}
 	}
 
@@ -66,6 +66,8 @@ public class SpectrogramView extends SpeechAnalysisTier {
 
 	private final ErrorBanner maxAnalysisMessage = new ErrorBanner();
 
+	private final ErrorBanner praatLibraryMessage = new ErrorBanner();
+
 	/*
 	 * Spectrogram
 	 */
@@ -189,6 +191,10 @@ public class SpectrogramView extends SpeechAnalysisTier {
 		});
 
 		getParentView().getErrorPane().add(maxAnalysisMessage);
+
+		praatLibraryMessage.setTopLabelText("<html><b>Praat Library Not Loaded</b></html>");
+		praatLibraryMessage.setVisible(false);
+		getParentView().getErrorPane().add(praatLibraryMessage);
 	}
 
 	@Override
@@ -1084,6 +1090,19 @@ public class SpectrogramView extends SpeechAnalysisTier {
 		return null;
 	}
 	
+	/**
+	 * Open long sound for audio file, waits for the Praat library to load.
+	 *
+	 * @param audioFile
+	 * @return long sound, must be closed by caller
+	 * @throws PraatException
+	 * @throws UnsatisfiedLinkError if the Praat library could not be loaded
+	 */
+	private LongSound openLongSound(File audioFile) throws PraatException {
+		PraatLibrary.await();
+		return LongSound.open(MelderFile.fromPath(audioFile.getAbsolutePath()));
+	}
+
 	/**
 	 * @return
 	 */
@@ -1099,14 +1118,14 @@ public class SpectrogramView extends SpeechAnalysisTier {
 		final double xmax = (double)segment.getEndTime();
 
 		Spectrogram spectrogram = null;
-		try (final LongSound longSound = LongSound.open(MelderFile.fromPath(getAudioFile().getAbsolutePath()))) {
+		try (final LongSound longSound = openLongSound(audioFile)) {
 			try(final Sound part = longSound.extractPart(xmin, xmax, true)) {
 				spectrogram = part.to_Spectrogram(
 					spectrogramSettings.getWindowLength(), spectrogramSettings.getMaxFrequency(),
 					spectrogramSettings.getTimeStep(), spectrogramSettings.getFrequencyStep(),
 					spectrogramSettings.getWindowShape(), 8.0, 8.0);
 			}
-		} catch (Exception e) {
+		} catch (Exception | UnsatisfiedLinkError e) {
 			LogUtil.warning(e);
 		}
 		return spectrogram;
@@ -1124,7 +1143,7 @@ public class SpectrogramView extends SpeechAnalysisTier {
 		final double xmax = (double)segment.getEndTime();
 
 		Pitch pitch = null;
-		try (final LongSound longSound = LongSound.open(MelderFile.fromPath(getAudioFile().getAbsolutePath()))) {
+		try (final LongSound longSound = openLongSound(audioFile)) {
 			try(final Sound part = longSound.extractPart(xmin, xmax, true)) {
 				if(pitchSettings.isAutoCorrelate()) {
 					pitch = part.to_Pitch_ac(pitchSettings.getTimeStep(), pitchSettings.getRangeStart(), 3.0,
@@ -1138,7 +1157,7 @@ public class SpectrogramView extends SpeechAnalysisTier {
 						pitchSettings.getOctaveJumpCost(), pitchSettings.getVoicedUnvoicedCost(), pitchSettings.getRangeEnd());
 				}
 			}
-		} catch (Exception pe) {
+		} catch (Exception | UnsatisfiedLinkError pe) {
 			LogUtil.warning(pe);
 		}
 		return pitch;
@@ -1156,13 +1175,13 @@ public class SpectrogramView extends SpeechAnalysisTier {
 		final double xmax = (double)segment.getEndTime();
 
 		Formant formants = null;
-		try (final LongSound longSound = LongSound.open(MelderFile.fromPath(getAudioFile().getAbsolutePath()))) {
+		try (final LongSound longSound = openLongSound(audioFile)) {
 			try(final Sound part = longSound.extractPart(xmin, xmax, true)) {
 				formants =
 						part.to_Formant_burg(formantSettings.getTimeStep(), formantSettings.getNumFormants(),
 								formantSettings.getMaxFrequency(), formantSettings.getWindowLength(), formantSettings.getPreEmphasis());
 			}
-		} catch (Exception pe) {
+		} catch (Exception | UnsatisfiedLinkError pe) {
 			LogUtil.warning(pe);
 		}
 		return formants;
@@ -1180,14 +1199,14 @@ public class SpectrogramView extends SpeechAnalysisTier {
 		final double xmax = (double)segment.getEndTime();
 		
 		Intensity intensity = null;
-		try (final LongSound longSound = LongSound.open(MelderFile.fromPath(getAudioFile().getAbsolutePath()))) {
+		try (final LongSound longSound = openLongSound(audioFile)) {
 			try(final Sound part = longSound.extractPart(xmin, xmax, true)) {
 				intensity =
 						part.to_Intensity(pitchSettings.getRangeStart(),
 								0.0,
 								intensitySettings.getSubtractMean());
 			}
-		} catch (Exception pe) {
+		} catch (Exception | UnsatisfiedLinkError pe) {
 			LogUtil.warning(pe);
 		}
 		return intensity;
@@ -1201,7 +1220,7 @@ public class SpectrogramView extends SpeechAnalysisTier {
 		if(audioFile == null) return null;
 		
 		Spectrum spectrum = null;
-		try (final LongSound longSound = LongSound.open(MelderFile.fromPath(getAudioFile().getAbsolutePath()))) {
+		try (final LongSound longSound = openLongSound(audioFile)) {
 			
 			float xmin = interval.getStartMarker().getTime();
 			float xmax = interval.getEndMarker().getTime();
@@ -1219,7 +1238,7 @@ public class SpectrogramView extends SpeechAnalysisTier {
 					}
 				}
 			}
-		} catch (Exception pe) {
+		} catch (Exception | UnsatisfiedLinkError pe) {
 			LogUtil.warning(pe);
 		}
 
@@ -1238,7 +1257,7 @@ public class SpectrogramView extends SpeechAnalysisTier {
 		final double xmax = (double)segment.getEndTime();
 
 		PointProcess pulses = null;
-		try (final LongSound longSound = LongSound.open(MelderFile.fromPath(getAudioFile().getAbsolutePath()))) {
+		try (final LongSound longSound = openLongSound(audioFile)) {
 			try(final Sound part = longSound.extractPart(xmin, xmax, true)) {
 				Pitch pitch = null;
 				if(pitchSettings.isAutoCorrelate()) {
@@ -1256,7 +1275,7 @@ public class SpectrogramView extends SpeechAnalysisTier {
 				pulses = pitch.to_PointProcess_cc(part);
 				pitch.close();
 			}
-		} catch (Exception pe) {
+		} catch (Exception | UnsatisfiedLinkError pe) {
 			LogUtil.warning(pe);
 		}
 		return pulses;
@@ -1423,6 +1442,19 @@ public class SpectrogramView extends SpeechAnalysisTier {
 		
 		if(!getParentView().getEditor().getMediaModel().isSessionAudioAvailable()) return;
 		
+		if(!PraatLibrary.isLoaded()) {
+			// wait for native library without blocking the EDT
+			PraatLibrary.initAsync().whenComplete( (version, err) -> SwingUtilities.invokeLater( () -> {
+				if(err != null) {
+					praatLibraryMessage.setBottomLabelText("<html>" + err.getLocalizedMessage() + "</html>");
+					praatLibraryMessage.setVisible(true);
+				} else {
+					update(force);
+				}
+			}) );
+			return;
+		}
+		
 		final MediaSegment segment = getSegment();
 		if(segment == null) {
 			clearDisplay();
@@ -0,0 +1,260 @@
+package ca.phon.plugins.praat;
+
+import ca.phon.app.log.LogUtil;
+import ca.phon.project.Project;
+import ca.phon.session.Session;
+import ca.phon.session.SessionPath;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Import TextGrid files for all sessions in a project.  TextGrid files are
+ * found (recursively) in a given folder and matched to sessions by name,
+ * either <code>&lt;session&gt;.TextGrid</code> or
+ * <code>&lt;corpus&gt;_&lt;session&gt;.TextGrid</code> (ignoring case).
+ *
+ * Each matched session is processed as a single task on a worker pool: the
+ * TextGrid is parsed using {@link TextGridReader}, intervals are added to the
+ * session timeline using {@link TextGridImporter} and the session is saved once.
+ * Tiers which already exist in the session are not imported again, sessions
+ * with nothing new to import are not saved.  Errors are reported per file and
+ * do not stop the import.  Progress is reported for every matched session,
+ * including sessions skipped because the import was canceled.
+ */
+public class TextGridBatchImporter {
+
+    /**
+     * Progress listener, called from worker threads.
+     */
+    @FunctionalInterface
+    public static interface ProgressListener {
+        public void progress(int completed, int total, SessionPath sessionPath, File textGridFile);
+    }
+
+    /**
+     * Import error for a single file
+     *
+     * @param sessionPath
+     * @param textGridFile
+     * @param error
+     */
+    public static record FileError(SessionPath sessionPath, File textGridFile, Exception error) {}
+
+    /**
+     * Import result
+     *
+     * @param importedSessions sessions with imported TextGrids
+     * @param importedIntervals total number of imported intervals
+     * @param errors per file errors
+     * @param unmatchedFiles TextGrid files which did not match a session
+     * @param canceledSessions matched sessions which were not processed because the import was canceled
+     */
+    public static record Result(List<SessionPath> importedSessions, int importedIntervals,
+                                List<FileError> errors, List<File> unmatchedFiles,
+                                List<SessionPath> canceledSessions) {
+
+        public boolean isCanceled() {
+            return !canceledSessions.isEmpty();
+        }
+
+    }
+
+    private final Project project;
+
+    private final File textGridFolder;
+
+    private final TextGridImporter importer;
+
+    private final int numThreads;
+
+    private final List<ProgressListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicBoolean canceled = new AtomicBoolean(false);
+
+    public TextGridBatchImporter(Project project, File textGridFolder) {
+        this(project, textGridFolder, new TextGridImporter(), Runtime.getRuntime().availableProcessors());
+    }
+
+    public TextGridBatchImporter(Project project, File textGridFolder, TextGridImporter importer, int numThreads) {
+        this.project = project;
+        this.textGridFolder = textGridFolder;
+        this.importer = importer;
+        this.numThreads = Math.max(1, numThreads);
+    }
+
+    public void addProgressListener(ProgressListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeProgressListener(ProgressListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Cancel import, sessions which have already been saved are not reverted.
+     */
+    public void cancel() {
+        canceled.set(true);
+    }
+
+    public boolean isCanceled() {
+        return canceled.get();
+    }
+
+    /**
+     * Find TextGrid files in folder, keyed by lower-case file name without extension.
+     */
+    private Map<String, File> findTextGridFiles() throws IOException {
+        final Map<String, File> retVal = new LinkedHashMap<>();
+        try(Stream<Path> paths = Files.walk(textGridFolder.toPath())) {
+            paths.filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().toLowerCase().endsWith(".textgrid"))
+                    .forEach(p -> {
+                        final String name = p.getFileName().toString();
+                        retVal.putIfAbsent(name.substring(0, name.length() - ".textgrid".length()).toLowerCase(), p.toFile());
+                    });
+        }
+        return retVal;
+    }
+
+    /**
+     * Match TextGrid files to project sessions
+     *
+     * @return map of session path to TextGrid file
+     * @throws IOException
+     */
+    public Map<SessionPath, File> matchSessions() throws IOException {
+        return matchSessions(findTextGridFiles());
+    }
+
+    private Map<SessionPath, File> matchSessions(Map<String, File> textGridFiles) {
+        final Map<SessionPath, File> retVal = new LinkedHashMap<>();
+        for(String corpus:project.getCorpora()) {
+            for(String sessionName:project.getCorpusSessions(corpus)) {
+                File textGridFile = textGridFiles.get((corpus + "_" + sessionName).toLowerCase());
+                if(textGridFile == null)
+                    textGridFile = textGridFiles.get(sessionName.toLowerCase());
+                if(textGridFile != null) {
+                    retVal.put(new SessionPath(corpus, sessionName), textGridFile);
+                }
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Import all matched TextGrid files.  This method blocks until all sessions
+     * have been processed or the import is canceled.
+     *
+     * @return result
+     * @throws IOException if the TextGrid folder cannot be read
+     */
+    public Result importAll() throws IOException {
+        final Map<String, File> textGridFiles = findTextGridFiles();
+        final Map<SessionPath, File> matches = matchSessions(textGridFiles);
+
+        final Set<File> matchedFiles = new HashSet<>(matches.values());
+        final List<File> unmatchedFiles = new ArrayList<>();
+        for(File file:textGridFiles.values()) {
+            if(!matchedFiles.contains(file)) unmatchedFiles.add(file);
+        }
+
+        final List<SessionPath> importedSessions = Collections.synchronizedList(new ArrayList<>());
+        final List<FileError> errors = Collections.synchronizedList(new ArrayList<>());
+        final Set<SessionPath> canceledSessions = Collections.synchronizedSet(new LinkedHashSet<>());
+        final AtomicInteger importedIntervals = new AtomicInteger(0);
+        final AtomicInteger completed = new AtomicInteger(0);
+        final int total = matches.size();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for(var entry:matches.entrySet()) {
+                final SessionPath sessionPath = entry.getKey();
+                final File textGridFile = entry.getValue();
+                futures.add(executor.submit(() -> {
+                    if(canceled.get()) {
+                        canceledSessions.add(sessionPath);
+                    } else {
+                        try {
+                            importedIntervals.addAndGet(importSession(sessionPath, textGridFile));
+                            importedSessions.add(sessionPath);
+                        } catch (Exception e) {
+                            LogUtil.warning(textGridFile.getAbsolutePath() + ": " + e.getLocalizedMessage(), e);
+                            errors.add(new FileError(sessionPath, textGridFile, e));
+                        }
+                    }
+                    final int numCompleted = completed.incrementAndGet();
+                    for(ProgressListener listener:listeners) {
+                        listener.progress(numCompleted, total, sessionPath, textGridFile);
+                    }
+                }));
+            }
+
+            for(Future<?> future:futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    canceled.set(true);
+                    break;
+                } catch (ExecutionException e) {
+                    LogUtil.warning(e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // sessions whose tasks did not run after the wait was interrupted
+        if(canceled.get()) {
+            final Set<SessionPath> processed = new HashSet<>(importedSessions);
+            synchronized(errors) {
+                for(FileError error:errors) processed.add(error.sessionPath());
+            }
+            synchronized(canceledSessions) {
+                for(var entry:matches.entrySet()) {
+                    if(processed.contains(entry.getKey()) || !canceledSessions.add(entry.getKey())) continue;
+                    final int numCompleted = completed.incrementAndGet();
+                    for(ProgressListener listener:listeners) {
+                        listener.progress(numCompleted, total, entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        }
+
+        return new Result(List.copyOf(importedSessions), importedIntervals.get(),
+                List.copyOf(errors), unmatchedFiles, List.copyOf(canceledSessions));
+    }
+
+    /**
+     * Parse TextGrid, import intervals and save session.
+     *
+     * @return number of intervals imported
+     */
+    private int importSession(SessionPath sessionPath, File textGridFile) throws IOException {
+        final TextGridIndex textGrid = TextGridReader.readWithFallback(textGridFile);
+
+        final Session session = project.openSession(sessionPath.getFolder(), sessionPath.getSessionFile());
+        final int retVal = importer.importTextGrid(session, textGrid);
+        // all tiers already imported
+        if(retVal == 0) return retVal;
+
+        final UUID writeLock = project.getSessionWriteLock(session);
+        try {
+            project.saveSession(session, writeLock);
+        } finally {
+            project.releaseSessionWriteLock(session, writeLock);
+        }
+        return retVal;
+    }
+
+}
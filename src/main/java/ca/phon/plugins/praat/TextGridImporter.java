@@ -8,7 +8,11 @@ import ca.phon.app.log.LogUtil;
 import ca.phon.session.Session;
 import ca.phon.session.SessionFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -34,6 +38,63 @@ public class TextGridImporter {
         this.allowOverlappingIntervals = allowOverlappingIntervals;
     }
 
+    /**
+     * Read and import TextGrid file using {@link TextGridReader}.  A native
+     * TextGrid is only created for files the Java reader cannot parse,
+     * see {@link TextGridReader#readWithFallback(File)}.
+     *
+     * @param textGridFile
+     * @return list of imported tiers
+     * @throws IOException
+     */
+    public List<ca.phon.session.IntervalTier> importTextGrid(File textGridFile) throws IOException {
+        return importTextGrid(TextGridReader.readWithFallback(textGridFile));
+    }
+
+    /**
+     * Import interval tiers from TextGrid data, point tiers are ignored.
+     *
+     * @param textGrid
+     * @return list of imported tiers
+     */
+    public List<ca.phon.session.IntervalTier> importTextGrid(TextGridIndex textGrid) {
+        List<ca.phon.session.IntervalTier> retVal = new ArrayList<>();
+        for(TextGridIndex.TierIndex tier:textGrid.getTiers()) {
+            if(tier.isIntervalTier()) {
+                retVal.add(importTextGridIntervalTier(tier));
+            }
+        }
+        return retVal;
+    }
+
+    public ca.phon.session.IntervalTier importTextGridIntervalTier(TextGridIndex.TierIndex intervalTier) {
+        ca.phon.session.IntervalTier sessionTimelineTier = SessionFactory.newFactory().createTimelineTier(intervalTier.getName());
+
+        importIntervals(sessionTimelineTier, intervalTier);
+        return sessionTimelineTier;
+    }
+
+    /**
+     * Import interval tiers from TextGrid data directly into the session timeline.
+     * A new timeline tier is created for each interval tier, tiers which already
+     * exist in the session timeline (e.g., from a previous import) are skipped so
+     * that importing the same TextGrid again does not duplicate intervals.
+     * No undoable edits are created.
+     *
+     * @param session
+     * @param textGrid
+     * @return number of intervals imported
+     */
+    public int importTextGrid(Session session, TextGridIndex textGrid) {
+        int retVal = 0;
+        for(TextGridIndex.TierIndex tier:textGrid.getTiers()) {
+            if(!tier.isIntervalTier()) continue;
+            if(session.getTimeline().getTier(tier.getName()) != null) continue;
+            retVal += importIntervals(session.getTimeline().addTier(tier.getName()), tier);
+        }
+        return retVal;
+    }
+
     public List<ca.phon.session.IntervalTier> importTextGrid(TextGrid textGrid) {
         List<ca.phon.session.IntervalTier> retVal = new ArrayList<>();
         for(int i = 1; i <= textGrid.numberOfTiers(); i++) {
@@ -48,23 +109,83 @@ public class TextGridImporter {
     }
 
     public ca.phon.session.IntervalTier importTextGridIntervalTier(IntervalTier intervalTier) {
-        ca.phon.session.IntervalTier sessionTimelineTier = SessionFactory.newFactory().createTimelineTier(intervalTier.getName());
+        // copy interval data in a single pass
+        final int n = (int)intervalTier.numberOfIntervals();
+        final double[] starts = new double[n];
+        final double[] ends = new double[n];
+        final String[] labels = new String[n];
+        for (int i = 0; i < n; i++) {
+            final TextInterval textInterval = intervalTier.interval(i+1);
+            starts[i] = textInterval.getXmin();
+            ends[i] = textInterval.getXmax();
+            labels[i] = textInterval.getText();
+        }
+        return importTextGridIntervalTier(TextGridIndex.TierIndex.intervalTier(0, intervalTier.getName(),
+                intervalTier.getXmin(), intervalTier.getXmax(), starts, ends, labels));
+    }
 
-        // add intervals, ensuring that no overlapping intervals are added
-        for (int i = 1; i <= intervalTier.numberOfIntervals(); i++) {
-            final TextInterval textInterval = intervalTier.interval(i);
-            if(textInterval.getText().isBlank() && ignoreEmptyLabels) continue;
-            importTextInterval(sessionTimelineTier, textInterval, allowOverlappingIntervals);
+    /**
+     * Add intervals to timeline tier, skipping empty labels if requested.
+     *
+     * Intervals are collected and ordered by start time before any are added so
+     * that every insertion lands at the end of the tier's (start ordered) interval
+     * list; each insert is then an amortised O(1) append instead of a search and
+     * shift of the list.  If overlapping intervals are not allowed, overlaps are
+     * detected on the ordered data in a single pass: when the target tier is empty
+     * and no intervals overlap (always true for TextGrids written by Praat) all
+     * intervals are added using {@link ca.phon.session.IntervalTier.InsertionStrategy#ALLOW_OVERLAPS}
+     * without per-interval overlap checks.  Otherwise each interval is added using
+     * {@link ca.phon.session.IntervalTier.InsertionStrategy#ERROR_ON_OVERLAP}.
+     *
+     * @param sessionTimelineTier
+     * @param intervalTier
+     * @return number of intervals added
+     */
+    public int importIntervals(ca.phon.session.IntervalTier sessionTimelineTier, TextGridIndex.TierIndex intervalTier) {
+        int[] indices = new int[intervalTier.size()];
+        int count = 0;
+        boolean ordered = true;
+        double prevStart = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < intervalTier.size(); i++) {
+            if(intervalTier.getLabel(i).isBlank() && ignoreEmptyLabels) continue;
+            indices[count++] = i;
+            if(intervalTier.getStart(i) < prevStart) ordered = false;
+            prevStart = intervalTier.getStart(i);
+        }
+        indices = Arrays.copyOf(indices, count);
+        if(!ordered) {
+            indices = Arrays.stream(indices).boxed()
+                    .sorted(Comparator.comparingDouble(intervalTier::getStart))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
         }
 
-        return sessionTimelineTier;
+        boolean overlaps = !sessionTimelineTier.getIntervals().isEmpty();
+        float prevEnd = Float.NEGATIVE_INFINITY;
+        for(int k = 0; k < count && !overlaps; k++) {
+            final float start = (float)intervalTier.getStart(indices[k]);
+            final float end = (float)intervalTier.getEnd(indices[k]);
+            if(start < prevEnd || end < start) overlaps = true;
+            prevEnd = end;
+        }
+
+        final boolean allowOverlaps = allowOverlappingIntervals || !overlaps;
+        for(int i:indices) {
+            importTextInterval(sessionTimelineTier, intervalTier.getStart(i), intervalTier.getEnd(i),
+                    intervalTier.getLabel(i), allowOverlaps);
+        }
+        return count;
     }
 
     public ca.phon.session.IntervalTier.Interval importTextInterval(ca.phon.session.IntervalTier sessionTimelineTier, TextInterval textInterval, boolean allowOverlappingIntervals) {
+        return importTextInterval(sessionTimelineTier, textInterval.getXmin(), textInterval.getXmax(), textInterval.getText(), allowOverlappingIntervals);
+    }
+
+    public ca.phon.session.IntervalTier.Interval importTextInterval(ca.phon.session.IntervalTier sessionTimelineTier, double start, double end, String text, boolean allowOverlappingIntervals) {
         final ca.phon.session.IntervalTier.InsertionStrategy insertionStrategy =
                 allowOverlappingIntervals ? ca.phon.session.IntervalTier.InsertionStrategy.ALLOW_OVERLAPS
                         : ca.phon.session.IntervalTier.InsertionStrategy.ERROR_ON_OVERLAP;
-        final ca.phon.session.IntervalTier.Interval newInterval = sessionTimelineTier.addInterval((float) textInterval.getXmin(), (float) textInterval.getXmax(), textInterval.getText(), insertionStrategy);
+        final ca.phon.session.IntervalTier.Interval newInterval = sessionTimelineTier.addInterval((float) start, (float) end, text, insertionStrategy);
         return newInterval;
     }
 
@@ -0,0 +1,338 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat;
+
+import ca.hedlund.jpraat.binding.fon.*;
+import ca.hedlund.jpraat.exceptions.PraatException;
+
+import java.util.*;
+
+/**
+ * Immutable Java-side index of a {@link TextGrid}.  Interval boundaries, point
+ * times and labels are copied into primitive arrays once so that lookups
+ * do not need to cross into native code for every interval/point.
+ *
+ * Intervals in a Praat interval tier are contiguous and sorted, points in
+ * a point tier are sorted by time; all range lookups use binary search.
+ *
+ * Indices may also be created without a native TextGrid, see {@link TextGridReader}.
+ */
+public final class TextGridIndex {
+
+	private final double xmin;
+
+	private final double xmax;
+
+	private final List<TierIndex> tiers;
+
+	private final Map<String, TierIndex> tierMap;
+
+	private TextGridIndex(double xmin, double xmax, List<TierIndex> tiers) {
+		super();
+		this.xmin = xmin;
+		this.xmax = xmax;
+		this.tiers = Collections.unmodifiableList(tiers);
+
+		final Map<String, TierIndex> map = new HashMap<>();
+		for(TierIndex tier:tiers) {
+			// keep first tier when names are duplicated
+			map.putIfAbsent(tier.getName(), tier);
+		}
+		this.tierMap = Collections.unmodifiableMap(map);
+	}
+
+	/**
+	 * Build index for given TextGrid.
+	 *
+	 * @param textGrid
+	 *
+	 * @return index
+	 */
+	public static TextGridIndex build(TextGrid textGrid) {
+		final List<TierIndex> tiers = new ArrayList<>();
+		for(long tIdx = 1; tIdx <= textGrid.numberOfTiers(); tIdx++) {
+			final String name = textGrid.tier(tIdx).getName();
+			try {
+				final IntervalTier intervalTier = textGrid.checkSpecifiedTierIsIntervalTier(tIdx);
+				final int n = (int)intervalTier.numberOfIntervals();
+				final double[] starts = new double[n];
+				final double[] ends = new double[n];
+				final String[] labels = new String[n];
+				for(int i = 0; i < n; i++) {
+					final TextInterval interval = intervalTier.interval(i+1);
+					starts[i] = interval.getXmin();
+					ends[i] = interval.getXmax();
+					labels[i] = interval.getText();
+				}
+				tiers.add(new TierIndex(tIdx, name, true, intervalTier.getXmin(), intervalTier.getXmax(), starts, ends, labels));
+			} catch (PraatException pe) {
+				try {
+					final TextTier pointTier = textGrid.checkSpecifiedTierIsPointTier(tIdx);
+					final int n = (int)pointTier.numberOfPoints();
+					final double[] times = new double[n];
+					final String[] labels = new String[n];
+					for(int i = 0; i < n; i++) {
+						final TextPoint tp = pointTier.point(i+1);
+						times[i] = tp.getNumber();
+						labels[i] = tp.getText();
+					}
+					tiers.add(new TierIndex(tIdx, name, false, pointTier.getXmin(), pointTier.getXmax(), times, times, labels));
+				} catch (PraatException pe1) {
+					// unsupported tier type, index as empty point tier
+					tiers.add(new TierIndex(tIdx, name, false, textGrid.getXmin(), textGrid.getXmax(),
+							new double[0], new double[0], new String[0]));
+				}
+			}
+		}
+		return new TextGridIndex(textGrid.getXmin(), textGrid.getXmax(), tiers);
+	}
+
+	/**
+	 * Create index from tier data.
+	 *
+	 * @param xmin
+	 * @param xmax
+	 * @param tiers
+	 *
+	 * @return index
+	 */
+	public static TextGridIndex create(double xmin, double xmax, List<TierIndex> tiers) {
+		return new TextGridIndex(xmin, xmax, new ArrayList<>(tiers));
+	}
+
+	public double getXmin() {
+		return this.xmin;
+	}
+
+	public double getXmax() {
+		return this.xmax;
+	}
+
+	public int getTierCount() {
+		return tiers.size();
+	}
+
+	public List<TierIndex> getTiers() {
+		return this.tiers;
+	}
+
+	/**
+	 * @param tierNumber Praat (1-based) tier number
+	 * @return tier index
+	 */
+	public TierIndex getTier(long tierNumber) {
+		return tiers.get((int)tierNumber - 1);
+	}
+
+	/**
+	 * @param tierName
+	 * @return tier index or <code>null</code> if not found
+	 */
+	public TierIndex getTier(String tierName) {
+		return tierMap.get(tierName);
+	}
+
+	/**
+	 * Find index of first element in sorted array which is &gt;= value
+	 */
+	static int lowerBound(double[] arr, double value) {
+		int lo = 0;
+		int hi = arr.length;
+		while(lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			if(arr[mid] < value) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Find index of first element in sorted array which is &gt; value
+	 */
+	static int upperBound(double[] arr, double value) {
+		int lo = 0;
+		int hi = arr.length;
+		while(lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			if(arr[mid] <= value) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Index of a single interval or point tier.  For point tiers start and
+	 * end times are the point time.  Element indices are 0-based,
+	 * add 1 for the Praat interval/point number.
+	 */
+	public static final class TierIndex {
+
+		private final long tierNumber;
+
+		private final String name;
+
+		private final boolean intervalTier;
+
+		private final double xmin;
+
+		private final double xmax;
+
+		private final double[] starts;
+
+		private final double[] ends;
+
+		private final String[] labels;
+
+		private TierIndex(long tierNumber, String name, boolean intervalTier, double xmin, double xmax,
+				double[] starts, double[] ends, String[] labels) {
+			super();
+			this.tierNumber = tierNumber;
+			this.name = name;
+			this.intervalTier = intervalTier;
+			this.xmin = xmin;
+			this.xmax = xmax;
+			this.starts = starts;
+			this.ends = ends;
+			this.labels = labels;
+		}
+
+		/**
+		 * Create interval tier index.  Arrays are not copied.
+		 */
+		public static TierIndex intervalTier(long tierNumber, String name, double xmin, double xmax,
+				double[] starts, double[] ends, String[] labels) {
+			return new TierIndex(tierNumber, name, true, xmin, xmax, starts, ends, labels);
+		}
+
+		/**
+		 * Create point tier index.  Arrays are not copied.
+		 */
+		public static TierIndex pointTier(long tierNumber, String name, double xmin, double xmax,
+				double[] times, String[] labels) {
+			return new TierIndex(tierNumber, name, false, xmin, xmax, times, times, labels);
+		}
+
+		public long getTierNumber() {
+			return this.tierNumber;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public boolean isIntervalTier() {
+			return this.intervalTier;
+		}
+
+		public boolean isPointTier() {
+			return !this.intervalTier;
+		}
+
+		public double getXmin() {
+			return this.xmin;
+		}
+
+		public double getXmax() {
+			return this.xmax;
+		}
+
+		public int size() {
+			return labels.length;
+		}
+
+		public double getStart(int idx) {
+			return starts[idx];
+		}
+
+		public double getEnd(int idx) {
+			return ends[idx];
+		}
+
+		/**
+		 * Point time, same as {@link #getStart(int)}
+		 */
+		public double getTime(int idx) {
+			return starts[idx];
+		}
+
+		public String getLabel(int idx) {
+			return labels[idx];
+		}
+
+		/**
+		 * First element which may overlap the range [t0, t1].  For intervals
+		 * this is the first interval ending after t0, for points the first
+		 * point at or after t0.
+		 *
+		 * @param t0
+		 * @return element index, {@link #size()} if none
+		 */
+		public int fromIndex(double t0) {
+			return (intervalTier ? upperBound(ends, t0) : lowerBound(starts, t0));
+		}
+
+		/**
+		 * Element index (exclusive) after the last element which may overlap
+		 * the range [t0, t1].  For intervals this is the first interval
+		 * starting at or after t1, for points the first point after t1.
+		 *
+		 * @param t1
+		 * @return element index (exclusive)
+		 */
+		public int toIndex(double t1) {
+			return (intervalTier ? lowerBound(starts, t1) : upperBound(starts, t1));
+		}
+
+		/**
+		 * Find interval containing the given time.
+		 *
+		 * @param time
+		 * @return interval index or -1 if not found
+		 */
+		public int indexOf(double time) {
+			final int idx = upperBound(starts, time) - 1;
+			if(idx >= 0 && time <= ends[idx]) return idx;
+			return -1;
+		}
+
+		/**
+		 * Create a {@link TextInterval} for the given element.
+		 *
+		 * @param idx
+		 * @return new interval
+		 * @throws PraatException
+		 */
+		public TextInterval createInterval(int idx) throws PraatException {
+			return TextInterval.create(starts[idx], ends[idx], labels[idx]);
+		}
+
+		/**
+		 * Create a {@link TextInterval} for the given element clipped to
+		 * the range [t0, t1] (as done by <code>TextGrid.extractPart</code>.)
+		 *
+		 * @param idx
+		 * @param t0
+		 * @param t1
+		 * @return new interval
+		 * @throws PraatException
+		 */
+		public TextInterval createInterval(int idx, double t0, double t1) throws PraatException {
+			return TextInterval.create(Math.max(starts[idx], t0), Math.min(ends[idx], t1), labels[idx]);
+		}
+
+	}
+
+}
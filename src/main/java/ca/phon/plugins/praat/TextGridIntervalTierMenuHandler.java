@@ -1,9 +1,5 @@
 package ca.phon.plugins.praat;
 
-import ca.hedlund.jpraat.TextGridUtils;
-import ca.hedlund.jpraat.binding.fon.TextGrid;
-import ca.hedlund.jpraat.binding.sys.MelderFile;
-import ca.hedlund.jpraat.exceptions.PraatException;
 import ca.phon.app.log.LogUtil;
 import ca.phon.app.session.editor.undo.AddIntervalTierEdit;
 import ca.phon.app.session.editor.undo.AddTimelineTierIntervalsEdit;
@@ -21,6 +17,8 @@ import ca.phon.ui.nativedialogs.NativeDialogEvent;
 import ca.phon.ui.nativedialogs.NativeDialogs;
 import ca.phon.ui.nativedialogs.OpenDialogProperties;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.annotation.Native;
 import java.util.List;
 
@@ -59,9 +57,8 @@ public class TextGridIntervalTierMenuHandler implements IntervalTierMenuHandler,
 
     private void importTextGrid(Session session, SpeechAnalysisIntervalsTier speechAnalysisIntervalsTier, String filePath) {
         try {
-            final TextGrid tg = TextGrid.readFromTextFile(TextGrid.class, MelderFile.fromPath(filePath));
             final TextGridImporter importer = new TextGridImporter();
-            final List<IntervalTier> importedTierData = importer.importTextGrid(tg);
+            final List<IntervalTier> importedTierData = importer.importTextGrid(new File(filePath));
 
             speechAnalysisIntervalsTier.getParentView().getEditor().getUndoSupport().beginUpdate("Import TextGrid");
             for(IntervalTier tier : importedTierData) {
@@ -83,7 +80,7 @@ public class TextGridIntervalTierMenuHandler implements IntervalTierMenuHandler,
                 speechAnalysisIntervalsTier.getParentView().getEditor().getUndoSupport().postEdit(addIntervalsEdit);
             }
             speechAnalysisIntervalsTier.getParentView().getEditor().getUndoSupport().endUpdate();
-        } catch (PraatException e) {
+        } catch (IOException e) {
             LogUtil.severe(e);
         }
     }
@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import ca.hedlund.jpraat.binding.fon.TextGrid;
+import ca.hedlund.jpraat.binding.sys.MelderFile;
+
+/**
+ * Pure Java reader for Praat TextGrid files in text (long) and short text
+ * formats, encoded as UTF-8, UTF-16 (with byte order mark) or ISO-8859-1.
+ * TextGrids are read directly into a {@link TextGridIndex} without
+ * creating a native Praat object.
+ *
+ * Praat text files are read as a sequence of numbers, quoted strings and
+ * &lt;flags&gt;; everything else (labels such as <code>xmin =</code>, text
+ * in square brackets and comments starting with '!') is ignored.  This
+ * allows both long and short formats to be read by the same code.
+ */
+public class TextGridReader {
+
+	private CharBuffer text;
+
+	private int pos;
+
+	/**
+	 * Read TextGrid file
+	 *
+	 * @param file
+	 * @return TextGrid data
+	 * @throws IOException if the file cannot be read or is not a text TextGrid
+	 */
+	public TextGridIndex read(File file) throws IOException {
+		return read(file.toPath());
+	}
+
+	/**
+	 * Read TextGrid file
+	 *
+	 * @param path
+	 * @return TextGrid data
+	 * @throws IOException if the file cannot be read or is not a text TextGrid
+	 */
+	public TextGridIndex read(Path path) throws IOException {
+		// read into a heap buffer, a mapped buffer would keep the file
+		// mapped (and locked on Windows) until it is garbage collected
+		return read(ByteBuffer.wrap(Files.readAllBytes(path)));
+	}
+
+	/**
+	 * Read TextGrid file.  Files which cannot be parsed by this reader (e.g.,
+	 * binary TextGrids or unsupported encodings) are read using Praat, the
+	 * native TextGrid is copied into the returned index and closed.
+	 *
+	 * @param file
+	 * @return TextGrid data
+	 * @throws IOException if the file cannot be read by either reader
+	 */
+	public static TextGridIndex readWithFallback(File file) throws IOException {
+		try {
+			return new TextGridReader().read(file);
+		} catch (IOException e) {
+			if(!file.isFile()) throw e;
+			try(TextGrid textGrid = TextGrid.readFromTextFile(TextGrid.class, MelderFile.fromPath(file.getAbsolutePath()))) {
+				return TextGridIndex.build(textGrid);
+			} catch (Exception pe) {
+				e.addSuppressed(pe);
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Read TextGrid from given bytes
+	 *
+	 * @param bytes
+	 * @return TextGrid data
+	 * @throws IOException
+	 */
+	public TextGridIndex read(ByteBuffer bytes) throws IOException {
+		this.text = decode(bytes);
+		this.pos = 0;
+		try {
+			return readTextGrid();
+		} finally {
+			this.text = null;
+		}
+	}
+
+	private static CharBuffer decode(ByteBuffer bytes) throws IOException {
+		Charset charset = StandardCharsets.UTF_8;
+		final int b0 = (bytes.remaining() > 0 ? bytes.get(0) & 0xff : -1);
+		final int b1 = (bytes.remaining() > 1 ? bytes.get(1) & 0xff : -1);
+		final int b2 = (bytes.remaining() > 2 ? bytes.get(2) & 0xff : -1);
+		if(b0 == 0xfe && b1 == 0xff) {
+			charset = StandardCharsets.UTF_16BE;
+			bytes.position(2);
+		} else if(b0 == 0xff && b1 == 0xfe) {
+			charset = StandardCharsets.UTF_16LE;
+			bytes.position(2);
+		} else if(b0 == 0xef && b1 == 0xbb && b2 == 0xbf) {
+			bytes.position(3);
+		} else if(b0 > 0 && b1 == 0) {
+			charset = StandardCharsets.UTF_16LE;
+		} else if(b0 == 0 && b1 > 0) {
+			charset = StandardCharsets.UTF_16BE;
+		}
+
+		final int start = bytes.position();
+		try {
+			return charset.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPORT)
+					.onUnmappableCharacter(CodingErrorAction.REPORT)
+					.decode(bytes);
+		} catch (CharacterCodingException e) {
+			if(charset != StandardCharsets.UTF_8) throw e;
+			// not valid UTF-8, Praat falls back to ISO-8859-1
+			bytes.position(start);
+			return StandardCharsets.ISO_8859_1.decode(bytes);
+		}
+	}
+
+	private TextGridIndex readTextGrid() throws IOException {
+		final String fileType = nextString();
+		if(!fileType.startsWith("ooTextFile")) {
+			throw new IOException("Unsupported file type " + fileType);
+		}
+		final String objectClass = nextString();
+		if(!objectClass.startsWith("TextGrid")) {
+			throw new IOException("Not a TextGrid: " + objectClass);
+		}
+
+		final double xmin = nextNumber();
+		final double xmax = nextNumber();
+		final List<TextGridIndex.TierIndex> tiers = new ArrayList<>();
+		if(nextFlag()) {
+			final int numTiers = (int)nextNumber();
+			for(int i = 0; i < numTiers; i++) {
+				tiers.add(readTier(i + 1));
+			}
+		}
+		return TextGridIndex.create(xmin, xmax, tiers);
+	}
+
+	private TextGridIndex.TierIndex readTier(long tierNumber) throws IOException {
+		final String tierClass = nextString();
+		final String name = nextString();
+		final double xmin = nextNumber();
+		final double xmax = nextNumber();
+		final int size = (int)nextNumber();
+
+		if("IntervalTier".equals(tierClass)) {
+			final double[] starts = new double[size];
+			final double[] ends = new double[size];
+			final String[] labels = new String[size];
+			for(int i = 0; i < size; i++) {
+				starts[i] = nextNumber();
+				ends[i] = nextNumber();
+				labels[i] = nextString();
+			}
+			return TextGridIndex.TierIndex.intervalTier(tierNumber, name, xmin, xmax, starts, ends, labels);
+		} else if("TextTier".equals(tierClass)) {
+			final double[] times = new double[size];
+			final String[] labels = new String[size];
+			for(int i = 0; i < size; i++) {
+				times[i] = nextNumber();
+				labels[i] = nextString();
+			}
+			return TextGridIndex.TierIndex.pointTier(tierNumber, name, xmin, xmax, times, labels);
+		} else {
+			throw new IOException("Unsupported tier class " + tierClass);
+		}
+	}
+
+	private static boolean isNumberStart(char c) {
+		return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.';
+	}
+
+	/**
+	 * Skip to start of next token (number, string or flag)
+	 *
+	 * @return first character of token
+	 * @throws IOException at end of file
+	 */
+	private char skipToToken() throws IOException {
+		final int len = text.limit();
+		while(pos < len) {
+			final char c = text.get(pos);
+			if(c == '"' || c == '<' || isNumberStart(c)) {
+				return c;
+			} else if(c == '!') {
+				// comment
+				while(pos < len && text.get(pos) != '\n') pos++;
+			} else if(c == '[') {
+				while(pos < len && text.get(pos) != ']') pos++;
+				pos++;
+			} else if(Character.isLetter(c)) {
+				// label
+				while(pos < len && (Character.isLetterOrDigit(text.get(pos)) || text.get(pos) == '_')) pos++;
+			} else {
+				pos++;
+			}
+		}
+		throw new IOException("Unexpected end of file");
+	}
+
+	private double nextNumber() throws IOException {
+		final char c = skipToToken();
+		if(!isNumberStart(c)) {
+			throw new IOException("Expected number at offset " + pos);
+		}
+		final int start = pos;
+		final int len = text.limit();
+		while(pos < len) {
+			final char ch = text.get(pos);
+			if(isNumberStart(ch) || ch == 'e' || ch == 'E') pos++;
+			else break;
+		}
+		try {
+			return Double.parseDouble(text.subSequence(start - text.position(), pos - text.position()).toString());
+		} catch (NumberFormatException e) {
+			throw new IOException("Invalid number at offset " + start, e);
+		}
+	}
+
+	private String nextString() throws IOException {
+		final char c = skipToToken();
+		if(c != '"') {
+			throw new IOException("Expected string at offset " + pos);
+		}
+		pos++;
+
+		final int len = text.limit();
+		final StringBuilder sb = new StringBuilder();
+		while(pos < len) {
+			final char ch = text.get(pos++);
+			if(ch == '"') {
+				// doubled quotes are escaped quotes
+				if(pos < len && text.get(pos) == '"') {
+					sb.append('"');
+					pos++;
+				} else {
+					return sb.toString();
+				}
+			} else {
+				sb.append(ch);
+			}
+		}
+		throw new IOException("Unterminated string");
+	}
+
+	private boolean nextFlag() throws IOException {
+		final char c = skipToToken();
+		if(c != '<') {
+			throw new IOException("Expected <exists> or <absent> at offset " + pos);
+		}
+		final int start = pos;
+		final int len = text.limit();
+		while(pos < len && text.get(pos) != '>') pos++;
+		pos++;
+		return text.subSequence(start - text.position(), Math.min(pos, len) - text.position()).toString().equals("<exists>");
+	}
+
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat;
+
+import ca.hedlund.jpraat.binding.fon.*;
+import ca.hedlund.jpraat.exceptions.PraatException;
+import ca.phon.extensions.IExtendable;
+import ca.phon.ipa.IPATranscript;
+import ca.phon.orthography.Orthography;
+import ca.phon.session.Record;
+import ca.phon.session.*;
+import ca.phon.session.tierdata.*;
+
+import java.util.*;
+import java.util.logging.*;
+
+/**
+ * Annotates records with {@link TextInterval} extensions using a {@link TextGridIndex}.
+ * Intervals are located using binary search on the index; the TextGrid is not
+ * extracted per record.  One annotator should be used for all records of a session.
+ *
+ * TextGrid tiers are matched to record tiers by name using the form
+ * <code>&lt;tier name&gt;: &lt;level&gt;</code> where level is one of
+ * <code>Tier</code>, <code>Word</code>, <code>Syllable</code> or <code>Phone</code>.
+ * A tier name without level is treated as <code>Tier</code>.  Non-empty intervals
+ * overlapping the record segment are clipped to the segment and assigned, in order,
+ * to the elements at the given level.
+ *
+ * Native intervals created for a record are released when the next record is
+ * annotated or when the annotator is closed.
+ */
+public class TextGridRecordAnnotator implements AutoCloseable {
+
+	private final static Logger LOGGER = Logger.getLogger(TextGridRecordAnnotator.class.getName());
+
+	public enum AnnotationLevel {
+		TIER,
+		WORD,
+		SYLLABLE,
+		PHONE;
+	}
+
+	private final TextGridIndex textGridIndex;
+
+	/* extendables annotated for the current record and their (native) intervals */
+	private final List<IExtendable> annotated = new ArrayList<>();
+
+	private final List<TextInterval> intervals = new ArrayList<>();
+
+	public TextGridRecordAnnotator(TextGridIndex textGridIndex) {
+		super();
+		this.textGridIndex = textGridIndex;
+	}
+
+	/**
+	 * Create annotator for given TextGrid.  The TextGrid is not referenced
+	 * by the annotator and may be closed after this call.
+	 *
+	 * @param textGrid
+	 * @return annotator
+	 */
+	public static TextGridRecordAnnotator forTextGrid(TextGrid textGrid) {
+		return new TextGridRecordAnnotator(TextGridIndex.build(textGrid));
+	}
+
+	public TextGridIndex getTextGridIndex() {
+		return textGridIndex;
+	}
+
+	/**
+	 * Annotate record using TextGrid intervals inside the record segment.
+	 * Annotations for the previously annotated record are released.
+	 *
+	 * @param record
+	 * @return <code>true</code> if any annotations were added
+	 */
+	public boolean annotateRecord(Record record) {
+		releaseAnnotations();
+
+		final MediaSegment segment = record.getSegmentTier().getValue();
+		if(segment == null) return false;
+		// clip segment to the TextGrid domain
+		final double startTime = Math.max(segment.getStartValue() / 1000.0, textGridIndex.getXmin());
+		final double endTime = Math.min(segment.getEndValue() / 1000.0, textGridIndex.getXmax());
+		if(endTime - startTime <= 0) return false;
+
+		boolean retVal = false;
+		for(TextGridIndex.TierIndex tierIndex:textGridIndex.getTiers()) {
+			if(!tierIndex.isIntervalTier()) continue;
+
+			String tierName = tierIndex.getName();
+			AnnotationLevel level = AnnotationLevel.TIER;
+			final int colonIdx = tierName.lastIndexOf(':');
+			if(colonIdx > 0) {
+				final String levelName = tierName.substring(colonIdx + 1).trim().toUpperCase();
+				try {
+					level = AnnotationLevel.valueOf(levelName);
+					tierName = tierName.substring(0, colonIdx).trim();
+				} catch (IllegalArgumentException e) {
+					// not a level, use full name
+				}
+			}
+
+			final Object tierValue = getTierValue(record, tierName);
+			if(tierValue == null) continue;
+
+			final List<? extends IExtendable> elements = getElements(tierValue, level);
+			if(elements.isEmpty()) continue;
+
+			int eleIdx = 0;
+			final int toIdx = tierIndex.toIndex(endTime);
+			for(int i = tierIndex.fromIndex(startTime); i < toIdx && eleIdx < elements.size(); i++) {
+				final String label = tierIndex.getLabel(i);
+				if(label == null || label.isBlank()) continue;
+				if(annotate(elements.get(eleIdx++), tierIndex, i, startTime, endTime)) retVal = true;
+			}
+		}
+		return retVal;
+	}
+
+	private boolean annotate(IExtendable extendable, TextGridIndex.TierIndex tierIndex, int idx,
+			double startTime, double endTime) {
+		try {
+			final TextInterval interval = tierIndex.createInterval(idx, startTime, endTime);
+			extendable.putExtension(TextInterval.class, interval);
+			annotated.add(extendable);
+			intervals.add(interval);
+			return true;
+		} catch (PraatException e) {
+			LOGGER.log(Level.WARNING, e.getLocalizedMessage(), e);
+			return false;
+		}
+	}
+
+	private Object getTierValue(Record record, String tierName) {
+		final SystemTierType systemTier = SystemTierType.tierFromString(tierName);
+		if(systemTier != null) {
+			switch(systemTier) {
+			case Orthography:
+				return record.getOrthography();
+
+			case IPATarget:
+				return record.getIPATarget();
+
+			case IPAActual:
+				return record.getIPAActual();
+
+			default:
+				return null;
+			}
+		} else {
+			final Tier<?> tier = record.getTier(tierName);
+			return (tier != null ? tier.getValue() : null);
+		}
+	}
+
+	private List<? extends IExtendable> getElements(Object tierValue, AnnotationLevel level) {
+		switch(level) {
+		case TIER:
+			return (tierValue instanceof IExtendable extendable ? List.of(extendable) : List.of());
+
+		case WORD:
+			if(tierValue instanceof Orthography ortho) {
+				final List<IExtendable> retVal = new ArrayList<>();
+				for(int i = 0; i < ortho.length(); i++) retVal.add(ortho.elementAt(i));
+				return retVal;
+			} else if(tierValue instanceof IPATranscript ipa) {
+				return ipa.words();
+			} else if(tierValue instanceof TierData tierData) {
+				final List<IExtendable> retVal = new ArrayList<>();
+				for(TierElement ele:tierData) {
+					if(ele instanceof TierString tierString) {
+						for(int i = 0; i < tierString.numberOfWords(); i++) retVal.add(tierString.getWord(i));
+					}
+				}
+				return retVal;
+			}
+			return List.of();
+
+		case SYLLABLE:
+			return (tierValue instanceof IPATranscript ipa ? ipa.syllables() : List.of());
+
+		case PHONE:
+			if(tierValue instanceof IPATranscript ipa) {
+				final IPATranscript phones = ipa.removePunctuation();
+				final List<IExtendable> retVal = new ArrayList<>();
+				for(int i = 0; i < phones.length(); i++) retVal.add(phones.elementAt(i));
+				return retVal;
+			}
+			return List.of();
+
+		default:
+			return List.of();
+		}
+	}
+
+	/**
+	 * Remove annotations added for the last record and release
+	 * native interval memory.
+	 */
+	public void releaseAnnotations() {
+		for(int i = 0; i < annotated.size(); i++) {
+			final IExtendable extendable = annotated.get(i);
+			final TextInterval interval = intervals.get(i);
+			if(extendable.getExtension(TextInterval.class) == interval) {
+				extendable.removeExtension(TextInterval.class);
+			}
+			try {
+				interval.close();
+			} catch (Exception e) {
+				LOGGER.log(Level.WARNING, e.getLocalizedMessage(), e);
+			}
+		}
+		annotated.clear();
+		intervals.clear();
+	}
+
+	@Override
+	public void close() {
+		releaseAnnotations();
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.*;
+
+/**
+ * LRU cache of rendered TextGrid tier tiles.  Each tile is a fixed width
+ * section of a single tier.  Tiles are keyed by everything which affects
+ * their content (tier, tile index, zoom, font and size) so a tile is only
+ * re-rendered when scrolled into view for the first time or when styling
+ * changes.  The cache must be cleared when the TextGrid is modified.
+ */
+final class TextGridTileCache {
+
+	/** Width of tiles in pixels */
+	public final static int TILE_WIDTH = 512;
+
+	private final static int DEFAULT_CAPACITY = 128;
+
+	/**
+	 * Tile key
+	 *
+	 * @param tierPos position of tier in TextGrid
+	 * @param tileIdx tile index, tile x = tileIdx * TILE_WIDTH
+	 * @param originX x position of time 0
+	 * @param pxPerSec zoom
+	 * @param font tier font
+	 * @param width component width
+	 * @param height tier height
+	 * @param scale device scale
+	 */
+	record TileKey(int tierPos, int tileIdx, double originX, double pxPerSec, Font font,
+			int width, int height, double scale) {}
+
+	private final Map<TileKey, BufferedImage> tiles;
+
+	public TextGridTileCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public TextGridTileCache(int capacity) {
+		super();
+		this.tiles = new LinkedHashMap<>(capacity, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<TileKey, BufferedImage> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	public BufferedImage get(TileKey key) {
+		return tiles.get(key);
+	}
+
+	public void put(TileKey key, BufferedImage tile) {
+		tiles.put(key, tile);
+	}
+
+	public void clear() {
+		tiles.clear();
+	}
+
+}
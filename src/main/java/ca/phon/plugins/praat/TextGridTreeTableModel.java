@@ -17,21 +17,53 @@ package ca.phon.plugins.praat;
 
 import ca.hedlund.jpraat.binding.fon.*;
 import ca.hedlund.jpraat.exceptions.PraatException;
-import ca.phon.util.Tuple;
 import org.jdesktop.swingx.treetable.AbstractTreeTableModel;
 
+import java.util.*;
+
 /**
+ * Tree table model for a {@link TextGrid}.  Interval data is copied from
+ * the TextGrid in pages of {@link #PAGE_SIZE} intervals when first
+ * requested, tree nodes are lightweight wrappers which know their own
+ * index.  A bounded cache of interval nodes is kept so that repeated
+ * requests for the same child return the same instance.
  *
  * @author ghedlund
  */
 public class TextGridTreeTableModel extends AbstractTreeTableModel {
 
+	/** Number of intervals copied from the TextGrid at a time */
+	public final static int PAGE_SIZE = 1024;
+
+	private final static int NODE_CACHE_SIZE = 4096;
+
 	/** The text grid */
 	private TextGrid tg;
 
+	private final TierNode[] tiers;
+
+	private final Map<IntervalNode, IntervalNode> nodeCache =
+			new LinkedHashMap<>(256, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<IntervalNode, IntervalNode> eldest) {
+					return size() > NODE_CACHE_SIZE;
+				}
+			};
+
 	public TextGridTreeTableModel(TextGrid tg) {
 		super();
 		this.tg = tg;
+
+		this.tiers = new TierNode[(int)tg.numberOfTiers()];
+		for(int i = 0; i < tiers.length; i++) {
+			IntervalTier intervalTier = null;
+			try {
+				intervalTier = tg.checkSpecifiedTierIsIntervalTier(i+1);
+			} catch (PraatException e) {
+				// point tier or unknown tier type
+			}
+			tiers[i] = new TierNode(i, tg.tier(i+1).getName(), intervalTier);
+		}
 	}
 
 	@Override
@@ -51,26 +83,22 @@ public class TextGridTreeTableModel extends AbstractTreeTableModel {
 		if(col == 0) {
 			if(obj == tg) {
 				retVal = "TextGrid";
-			} else if(obj instanceof IntervalTier) {
-				IntervalTier tier = (IntervalTier)obj;
-				retVal = tier.getName();
-			} else if (obj instanceof TextInterval) {
-				TextInterval interval = (TextInterval)obj;
-				retVal = interval.getText();
-			} else if (obj instanceof Tuple) {
-				Tuple<String, Object> tup =
-						(Tuple<String,Object>)obj;
-				retVal = tup.getObj1();
+			} else if(obj instanceof TierNode tier) {
+				retVal = tier.name;
+			} else if (obj instanceof IntervalNode interval) {
+				retVal = interval.tier().getLabel(interval.index());
+			} else if (obj instanceof PropertyNode prop) {
+				retVal = (prop.index() == 0 ? "Start" : "End");
 			}
 		} else if(col == 1) {
-			if(obj instanceof IntervalTier) {
-				retVal = "Interval Tier";
-			} else if (obj instanceof TextInterval) {
+			if(obj instanceof TierNode tier) {
+				retVal = (tier.intervalTier != null ? "Interval Tier" : "Point Tier");
+			} else if (obj instanceof IntervalNode) {
 				retVal = "Interval";
-			} else if(obj instanceof Tuple) {
-				Tuple<String, Object> tup =
-						(Tuple<String,Object>)obj;
-				retVal = tup.getObj2();
+			} else if(obj instanceof PropertyNode prop) {
+				final IntervalNode interval = prop.interval();
+				retVal = Float.valueOf((float)(prop.index() == 0
+						? interval.tier().getStart(interval.index()) : interval.tier().getEnd(interval.index())));
 			}
 		}
 
@@ -82,26 +110,12 @@ public class TextGridTreeTableModel extends AbstractTreeTableModel {
 		Object retVal = null;
 
 		if(parent == tg) {
-			try {
-				retVal = tg.checkSpecifiedTierIsIntervalTier(childIndex);
-			} catch (PraatException e) {
-				try {
-					retVal = tg.checkSpecifiedTierIsPointTier(childIndex);
-				} catch (PraatException ex) {
-					retVal = tg.tier(childIndex);
-				}
-			}
-		} else if(parent instanceof IntervalTier) {
-			IntervalTier tier = (IntervalTier)parent;
-			retVal = tier.interval(childIndex);
-		} else if(parent instanceof TextInterval) {
-			TextInterval interval = (TextInterval)parent;
-			if(childIndex == 0)
-				retVal = 
-						new Tuple<String, Object>("Start", new Float(interval.getXmin()));
-			else if(childIndex == 1)
-				retVal =
-						new Tuple<String, Object>("End", new Float(interval.getXmax()));
+			retVal = tiers[childIndex];
+		} else if(parent instanceof TierNode tier) {
+			final IntervalNode key = new IntervalNode(tier, childIndex);
+			retVal = nodeCache.computeIfAbsent(key, (k) -> k);
+		} else if(parent instanceof IntervalNode interval) {
+			retVal = new PropertyNode(interval, childIndex);
 		}
 
 		return retVal;
@@ -112,11 +126,10 @@ public class TextGridTreeTableModel extends AbstractTreeTableModel {
 		int retVal = 0;
 
 		if(parent == tg) {
-			retVal = (int)tg.numberOfTiers();
-		} else if(parent instanceof IntervalTier) {
-			IntervalTier tier = (IntervalTier)parent;
-			retVal = (int)tier.numberOfIntervals();
-		} else if(parent instanceof TextInterval) {
+			retVal = tiers.length;
+		} else if(parent instanceof TierNode tier) {
+			retVal = tier.size;
+		} else if(parent instanceof IntervalNode) {
 			retVal = 2;
 		}
 
@@ -125,33 +138,99 @@ public class TextGridTreeTableModel extends AbstractTreeTableModel {
 
 	@Override
 	public int getIndexOfChild(Object parent, Object child) {
-		int retVal = 0;
+		int retVal = -1;
+
+		if(parent == tg && child instanceof TierNode tier) {
+			retVal = tier.tierPos;
+		} else if (child instanceof IntervalNode interval && interval.tier() == parent) {
+			retVal = interval.index();
+		} else if (child instanceof PropertyNode prop && prop.interval().equals(parent)) {
+			retVal = prop.index();
+		}
 
-		if(parent == tg) {
-			for(int i = 0; i < tg.numberOfTiers(); i++) {
-				if(tg.tier(i) == child) {
-					retVal = i;
-					break;
-				}
-			}
-		} else if (parent instanceof IntervalTier) {
-			IntervalTier tier = (IntervalTier)parent;
-			for(int i = 0; i < tier.numberOfIntervals(); i++) {
-				if(tier.interval(i) == child) {
-					retVal = i;
-					break;
+		return retVal;
+	}
+
+	/**
+	 * Tier node, interval data is loaded one page at a time.
+	 */
+	private final static class TierNode {
+
+		private final int tierPos;
+
+		private final String name;
+
+		private final IntervalTier intervalTier;
+
+		private final int size;
+
+		private final double[][] pageStarts;
+
+		private final double[][] pageEnds;
+
+		private final String[][] pageLabels;
+
+		TierNode(int tierPos, String name, IntervalTier intervalTier) {
+			this.tierPos = tierPos;
+			this.name = name;
+			this.intervalTier = intervalTier;
+			this.size = (intervalTier != null ? (int)intervalTier.numberOfIntervals() : 0);
+
+			final int numPages = (size + PAGE_SIZE - 1) / PAGE_SIZE;
+			this.pageStarts = new double[numPages][];
+			this.pageEnds = new double[numPages][];
+			this.pageLabels = new String[numPages][];
+		}
+
+		private int loadPage(int index) {
+			final int page = index / PAGE_SIZE;
+			if(pageLabels[page] == null) {
+				final int first = page * PAGE_SIZE;
+				final int n = Math.min(PAGE_SIZE, size - first);
+				final double[] starts = new double[n];
+				final double[] ends = new double[n];
+				final String[] labels = new String[n];
+				for(int i = 0; i < n; i++) {
+					final TextInterval interval = intervalTier.interval(first + i + 1);
+					starts[i] = interval.getXmin();
+					ends[i] = interval.getXmax();
+					labels[i] = interval.getText();
 				}
+				pageStarts[page] = starts;
+				pageEnds[page] = ends;
+				pageLabels[page] = labels;
 			}
-		} else if (parent instanceof TextInterval) {
-			Tuple<String,Float> tuple =
-					(Tuple<String,Float>)child;
-			if(tuple.getObj1().equals("Start"))
-				retVal = 0;
-			else
-				retVal = 1;
+			return page;
+		}
+
+		double getStart(int index) {
+			return pageStarts[loadPage(index)][index % PAGE_SIZE];
+		}
+
+		double getEnd(int index) {
+			return pageEnds[loadPage(index)][index % PAGE_SIZE];
+		}
+
+		String getLabel(int index) {
+			return pageLabels[loadPage(index)][index % PAGE_SIZE];
+		}
+
+		@Override
+		public String toString() {
+			return name;
 		}
 
-		return retVal;
 	}
 
+	private record IntervalNode(TierNode tier, int index) {
+
+		@Override
+		public String toString() {
+			return tier.getLabel(index);
+		}
+
+	}
+
+	private record PropertyNode(IntervalNode interval, int index) {}
+
 }
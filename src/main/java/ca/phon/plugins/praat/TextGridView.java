@@ -17,6 +17,8 @@ public class TextGridView extends TimeComponent {
 
 	private TextGrid textGrid;
 
+	private TextGridIndex textGridIndex;
+
 	private boolean showLabels = true;
 	
 	private Map<String, Color> tierColorMap = new LinkedHashMap<String, Color>();
@@ -112,8 +114,36 @@ public class TextGridView extends TimeComponent {
 	public void setTextGrid(TextGrid textGrid) {
 		var oldVal = this.textGrid;
 		this.textGrid = textGrid;
+		this.textGridIndex = buildIndex();
 		super.firePropertyChange("textGrid", oldVal, textGrid);
 	}
+
+	/**
+	 * Index of current TextGrid used for painting and hit testing.  The index
+	 * is built when the TextGrid is set and re-built by {@link #textGridChanged()},
+	 * the TextGrid is not queried while painting.
+	 *
+	 * @return index or <code>null</code> if no TextGrid is set
+	 */
+	public TextGridIndex getTextGridIndex() {
+		if(textGrid == null || textGrid.getPointer() == Pointer.NULL) return null;
+		return textGridIndex;
+	}
+
+	private TextGridIndex buildIndex() {
+		return (textGrid == null || textGrid.getPointer() == Pointer.NULL ? null : TextGridIndex.build(textGrid));
+	}
+
+	/**
+	 * Call after the current TextGrid has been modified in place (tiers,
+	 * intervals, points or labels) to re-build the index and repaint.
+	 */
+	public void textGridChanged() {
+		this.textGridIndex = buildIndex();
+		super.firePropertyChange("textGrid", null, textGrid);
+		revalidate();
+		repaint();
+	}
 	
 	public boolean isTierVisible(String tierName) {
 		Boolean visible = tierVisibilityMap.get(tierName);
@@ -130,6 +160,7 @@ public class TextGridView extends TimeComponent {
 
 	public void clearTierFonts() {
 		tierFontMap.clear();
+		firePropertyChange("tierFonts", null, null);
 	}
 
 	public Font getTierFont(String tierName) {
@@ -1,19 +1,17 @@
 package ca.phon.plugins.praat;
 
-import ca.hedlund.jpraat.binding.fon.*;
-import ca.hedlund.jpraat.exceptions.PraatException;
-import ca.phon.app.log.LogUtil;
 import ca.phon.media.TimeComponentUI;
 import ca.phon.ui.fonts.FontPreferences;
 import ca.phon.util.Tuple;
-import com.github.davidmoten.rtree.RTree;
-import com.github.davidmoten.rtree.geometry.Geometries;
 
 import javax.swing.*;
 import javax.swing.event.MouseInputAdapter;
 import java.awt.*;
 import java.awt.event.MouseEvent;
+import java.awt.font.*;
 import java.awt.geom.*;
+import java.awt.image.BufferedImage;
+import java.beans.PropertyChangeListener;
 import java.util.List;
 import java.util.*;
 
@@ -21,15 +19,21 @@ public class TextGridViewUI extends TimeComponentUI {
 		
 	private final static Insets labelInsets = new Insets(5, 3, 5, 3);
 
+	/* extra space (in pixels) searched for point labels which overhang the visible area */
+	private final static int POINT_LABEL_MARGIN = 100;
+
 	private TextGridView tgView;
 	
 	private JLabel label;
 	
-	private RTree<Long, com.github.davidmoten.rtree.geometry.Rectangle> tierLabelTree;
+	private TierLayout tierLayout;
+	
+	private final TextLayoutCache textLayoutCache = new TextLayoutCache();
 	
-	private RTree<Tuple<Long, Long>, com.github.davidmoten.rtree.geometry.Rectangle> intervalTree;
+	private final TextGridTileCache tileCache = new TextGridTileCache();
 	
-	private RTree<String, com.github.davidmoten.rtree.geometry.Rectangle> messageTree;
+	/* render context of last paint, used to measure labels when hit testing */
+	private FontRenderContext lastFrc;
 	
 	public TextGridViewUI() {
 		super();
@@ -45,6 +49,7 @@ public class TextGridViewUI extends TimeComponentUI {
 		
 		tgView.addMouseListener(mouseListener);
 		tgView.addMouseMotionListener(mouseListener);
+		tgView.addPropertyChangeListener(layoutListener);
 	}
 
 	@Override
@@ -53,6 +58,10 @@ public class TextGridViewUI extends TimeComponentUI {
 		
 		tgView.removeMouseListener(mouseListener);
 		tgView.removeMouseMotionListener(mouseListener);
+		tgView.removePropertyChangeListener(layoutListener);
+		tierLayout = null;
+		textLayoutCache.clear();
+		tileCache.clear();
 	}
 	
 	private JLabel getLabel() {
@@ -68,33 +77,24 @@ public class TextGridViewUI extends TimeComponentUI {
 	}
 
 	public int getTierY(String tierName) {
-		int y = 0;
-		for(long i = 1; i <= tgView.getTextGrid().numberOfTiers(); i++) {
-			Function tier = tgView.getTextGrid().tier(i);
-
-			if(tier.getName().equals(tierName)) {
-				break;
-			} else {
-				y += getTierHeight(tier.getName());
-			}
-		}
-		return y;
+		final TierLayout layout = getTierLayout();
+		final Integer tierPos = layout.tierPositions.get(tierName);
+		return (tierPos != null ? layout.tierY[tierPos] : layout.totalHeight);
 	}
 	
 	public int getTierHeight(String tierName) {
-		JLabel lbl = getLabel();
-		lbl.setFont(getTierFont(tierName));
-		String oldTxt = lbl.getText();
-		lbl.setText("WWWW");
-		int txtHeight = lbl.getPreferredSize().height;
-		lbl.setText(oldTxt);
-		
-		return labelInsets.top + labelInsets.bottom + txtHeight + getTierLabelHeight();
+		final TierLayout layout = getTierLayout();
+		final Integer tierPos = layout.tierPositions.get(tierName);
+		return (tierPos != null ? layout.tierHeight[tierPos] : measureTierHeight(getTierFont(tierName), layout.labelHeight));
 	}
 	
 	public int getTierLabelHeight() {
+		return getTierLayout().labelHeight;
+	}
+	
+	private int measureTextHeight(Font font) {
 		JLabel lbl = getLabel();
-		lbl.setFont(lbl.getFont().deriveFont(FontPreferences.getDefaultFontSize()));
+		lbl.setFont(font);
 		String oldTxt = lbl.getText();
 		lbl.setText("WWWW");
 		int retVal = lbl.getPreferredSize().height;
@@ -103,73 +103,150 @@ public class TextGridViewUI extends TimeComponentUI {
 		return retVal;
 	}
 	
-	@Override
-	public Dimension getPreferredSize(JComponent c) {
-		int numTiers = tgView.getVisibleTierCount();
-		int prefWidth = getTimeComponent().getTimeModel().getPreferredWidth();
-		int prefHeight = 0;
-		if(tgView.getTextGrid() != null && numTiers > 0) {
-			for (long i = 1; i <= tgView.getTextGrid().numberOfTiers(); i++) {
-				Function tier = tgView.getTextGrid().tier(i);
-				if(tgView.isTierVisible(tier.getName())) {
-					prefHeight += getTierHeight(tier.getName());
+	private int measureTierHeight(Font tierFont, int labelHeight) {
+		return labelInsets.top + labelInsets.bottom + measureTextHeight(tierFont) + labelHeight;
+	}
+	
+	/**
+	 * Tier layout, measured once and re-used until tier fonts, tier
+	 * visibility or the TextGrid change.
+	 */
+	private TierLayout getTierLayout() {
+		if(tierLayout == null) {
+			tierLayout = new TierLayout(tgView.getTextGridIndex());
+		}
+		return tierLayout;
+	}
+	
+	private void invalidateTierLayout() {
+		tierLayout = null;
+	}
+	
+	private final PropertyChangeListener layoutListener = (e) -> {
+		final String propName = e.getPropertyName();
+		if("textGrid".equals(propName)) {
+			tileCache.clear();
+		}
+		if("textGrid".equals(propName) || "font".equals(propName) || "tierFonts".equals(propName)
+				|| propName.endsWith(".font") || propName.endsWith(".visible")) {
+			invalidateTierLayout();
+		}
+	};
+	
+	/**
+	 * Y offset and height of each tier stored by tier position in the TextGrid.
+	 * Hidden tiers have a height but do not take up space.
+	 */
+	private final class TierLayout {
+		
+		final Map<String, Integer> tierPositions = new HashMap<>();
+		
+		final int[] tierY;
+		
+		final int[] tierHeight;
+		
+		/* positions of visible tiers, sorted by y */
+		final int[] visibleTiers;
+		
+		/* tier label size, updated when labels are painted */
+		final double[] tierLabelWidth;
+		
+		final double[] tierLabelHeight;
+		
+		final int labelHeight;
+		
+		final int totalHeight;
+		
+		TierLayout(TextGridIndex tgIndex) {
+			labelHeight = measureTextHeight(tgView.getFont().deriveFont(FontPreferences.getDefaultFontSize()));
+			
+			final int numTiers = (tgIndex != null ? tgIndex.getTierCount() : 0);
+			tierY = new int[numTiers];
+			tierHeight = new int[numTiers];
+			tierLabelWidth = new double[numTiers];
+			tierLabelHeight = new double[numTiers];
+			
+			int numVisible = 0;
+			final int[] visible = new int[numTiers];
+			final Map<Font, Integer> fontHeights = new HashMap<>();
+			int y = 0;
+			for(int i = 0; i < numTiers; i++) {
+				final String tierName = tgIndex.getTiers().get(i).getName();
+				tierPositions.putIfAbsent(tierName, i);
+				
+				final Font tierFont = getTierFont(tierName);
+				tierHeight[i] = fontHeights.computeIfAbsent(tierFont, (f) -> measureTierHeight(f, labelHeight));
+				tierY[i] = y;
+				if(tgView.isTierVisible(tierName)) {
+					y += tierHeight[i];
+					visible[numVisible++] = i;
 				}
 			}
+			totalHeight = y;
+			visibleTiers = Arrays.copyOf(visible, numVisible);
 		}
 		
+		/**
+		 * Find visible tier at given y position.
+		 * 
+		 * @param y
+		 * @return tier position or -1
+		 */
+		int tierAtY(int y) {
+			if(y < 0 || y >= totalHeight) return -1;
+			int lo = 0;
+			int hi = visibleTiers.length - 1;
+			while(lo < hi) {
+				final int mid = (lo + hi + 1) >>> 1;
+				if(tierY[visibleTiers[mid]] <= y) lo = mid;
+				else hi = mid - 1;
+			}
+			return (visibleTiers.length > 0 ? visibleTiers[lo] : -1);
+		}
+		
+	}
+	
+	@Override
+	public Dimension getPreferredSize(JComponent c) {
+		int prefWidth = getTimeComponent().getTimeModel().getPreferredWidth();
+		int prefHeight = getTierLayout().totalHeight;
+		
 		return new Dimension(prefWidth, prefHeight);
 	}
 
 	@Override
 	public void paint(Graphics g, JComponent c) {
-		intervalTree = RTree.create();
-		messageTree = RTree.create();
-		tierLabelTree = RTree.create();
-		
 		Graphics2D g2d = (Graphics2D)g;
 		g2d.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
 		g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		lastFrc = g2d.getFontRenderContext();
 
 		if(tgView.isOpaque()) {
 			g2d.setColor(tgView.getBackground());
 			g2d.fillRect(0, 0, tgView.getWidth(), tgView.getHeight());
 		}
 
-		TextGrid tg = tgView.getTextGrid();
-		if(tg != null) {
-			int visibleTierIdx = 0;
-			for(long tIdx = 1; tIdx <= tg.numberOfTiers(); tIdx++) {
-				final Function tier = tg.tier(tIdx);
+		final TextGridIndex tgIndex = tgView.getTextGridIndex();
+		if(tgIndex != null) {
+			final Rectangle visibleRect = tgView.getVisibleRect();
+			final TierLayout layout = getTierLayout();
+			for(int tierPos = 0; tierPos < tgIndex.getTierCount(); tierPos++) {
+				final TextGridIndex.TierIndex tier = tgIndex.getTiers().get(tierPos);
 				if(!tgView.isTierVisible(tier.getName())) continue;
 				
-				int tierLabelY = getTierY(tier.getName());
-				int tierHeight = getTierHeight(tier.getName());
+				int tierLabelY = layout.tierY[tierPos];
+				int tierHeight = layout.tierHeight[tierPos];
 				int tierY = tierLabelY;
 				// tier rect
 				final Rectangle2D tierRect = new Rectangle2D.Double(
 						0, tierY, tgView.getWidth(), tierHeight);
-				visibleTierIdx++;
+				if(!tierRect.intersects(visibleRect)) continue;
 				
-				try {
-					final IntervalTier intervalTier = tg.checkSpecifiedTierIsIntervalTier(tIdx);
-					paintIntervalTier(tIdx, intervalTier, g2d, tierRect);
-					if(tgView.isShowLabels()) {
-						var lblRect = paintTierLabel(intervalTier, g2d, tierLabelY);
-						tierLabelTree = 
-								tierLabelTree.add(tIdx, Geometries.rectangle(lblRect.getX(), lblRect.getY(), lblRect.getMaxX(), lblRect.getMaxY()));
-					}
-				} catch (PraatException pe) {
-					try {
-						final TextTier pointTier = tg.checkSpecifiedTierIsPointTier(tIdx);
-						paintPointTier(pointTier, g2d, tierRect);
-						if(tgView.isShowLabels()) {
-							var lblRect = paintTierLabel(pointTier, g2d, tierLabelY);
-							tierLabelTree = 
-									tierLabelTree.add(tIdx, Geometries.rectangle(lblRect.getX(), lblRect.getY(), lblRect.getMaxX(), lblRect.getMaxY()));
-						}
-					} catch (PraatException pe1) {
-						LogUtil.severe(pe1.getLocalizedMessage(), pe1);
-					}
+				paintTierTiles(tierPos, tier, g2d, tierRect, visibleRect);
+				if(tgView.isShowLabels()) {
+					var lblRect = paintTierLabel(tier.getName(), g2d, tierLabelY);
+					layout.tierLabelWidth[tierPos] = lblRect.getWidth();
+					layout.tierLabelHeight[tierPos] = lblRect.getHeight();
 				}
 			}
 		}
@@ -188,8 +265,8 @@ public class TextGridViewUI extends TimeComponentUI {
 		}
 	}
 
-	public Rectangle2D paintTierLabel(Function tier, Graphics2D g2d, int y) {
-		final String name = (tier.getName() != null ? tier.getName().toString() : "");
+	public Rectangle2D paintTierLabel(String tierName, Graphics2D g2d, int y) {
+		final String name = (tierName != null ? tierName : "");
 		int x = tgView.getVisibleRect().x;
 
 		Font lblFont = tgView.getFont().deriveFont(FontPreferences.getDefaultFontSize());
@@ -213,25 +290,108 @@ public class TextGridViewUI extends TimeComponentUI {
 		return labelRect;
 	}
 	
-	public void paintIntervalTier(long tierIndex, IntervalTier intervalTier, Graphics2D g2d, Rectangle2D bounds) {
+	/**
+	 * Time at given x position using the time model of the view.
+	 */
+	private double timeForX(double x) {
+		final double x0 = tgView.xForTime(0.0f);
+		final double pxPerSec = tgView.xForTime(1.0f) - x0;
+		return (x - x0) / pxPerSec;
+	}
+	
+	/**
+	 * Paint text centered in the given rectangle.  Text which does not fit is
+	 * left aligned and clipped.
+	 *
+	 * @return width of text
+	 */
+	private double paintLabel(String text, Font font, Graphics2D g2d, Rectangle2D rect) {
+		if(text == null || text.length() == 0) return 0.0;
+		
+		final TextLayout layout = textLayoutCache.getLayout(text, font, g2d.getFontRenderContext());
+		final double textWidth = layout.getAdvance();
+		final double textHeight = layout.getAscent() + layout.getDescent();
+		
+		final float x = (float)(textWidth <= rect.getWidth() 
+				? rect.getX() + (rect.getWidth() - textWidth) / 2.0 : rect.getX());
+		final float y = (float)(rect.getY() + (rect.getHeight() - textHeight) / 2.0 + layout.getAscent());
+		
+		final Shape oldClip = g2d.getClip();
+		if(textWidth > rect.getWidth())
+			g2d.clip(rect);
+		g2d.setColor(Color.black);
+		layout.draw(g2d, x, y);
+		g2d.setClip(oldClip);
+		
+		return textWidth;
+	}
+	
+	/**
+	 * Paint visible tiles of tier, rendering tiles which are not cached.
+	 */
+	private void paintTierTiles(int tierPos, TextGridIndex.TierIndex tier, Graphics2D g2d, Rectangle2D tierRect, Rectangle visibleRect) {
+		final int tileWidth = TextGridTileCache.TILE_WIDTH;
+		final int tierHeight = (int)tierRect.getHeight();
+		final double scale = g2d.getTransform().getScaleX();
+		final double originX = tgView.xForTime(0.0f);
+		final double pxPerSec = tgView.xForTime(1.0f) - originX;
+		final Font tierFont = getTierFont(tier.getName());
+		
+		final int firstTile = Math.max(0, (int)Math.floor(visibleRect.getMinX() / tileWidth));
+		final int lastTile = (int)Math.floor((visibleRect.getMaxX() - 1) / tileWidth);
+		for(int tileIdx = firstTile; tileIdx <= lastTile; tileIdx++) {
+			final TextGridTileCache.TileKey key = new TextGridTileCache.TileKey(tierPos, tileIdx, originX, pxPerSec,
+					tierFont, tgView.getWidth(), tierHeight, scale);
+			BufferedImage tile = tileCache.get(key);
+			if(tile == null) {
+				tile = renderTile(tier, tileIdx, tierHeight, scale);
+				tileCache.put(key, tile);
+			}
+			g2d.drawImage(tile, tileIdx * tileWidth, (int)tierRect.getY(), tileWidth, tierHeight, null);
+		}
+	}
+	
+	private BufferedImage renderTile(TextGridIndex.TierIndex tier, int tileIdx, int tierHeight, double scale) {
+		final int tileWidth = TextGridTileCache.TILE_WIDTH;
+		final int tileX = tileIdx * tileWidth;
+		
+		final BufferedImage retVal = new BufferedImage(
+				Math.max(1, (int)Math.ceil(tileWidth * scale)), Math.max(1, (int)Math.ceil(tierHeight * scale)), 
+				BufferedImage.TYPE_INT_ARGB);
+		final Graphics2D g2d = retVal.createGraphics();
+		g2d.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+		g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		g2d.scale(scale, scale);
+		g2d.translate(-tileX, 0);
+		g2d.clip(new Rectangle(tileX, 0, tileWidth, tierHeight));
+		
+		final Rectangle2D bounds = new Rectangle2D.Double(0, 0, tgView.getWidth(), tierHeight);
+		if(tier.isIntervalTier()) {
+			paintIntervalTier(tier, g2d, bounds, tileX, tileX + tileWidth);
+		} else {
+			paintPointTier(tier, g2d, bounds, tileX, tileX + tileWidth);
+		}
+		g2d.dispose();
+		
+		return retVal;
+	}
+	
+	public void paintIntervalTier(TextGridIndex.TierIndex intervalTier, Graphics2D g2d, Rectangle2D bounds) {
+		final Rectangle visibleRect = tgView.getVisibleRect();
+		paintIntervalTier(intervalTier, g2d, bounds, visibleRect.getMinX(), visibleRect.getMaxX());
+	}
+	
+	private void paintIntervalTier(TextGridIndex.TierIndex intervalTier, Graphics2D g2d, Rectangle2D bounds, double minX, double maxX) {
 		Font tierFont = getTierFont(intervalTier.getName());
 		g2d.setFont(tierFont);
 
-		for(long i = 1; i <= intervalTier.numberOfIntervals(); i++) {
-			final TextInterval interval = intervalTier.interval(i);
-			
-			double startX = tgView.xForTime((float)interval.getXmin());
-			double endX = tgView.xForTime((float)interval.getXmax());
-			
-			Rectangle2D intervalRect = new Rectangle2D.Double(
-					startX, bounds.getY(), endX - startX, bounds.getHeight());
-			if(!intervalRect.intersects(tgView.getVisibleRect())) {
-				if(startX < tgView.getVisibleRect().getMaxX()) {
-					continue;
-				} else {
-					break;
-				}
-			}
+		// only paint intervals overlapping [minX, maxX]
+		final int fromIdx = intervalTier.fromIndex(timeForX(minX));
+		final int toIdx = intervalTier.toIndex(timeForX(maxX));
+		
+		for(int i = fromIdx; i < toIdx; i++) {
+			double startX = tgView.xForTime((float)intervalTier.getStart(i));
+			double endX = tgView.xForTime((float)intervalTier.getEnd(i));
 			
 			g2d.setColor(Color.DARK_GRAY);
 			final Line2D startLine = new Line2D.Double(startX, bounds.getY(), startX, 
@@ -242,31 +402,22 @@ public class TextGridViewUI extends TimeComponentUI {
 					endX, bounds.getY() + bounds.getHeight());
 			g2d.draw(endLine);
 
-			final String labelText = interval.getText();
-			JLabel lbl = getLabel();
-			lbl.setText(labelText);
-			lbl.setFont(tierFont);
-			
-			lbl.setHorizontalAlignment(SwingConstants.CENTER);
-			lbl.setHorizontalTextPosition(SwingConstants.CENTER);
-			lbl.setVerticalTextPosition(SwingConstants.CENTER);
+			final String labelText = intervalTier.getLabel(i);
 			
 			if(startX + labelInsets.left < (endX - labelInsets.right)) {
 				final Rectangle2D labelRect = new Rectangle2D.Double(
 						startX + labelInsets.left, bounds.getY(), (endX - labelInsets.right) - startX, bounds.getHeight());
-				SwingUtilities.paintComponent(g2d, lbl, tgView, labelRect.getBounds());
-				
-				if(labelRect.getWidth() < lbl.getPreferredSize().width) {
-					messageTree = messageTree.add(labelText, Geometries.rectangle(labelRect.getX(), labelRect.getY(), labelRect.getMaxX(), labelRect.getMaxY()));
-				}
-				
-				Tuple<Long, Long> intervalIndex = new Tuple<>(tierIndex, i);
-				intervalTree = intervalTree.add(intervalIndex, Geometries.rectangle(intervalRect.getX(), intervalRect.getY(), intervalRect.getMaxX(), intervalRect.getMaxY()));
+				paintLabel(labelText, tierFont, g2d, labelRect);
 			} // otherwise too small an area
 		}		
 	}
 	
-	public void paintPointTier(TextTier textTier, Graphics2D g2d, Rectangle2D bounds) {
+	public void paintPointTier(TextGridIndex.TierIndex textTier, Graphics2D g2d, Rectangle2D bounds) {
+		final Rectangle visibleRect = tgView.getVisibleRect();
+		paintPointTier(textTier, g2d, bounds, visibleRect.getMinX(), visibleRect.getMaxX());
+	}
+	
+	private void paintPointTier(TextGridIndex.TierIndex textTier, Graphics2D g2d, Rectangle2D bounds, double minX, double maxX) {
 		Font tierFont = getTierFont(textTier.getName());
 		g2d.setFont(tierFont);
 
@@ -275,65 +426,98 @@ public class TextGridViewUI extends TimeComponentUI {
 		double pxPerSec = contentWidth / tgLen;
 		double xoffset = textTier.getXmin();
 		
-		for(long i = 1; i <= textTier.numberOfPoints(); i++) {
-			final TextPoint tp = textTier.point(i);
+		// only paint points (and labels) near [minX, maxX]
+		final int fromIdx = textTier.fromIndex(
+				(minX - POINT_LABEL_MARGIN) / pxPerSec + xoffset);
+		final int toIdx = textTier.toIndex(
+				(maxX + POINT_LABEL_MARGIN) / pxPerSec + xoffset);
+		
+		for(int i = fromIdx; i < toIdx; i++) {
+			final String text = textTier.getLabel(i);
 			
-			double lineX = (tp.getNumber() - xoffset) * pxPerSec;
+			double lineX = (textTier.getTime(i) - xoffset) * pxPerSec;
 			
 			g2d.setColor(Color.DARK_GRAY);
 			final Line2D pointLine = new Line2D.Double(lineX, bounds.getY(), lineX,
 					bounds.getY() + bounds.getHeight());
 			g2d.draw(pointLine);
 			
-			final Rectangle2D textBounds = 
-					g2d.getFontMetrics().getStringBounds(tp.getText(), g2d);
+			if(text == null || text.length() == 0) continue;
+			final TextLayout layout = textLayoutCache.getLayout(text, tierFont, g2d.getFontRenderContext());
+			final double textWidth = layout.getAdvance();
+			final double textHeight = layout.getAscent() + layout.getDescent();
 			
-			float x = (float)(lineX - textBounds.getCenterX());
-			float y = (float)((bounds.getY() + (bounds.getHeight() / 2.0)) - (textBounds.getHeight()/2.0));
+			float x = (float)(lineX - textWidth / 2.0);
+			float y = (float)((bounds.getY() + (bounds.getHeight() / 2.0)) - (textHeight/2.0));
 
 			g2d.setColor(Color.white);
-			textBounds.setRect(x, y, textBounds.getWidth(), textBounds.getHeight());
-			g2d.fill(textBounds);
+			g2d.fill(new Rectangle2D.Double(x, y, textWidth, textHeight));
 			
 			g2d.setColor(Color.black);
-			g2d.drawString(tp.getText(), x, (float)(textBounds.getY() + textBounds.getHeight() - g2d.getFontMetrics().getDescent()));
+			layout.draw(g2d, x, (float)(y + layout.getAscent()));
 		}
 	}
 	
-	private <T> Optional<T> hitTest(RTree<T, com.github.davidmoten.rtree.geometry.Rectangle> tree, com.github.davidmoten.rtree.geometry.Point p) {
-		var entries = tree.search(p);
-		List<Tuple<com.github.davidmoten.rtree.geometry.Rectangle, T>> tupleList = new ArrayList<>();
-		entries
-			.map( entry -> new Tuple<com.github.davidmoten.rtree.geometry.Rectangle, T>(entry.geometry(), entry.value()))
-			.subscribe(tupleList::add);
-		
-		if(tupleList.size() > 0) {
-			double dist = Double.MAX_VALUE;
-			Tuple<com.github.davidmoten.rtree.geometry.Rectangle, T> currentTuple = null;
-			for(var tuple:tupleList) {
-				double d = p.distance(tuple.getObj1());
-				
-				if(d < dist) {
-					dist = d;
-					currentTuple = tuple;
-				}
-			}
-			return Optional.of(currentTuple.getObj2());
-		} else {
-			return Optional.empty();
+	/**
+	 * Find tier label at given point.
+	 * 
+	 * @return tier position or -1
+	 */
+	private int tierLabelHitTest(int x, int y) {
+		if(!tgView.isShowLabels() || tgView.getTextGridIndex() == null) return -1;
+		final TierLayout layout = getTierLayout();
+		final int tierPos = layout.tierAtY(y);
+		if(tierPos < 0) return -1;
+		
+		final int labelX = tgView.getVisibleRect().x;
+		if(x >= labelX && x <= labelX + layout.tierLabelWidth[tierPos]
+				&& y <= layout.tierY[tierPos] + layout.tierLabelHeight[tierPos]) {
+			return tierPos;
 		}
+		return -1;
 	}
 	
-	private Optional<Tuple<Long, Long>> intervalHitTest(com.github.davidmoten.rtree.geometry.Point p) {
-		return hitTest(intervalTree, p);
-	}
-	
-	private Optional<String> messageHitTest(com.github.davidmoten.rtree.geometry.Point p) {
-		return hitTest(messageTree, p);
+	/**
+	 * Find interval at given point.  Intervals too narrow to display a
+	 * label are ignored.
+	 * 
+	 * @return interval index in tier or -1
+	 */
+	private int intervalHitTest(int tierPos, int x) {
+		final TextGridIndex.TierIndex tier = tgView.getTextGridIndex().getTier(tierPos+1);
+		if(!tier.isIntervalTier()) return -1;
+		
+		final int idx = tier.indexOf(timeForX(x));
+		if(idx < 0) return -1;
+		
+		double startX = tgView.xForTime((float)tier.getStart(idx));
+		double endX = tgView.xForTime((float)tier.getEnd(idx));
+		return (startX + labelInsets.left < (endX - labelInsets.right) ? idx : -1);
 	}
 	
-	private Optional<Long> tierLabelHitTest(com.github.davidmoten.rtree.geometry.Point p) {
-		return hitTest(tierLabelTree, p);
+	/**
+	 * Tooltip for truncated interval label at given point
+	 * 
+	 * @return label text or <code>null</code>
+	 */
+	private String messageHitTest(int x, int y) {
+		if(lastFrc == null || tgView.getTextGridIndex() == null) return null;
+		final int tierPos = getTierLayout().tierAtY(y);
+		if(tierPos < 0) return null;
+		final int idx = intervalHitTest(tierPos, x);
+		if(idx < 0) return null;
+		
+		final TextGridIndex.TierIndex tier = tgView.getTextGridIndex().getTier(tierPos+1);
+		final String labelText = tier.getLabel(idx);
+		if(labelText == null || labelText.length() == 0) return null;
+		
+		double startX = tgView.xForTime((float)tier.getStart(idx));
+		double endX = tgView.xForTime((float)tier.getEnd(idx));
+		final double labelWidth = (endX - labelInsets.right) - startX;
+		if(x < startX + labelInsets.left || x > startX + labelInsets.left + labelWidth) return null;
+		
+		final double textWidth = textLayoutCache.getLayout(labelText, getTierFont(tier.getName()), lastFrc).getAdvance();
+		return (labelWidth < textWidth ? labelText : null);
 	}
 	
 	private final MouseInputAdapter mouseListener = new MouseInputAdapter() {
@@ -348,13 +532,14 @@ public class TextGridViewUI extends TimeComponentUI {
 			if(!tgView.isEnabled()) return;
 			
 			if(tgView.getUI().getCurrentlyDraggedMarker() == null) {
-				Optional<Long> tierIndex = tierLabelHitTest(Geometries.point(e.getX(), e.getY()));
-				if(tierIndex.isPresent()) {
-					tgView.fireTierLabelClicked(tierIndex.get(), e);
-				} else {
-					Optional<Tuple<Long, Long>> optionalInterval = intervalHitTest(Geometries.point(e.getX(), e.getY()));
-					if(e.getButton() == MouseEvent.BUTTON1 && optionalInterval.isPresent()) {
-						tgView.fireIntervalSelected(optionalInterval.get());
+				int tierPos = tierLabelHitTest(e.getX(), e.getY());
+				if(tierPos >= 0) {
+					tgView.fireTierLabelClicked((long)(tierPos+1), e);
+				} else if(e.getButton() == MouseEvent.BUTTON1 && tgView.getTextGridIndex() != null) {
+					tierPos = getTierLayout().tierAtY(e.getY());
+					final int intervalIdx = (tierPos >= 0 ? intervalHitTest(tierPos, e.getX()) : -1);
+					if(intervalIdx >= 0) {
+						tgView.fireIntervalSelected(new Tuple<>((long)(tierPos+1), (long)(intervalIdx+1)));
 					}
 				}
 			}
@@ -369,19 +554,13 @@ public class TextGridViewUI extends TimeComponentUI {
 			if(!tgView.isEnabled()) return;
 			
 			if(tgView.getUI().getCurrentlyDraggedMarker() == null) {
-				Optional<Long> tierIndex = tierLabelHitTest(Geometries.point(e.getX(), e.getY()));
-				if(tierIndex.isPresent()) {
+				if(tierLabelHitTest(e.getX(), e.getY()) >= 0) {
 					tgView.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
 				} else if(tgView.getCursor() == Cursor.getPredefinedCursor(Cursor.HAND_CURSOR)) {
 					tgView.setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
 				}
 			
-				Optional<String> toolTip = messageHitTest(Geometries.point(e.getX(), e.getY()));
-				if(toolTip.isPresent()) {
-					tgView.setToolTipText(toolTip.get());
-				} else {
-					tgView.setToolTipText(null);
-				}
+				tgView.setToolTipText(messageHitTest(e.getX(), e.getY()));
 			}
 		}
 		
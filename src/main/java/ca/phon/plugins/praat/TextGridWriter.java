@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Pure Java writer for Praat TextGrid files in text (long) format using
+ * UTF-8 encoding.  Files written by this class may be read by Praat
+ * and {@link TextGridReader}.
+ */
+public class TextGridWriter {
+
+	/**
+	 * Write TextGrid data to file
+	 *
+	 * @param textGrid
+	 * @param file
+	 * @throws IOException
+	 */
+	public void write(TextGridIndex textGrid, File file) throws IOException {
+		write(textGrid, file.toPath());
+	}
+
+	/**
+	 * Write TextGrid data to file
+	 *
+	 * @param textGrid
+	 * @param path
+	 * @throws IOException
+	 */
+	public void write(TextGridIndex textGrid, Path path) throws IOException {
+		try(Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			write(textGrid, out);
+		}
+	}
+
+	/**
+	 * Write TextGrid data
+	 *
+	 * @param textGrid
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(TextGridIndex textGrid, Writer out) throws IOException {
+		out.write("File type = \"ooTextFile\"\n");
+		out.write("Object class = \"TextGrid\"\n\n");
+		out.write("xmin = " + formatNumber(textGrid.getXmin()) + " \n");
+		out.write("xmax = " + formatNumber(textGrid.getXmax()) + " \n");
+		if(textGrid.getTierCount() == 0) {
+			out.write("tiers? <absent> \n");
+			return;
+		}
+		out.write("tiers? <exists> \n");
+		out.write("size = " + textGrid.getTierCount() + " \n");
+		out.write("item []: \n");
+
+		for(int t = 0; t < textGrid.getTierCount(); t++) {
+			final TextGridIndex.TierIndex tier = textGrid.getTiers().get(t);
+			out.write("    item [" + (t + 1) + "]:\n");
+			out.write("        class = \"" + (tier.isIntervalTier() ? "IntervalTier" : "TextTier") + "\" \n");
+			out.write("        name = " + quote(tier.getName()) + " \n");
+			out.write("        xmin = " + formatNumber(tier.getXmin()) + " \n");
+			out.write("        xmax = " + formatNumber(tier.getXmax()) + " \n");
+			if(tier.isIntervalTier()) {
+				out.write("        intervals: size = " + tier.size() + " \n");
+				for(int i = 0; i < tier.size(); i++) {
+					out.write("        intervals [" + (i + 1) + "]:\n");
+					out.write("            xmin = " + formatNumber(tier.getStart(i)) + " \n");
+					out.write("            xmax = " + formatNumber(tier.getEnd(i)) + " \n");
+					out.write("            text = " + quote(tier.getLabel(i)) + " \n");
+				}
+			} else {
+				out.write("        points: size = " + tier.size() + " \n");
+				for(int i = 0; i < tier.size(); i++) {
+					out.write("        points [" + (i + 1) + "]:\n");
+					out.write("            number = " + formatNumber(tier.getTime(i)) + " \n");
+					out.write("            mark = " + quote(tier.getLabel(i)) + " \n");
+				}
+			}
+		}
+	}
+
+	static String quote(String text) {
+		return "\"" + (text != null ? text.replace("\"", "\"\"") : "") + "\"";
+	}
+
+	/**
+	 * Format number without exponent
+	 */
+	static String formatNumber(double val) {
+		if(val == Math.rint(val) && Math.abs(val) < 1e15) {
+			return Long.toString((long)val);
+		}
+		return BigDecimal.valueOf(val).stripTrailingZeros().toPlainString();
+	}
+
+}
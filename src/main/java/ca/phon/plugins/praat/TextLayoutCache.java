@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat;
+
+import java.awt.*;
+import java.awt.font.*;
+import java.util.*;
+
+/**
+ * LRU cache of measured text layouts keyed by label and font.  Used when painting
+ * TextGrid labels so that text is shaped and measured once rather than
+ * on every repaint.  The cache is cleared if the font render context changes.
+ */
+final class TextLayoutCache {
+
+	private final static int DEFAULT_CAPACITY = 4096;
+
+	private record Key(String text, Font font) {}
+
+	private final Map<Key, TextLayout> cache;
+
+	private FontRenderContext frc;
+
+	public TextLayoutCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public TextLayoutCache(int capacity) {
+		super();
+		this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, TextLayout> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Get layout for given text.
+	 *
+	 * @param text non-empty text
+	 * @param font
+	 * @param frc
+	 *
+	 * @return text layout
+	 */
+	public TextLayout getLayout(String text, Font font, FontRenderContext frc) {
+		if(!frc.equals(this.frc)) {
+			cache.clear();
+			this.frc = frc;
+		}
+		return cache.computeIfAbsent(new Key(text, font), (k) -> new TextLayout(k.text(), k.font(), frc));
+	}
+
+	public void clear() {
+		cache.clear();
+	}
+
+}
@@ -0,0 +1,357 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat;
+
+import ca.hedlund.jpraat.binding.fon.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.logging.*;
+
+/**
+ * Reads segments of uncompressed wav files using a memory mapped
+ * data chunk.  Sample views returned by {@link #getShortSamples(double, double)}
+ * and {@link #getFloatSamples(double, double)} are backed by the mapped file
+ * and are not copied.  The reader does not call into Praat; Java side analyses
+ * and header information (e.g., duration) do not require native I/O.  Use a
+ * {@link LongSound} when a native Praat analysis is required.
+ *
+ * Only 16-bit integer and 32-bit float PCM data are supported, use
+ * {@link #openIfSupported(File)} to check and open a file with a single
+ * header read.  Views are independent and may be used from multiple threads.
+ */
+public class WavSegmentReader implements AutoCloseable {
+
+	private final static Logger LOGGER = Logger.getLogger(WavSegmentReader.class.getName());
+
+	private final static int WAVE_FORMAT_PCM = 0x0001;
+
+	private final static int WAVE_FORMAT_IEEE_FLOAT = 0x0003;
+
+	private final static int WAVE_FORMAT_EXTENSIBLE = 0xFFFE;
+
+	private final File file;
+
+	private final FileChannel channel;
+
+	private int formatTag;
+
+	private int numberOfChannels;
+
+	private int sampleRate;
+
+	private int bitsPerSample;
+
+	private int blockAlign;
+
+	private long dataOffset;
+
+	private long numberOfFrames;
+
+	/* mapped data chunk, null if data chunk is larger than a single mapping */
+	private MappedByteBuffer data;
+
+	private WavSegmentReader(File file, FileChannel channel) {
+		super();
+		this.file = file;
+		this.channel = channel;
+	}
+
+	/**
+	 * Open reader for given file.
+	 *
+	 * @param file
+	 * @return reader
+	 * @throws IOException if the file is not a supported wav file
+	 */
+	public static WavSegmentReader open(File file) throws IOException {
+		final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		final WavSegmentReader retVal = new WavSegmentReader(file, channel);
+		try {
+			retVal.readHeader();
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		return retVal;
+	}
+
+	/**
+	 * Open reader for given file if it is a wav file which can be read by
+	 * this class.
+	 *
+	 * @param file
+	 * @return reader or <code>null</code> if file is not a 16-bit integer or
+	 *  32-bit float wav file
+	 */
+	public static WavSegmentReader openIfSupported(File file) {
+		if(!file.isFile() || !file.getName().toLowerCase().endsWith(".wav")) return null;
+		try {
+			return open(file);
+		} catch (IOException e) {
+			LOGGER.log(Level.FINE, e.getLocalizedMessage(), e);
+			return null;
+		}
+	}
+
+	/**
+	 * Is the given file a wav file which can be read by this class.  Use
+	 * {@link #openIfSupported(File)} if the file will be read.
+	 *
+	 * @param file
+	 * @return <code>true</code> if file is a 16-bit integer or 32-bit float wav file
+	 */
+	public static boolean isSupported(File file) {
+		try(WavSegmentReader reader = openIfSupported(file)) {
+			return reader != null;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private void readHeader() throws IOException {
+		final ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(header, 0);
+		if(!"RIFF".equals(chunkId(header, 0)) || !"WAVE".equals(chunkId(header, 8))) {
+			throw new IOException(file.getName() + " is not a wav file");
+		}
+
+		boolean hasFormat = false;
+		final ByteBuffer chunkHeader = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+		long pos = 12;
+		while(pos + 8 <= channel.size()) {
+			chunkHeader.clear();
+			readFully(chunkHeader, pos);
+			final String chunkId = chunkId(chunkHeader, 0);
+			final long chunkSize = Integer.toUnsignedLong(chunkHeader.getInt(4));
+			pos += 8;
+
+			if("fmt ".equals(chunkId)) {
+				final ByteBuffer fmt = ByteBuffer.allocate((int)Math.min(chunkSize, 40)).order(ByteOrder.LITTLE_ENDIAN);
+				readFully(fmt, pos);
+				if(fmt.limit() < 16) throw new IOException("Invalid fmt chunk in " + file.getName());
+				formatTag = Short.toUnsignedInt(fmt.getShort(0));
+				numberOfChannels = Short.toUnsignedInt(fmt.getShort(2));
+				sampleRate = fmt.getInt(4);
+				blockAlign = Short.toUnsignedInt(fmt.getShort(12));
+				bitsPerSample = Short.toUnsignedInt(fmt.getShort(14));
+				if(formatTag == WAVE_FORMAT_EXTENSIBLE) {
+					if(fmt.limit() < 26) throw new IOException("Invalid fmt chunk in " + file.getName());
+					// first two bytes of sub-format GUID are the format tag
+					formatTag = Short.toUnsignedInt(fmt.getShort(24));
+				}
+				hasFormat = true;
+			} else if("data".equals(chunkId)) {
+				if(!hasFormat) throw new IOException("data chunk before fmt chunk in " + file.getName());
+				dataOffset = pos;
+				// some writers do not update the data chunk size when streaming
+				final long dataSize = Math.min(chunkSize, channel.size() - pos);
+				numberOfFrames = dataSize / blockAlign;
+				break;
+			}
+			pos += chunkSize + (chunkSize % 2);
+		}
+
+		if(!hasFormat || dataOffset == 0) {
+			throw new IOException("Missing fmt or data chunk in " + file.getName());
+		}
+		if(!(formatTag == WAVE_FORMAT_PCM && bitsPerSample == 16)
+				&& !(formatTag == WAVE_FORMAT_IEEE_FLOAT && bitsPerSample == 32)) {
+			throw new IOException("Unsupported wav format " + formatTag + " (" + bitsPerSample + "-bit) in " + file.getName());
+		}
+		if(numberOfChannels <= 0 || sampleRate <= 0 || blockAlign != numberOfChannels * (bitsPerSample / 8)) {
+			throw new IOException("Invalid fmt chunk in " + file.getName());
+		}
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while(buffer.hasRemaining()) {
+			final int read = channel.read(buffer, position + buffer.position());
+			if(read < 0) throw new EOFException(file.getName());
+		}
+		buffer.flip();
+	}
+
+	private static String chunkId(ByteBuffer buffer, int offset) {
+		final byte[] id = new byte[4];
+		for(int i = 0; i < 4; i++) id[i] = buffer.get(offset + i);
+		return new String(id, StandardCharsets.US_ASCII);
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public int getNumberOfChannels() {
+		return numberOfChannels;
+	}
+
+	public int getSampleRate() {
+		return sampleRate;
+	}
+
+	public int getBitsPerSample() {
+		return bitsPerSample;
+	}
+
+	public boolean isFloat() {
+		return formatTag == WAVE_FORMAT_IEEE_FLOAT;
+	}
+
+	public long getNumberOfFrames() {
+		return numberOfFrames;
+	}
+
+	/**
+	 * @return duration in seconds
+	 */
+	public double getDuration() {
+		return (double)numberOfFrames / sampleRate;
+	}
+
+	/**
+	 * First frame at or before given time
+	 *
+	 * @param time in seconds
+	 * @return frame index
+	 */
+	public long frameAt(double time) {
+		return Math.max(0L, Math.min(numberOfFrames, (long)Math.floor(time * sampleRate)));
+	}
+
+	/**
+	 * Frame after the last frame at or before given time
+	 *
+	 * @param time in seconds
+	 * @return frame index (exclusive)
+	 */
+	public long frameAfter(double time) {
+		return Math.max(0L, Math.min(numberOfFrames, (long)Math.ceil(time * sampleRate)));
+	}
+
+	/**
+	 * Raw little-endian sample data for the given time range.  Channels
+	 * are interleaved.
+	 *
+	 * @param start in seconds
+	 * @param end in seconds
+	 * @return read-only view of the mapped data
+	 * @throws IOException
+	 */
+	public ByteBuffer getSegmentBuffer(double start, double end) throws IOException {
+		final long startFrame = frameAt(start);
+		final long endFrame = Math.max(startFrame, frameAfter(end));
+		return segmentBuffer(startFrame, endFrame);
+	}
+
+	private ByteBuffer segmentBuffer(long startFrame, long endFrame) throws IOException {
+		final long offset = startFrame * blockAlign;
+		final long length = (endFrame - startFrame) * blockAlign;
+		if(length > Integer.MAX_VALUE) {
+			throw new IOException("Segment too large");
+		}
+
+		final ByteBuffer dataBuffer = mappedData();
+		final ByteBuffer retVal;
+		if(dataBuffer != null) {
+			retVal = dataBuffer.slice((int)offset, (int)length);
+		} else {
+			retVal = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + offset, length);
+		}
+		return retVal.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private synchronized ByteBuffer mappedData() throws IOException {
+		final long dataLength = numberOfFrames * blockAlign;
+		if(data == null && dataLength <= Integer.MAX_VALUE) {
+			data = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset, dataLength);
+		}
+		return data;
+	}
+
+	/**
+	 * Interleaved 16-bit samples for the given time range.
+	 *
+	 * @param start in seconds
+	 * @param end in seconds
+	 * @return view of the mapped data
+	 * @throws IOException
+	 * @throws IllegalStateException if the file does not contain 16-bit samples
+	 */
+	public ShortBuffer getShortSamples(double start, double end) throws IOException {
+		if(isFloat()) throw new IllegalStateException("Not a 16-bit wav file");
+		return getSegmentBuffer(start, end).asShortBuffer();
+	}
+
+	/**
+	 * Interleaved 32-bit float samples for the given time range.
+	 *
+	 * @param start in seconds
+	 * @param end in seconds
+	 * @return view of the mapped data
+	 * @throws IOException
+	 * @throws IllegalStateException if the file does not contain float samples
+	 */
+	public FloatBuffer getFloatSamples(double start, double end) throws IOException {
+		if(!isFloat()) throw new IllegalStateException("Not a 32-bit float wav file");
+		return getSegmentBuffer(start, end).asFloatBuffer();
+	}
+
+	/**
+	 * Copy samples for the given time range into per-channel arrays
+	 * scaled to the range [-1, 1].
+	 *
+	 * @param start in seconds
+	 * @param end in seconds
+	 * @return samples indexed by channel then frame
+	 * @throws IOException
+	 */
+	public float[][] readSamples(double start, double end) throws IOException {
+		if(isFloat()) {
+			final FloatBuffer samples = getFloatSamples(start, end);
+			final int numFrames = samples.remaining() / numberOfChannels;
+			final float[][] retVal = new float[numberOfChannels][numFrames];
+			for(int i = 0; i < numFrames; i++) {
+				for(int ch = 0; ch < numberOfChannels; ch++) {
+					retVal[ch][i] = samples.get();
+				}
+			}
+			return retVal;
+		} else {
+			final ShortBuffer samples = getShortSamples(start, end);
+			final int numFrames = samples.remaining() / numberOfChannels;
+			final float[][] retVal = new float[numberOfChannels][numFrames];
+			for(int i = 0; i < numFrames; i++) {
+				for(int ch = 0; ch < numberOfChannels; ch++) {
+					retVal[ch][i] = samples.get() / 32768.0f;
+				}
+			}
+			return retVal;
+		}
+	}
+
+	/**
+	 * Close the file.  Mapped views remain valid until garbage collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
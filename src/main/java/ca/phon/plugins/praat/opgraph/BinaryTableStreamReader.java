@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat.opgraph;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Reads files produced by {@link BinaryTableStreamWriter}.  Numeric
+ * columns are restored as doubles, all other values are restored
+ * as strings.
+ */
+public class BinaryTableStreamReader implements Closeable {
+
+	private final DataInputStream in;
+
+	private final List<String> columnTitles = new ArrayList<>();
+
+	private final List<ColumnarTableDataSource.ColumnType> columnTypes = new ArrayList<>();
+
+	public BinaryTableStreamReader(File file) throws IOException {
+		super();
+		this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		readHeader();
+	}
+
+	private void readHeader() throws IOException {
+		if(in.readInt() != BinaryTableStreamWriter.MAGIC)
+			throw new IOException("Not a binary table file");
+		final int version = in.readInt();
+		if(version != BinaryTableStreamWriter.VERSION)
+			throw new IOException("Unsupported binary table version " + version);
+
+		final int numCols = in.readInt();
+		final ColumnarTableDataSource.ColumnType[] types = ColumnarTableDataSource.ColumnType.values();
+		for(int col = 0; col < numCols; col++) {
+			columnTitles.add(readString(in));
+			columnTypes.add(types[in.readByte()]);
+		}
+	}
+
+	public List<String> getColumnTitles() {
+		return Collections.unmodifiableList(columnTitles);
+	}
+
+	/**
+	 * Create an empty table with the column layout of this file.
+	 *
+	 * @return table
+	 */
+	public ColumnarTableDataSource createTable() {
+		final ColumnarTableDataSource retVal = new ColumnarTableDataSource();
+		for(int col = 0; col < columnTitles.size(); col++) {
+			retVal.addColumn(columnTitles.get(col), columnTypes.get(col));
+		}
+		return retVal;
+	}
+
+	/**
+	 * Append all remaining rows in the file to the given table.  Columns
+	 * are matched by index.
+	 *
+	 * @param table
+	 *
+	 * @return number of rows read
+	 * @throws IOException
+	 */
+	public int readRows(ColumnarTableDataSource table) throws IOException {
+		if(table.getColumnCount() != columnTitles.size())
+			throw new IOException("Column count mismatch, expected " + columnTitles.size() + " found " + table.getColumnCount());
+
+		int retVal = 0;
+		while(true) {
+			final int rowCount;
+			try {
+				rowCount = in.readInt();
+			} catch (EOFException e) {
+				break;
+			}
+
+			final int firstRow = table.getRowCount();
+			for(int i = 0; i < rowCount; i++) table.addRow();
+
+			for(int col = 0; col < columnTypes.size(); col++) {
+				switch(columnTypes.get(col)) {
+					case DOUBLE -> {
+						for(int row = 0; row < rowCount; row++)
+							table.setDouble(firstRow + row, col, in.readDouble());
+					}
+
+					case DICTIONARY -> {
+						final String[] dictionary = new String[in.readInt()];
+						for(int i = 0; i < dictionary.length; i++) dictionary[i] = readString(in);
+						for(int row = 0; row < rowCount; row++) {
+							final int code = in.readInt();
+							table.setValueAt(firstRow + row, col, (code < 0 ? null : dictionary[code]));
+						}
+					}
+
+					default -> {
+						for(int row = 0; row < rowCount; row++) {
+							final boolean present = in.readBoolean();
+							table.setValueAt(firstRow + row, col, (present ? readString(in) : null));
+						}
+					}
+				}
+			}
+			retVal += rowCount;
+		}
+		return retVal;
+	}
+
+	static String readString(DataInput in) throws IOException {
+		final byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat.opgraph;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes table rows in a compact binary columnar format.
+ *
+ * <pre>
+ * header:  int magic, int version, int columnCount,
+ *          (string title, byte columnType) * columnCount
+ * blocks:  int rowCount, then for each column:
+ *            DOUBLE      - double * rowCount
+ *            DICTIONARY  - int entries, string * entries, int code * rowCount (-1 = empty)
+ *            OBJECT      - (boolean present, [string value]) * rowCount
+ * </pre>
+ *
+ * Strings are written as an int byte length followed by UTF-8 bytes.
+ * Non-numeric values are stored using their string representation.  Each
+ * block carries the dictionary of the rows it contains as dictionaries
+ * are reset when the source table is cleared between blocks.
+ */
+public class BinaryTableStreamWriter extends TableStreamWriter {
+
+	public final static int MAGIC = 0x50435442;
+
+	public final static int VERSION = 2;
+
+	private final DataOutputStream out;
+
+	private boolean printedHeader = false;
+
+	public BinaryTableStreamWriter(File file) throws IOException {
+		super(file);
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+	}
+
+	@Override
+	public void writeRows(ColumnarTableDataSource table) throws IOException {
+		final int numCols = table.getColumnCount();
+		if(!printedHeader) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(numCols);
+			for(int col = 0; col < numCols; col++) {
+				writeString(out, table.getColumnTitle(col));
+				out.writeByte(table.getColumnType(col).ordinal());
+			}
+			printedHeader = true;
+		}
+
+		final int rowCount = table.getRowCount();
+		if(rowCount == 0) return;
+
+		out.writeInt(rowCount);
+		for(int col = 0; col < numCols; col++) {
+			switch(table.getColumnType(col)) {
+				case DOUBLE -> {
+					final double[] values = table.doubleValues(col);
+					for(int row = 0; row < rowCount; row++) out.writeDouble(values[row]);
+				}
+
+				case DICTIONARY -> {
+					final List<Object> dictionary = table.dictionary(col);
+					out.writeInt(dictionary.size());
+					for(Object entry:dictionary) {
+						writeString(out, entry.toString());
+					}
+
+					final int[] codes = table.dictionaryCodes(col);
+					for(int row = 0; row < rowCount; row++) out.writeInt(codes[row]);
+				}
+
+				default -> {
+					for(int row = 0; row < rowCount; row++) {
+						final Object val = table.getValueAt(row, col);
+						out.writeBoolean(val != null);
+						if(val != null) writeString(out, val.toString());
+					}
+				}
+			}
+		}
+	}
+
+	static void writeString(DataOutput out, String val) throws IOException {
+		final byte[] bytes = val.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat.opgraph;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes table rows as UTF-8 CSV.  All values are quoted, empty
+ * numeric cells (<code>NaN</code>) are written as empty values.
+ */
+public class CSVTableStreamWriter extends TableStreamWriter {
+
+	private final Writer writer;
+
+	private boolean printedHeader = false;
+
+	public CSVTableStreamWriter(File file) throws IOException {
+		super(file);
+		this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public void writeRows(ColumnarTableDataSource table) throws IOException {
+		if(!printedHeader) {
+			for(int col = 0; col < table.getColumnCount(); col++) {
+				if(col > 0) writer.write(',');
+				writeValue(table.getColumnTitle(col));
+			}
+			writer.write('\n');
+			printedHeader = true;
+		}
+
+		for(int row = 0; row < table.getRowCount(); row++) {
+			for(int col = 0; col < table.getColumnCount(); col++) {
+				if(col > 0) writer.write(',');
+				if(table.getColumnType(col) == ColumnarTableDataSource.ColumnType.DOUBLE) {
+					final double val = table.getDouble(row, col);
+					writeValue(Double.isNaN(val) ? "" : Double.toString(val));
+				} else {
+					final Object val = table.getValueAt(row, col);
+					writeValue(val != null ? val.toString() : "");
+				}
+			}
+			writer.write('\n');
+		}
+	}
+
+	private void writeValue(String val) throws IOException {
+		writer.write('"');
+		writer.write(val.replace("\"", "\"\""));
+		writer.write('"');
+	}
+
+	@Override
+	public void flush() throws IOException {
+		writer.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+
+}
@@ -0,0 +1,395 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat.opgraph;
+
+import ca.phon.query.report.datasource.TableDataSource;
+
+import java.util.*;
+
+/**
+ * Column oriented table used for acoustic report output.  Numeric
+ * measures are stored in primitive <code>double[]</code> columns and
+ * highly repetitive values (e.g., session, speaker) are dictionary
+ * encoded.  Values are only boxed when read using {@link #getValueAt(int, int)}.
+ *
+ * Rows are appended using {@link #addRow()} and then filled in using
+ * {@link #setValueAt(int, int, Object)} and {@link #setDouble(int, int, double)}.
+ */
+public class ColumnarTableDataSource implements TableDataSource {
+
+	private final static int DEFAULT_CAPACITY = 64;
+
+	/**
+	 * Storage type for a column
+	 */
+	public static enum ColumnType {
+		/** Values are stored as-is */
+		OBJECT,
+		/** Values are stored as an index into a table of distinct values */
+		DICTIONARY,
+		/** Values are stored as primitive doubles, empty cells are <code>NaN</code> */
+		DOUBLE
+	}
+
+	private final List<String> columnTitles = new ArrayList<>();
+
+	private final List<Column> columns = new ArrayList<>();
+
+	private int rowCount = 0;
+
+	private int capacity = DEFAULT_CAPACITY;
+
+	public ColumnarTableDataSource() {
+		super();
+	}
+
+	/**
+	 * Add a new column to the table.  Columns should be added before any rows.
+	 *
+	 * @param title
+	 * @param type
+	 *
+	 * @return index of new column
+	 */
+	public int addColumn(String title, ColumnType type) {
+		final Column col = switch(type) {
+			case DICTIONARY -> new DictionaryColumn(capacity);
+			case DOUBLE -> new DoubleColumn(capacity);
+			default -> new ObjectColumn(capacity);
+		};
+		columns.add(col);
+		columnTitles.add(title);
+		return columns.size() - 1;
+	}
+
+	public ColumnType getColumnType(int col) {
+		return columns.get(col).getType();
+	}
+
+	/**
+	 * Append an empty row to the table.
+	 *
+	 * @return index of new row
+	 */
+	public int addRow() {
+		if(rowCount == capacity) {
+			capacity = capacity + (capacity >> 1);
+			for(Column col:columns) col.ensureCapacity(capacity);
+		}
+		for(Column col:columns) col.clear(rowCount);
+		return rowCount++;
+	}
+
+	/**
+	 * Append the given row data to the table.
+	 *
+	 * @param rowData
+	 *
+	 * @return index of new row
+	 */
+	public int addRow(Object[] rowData) {
+		final int row = addRow();
+		for(int col = 0; col < rowData.length && col < columns.size(); col++) {
+			setValueAt(row, col, rowData[col]);
+		}
+		return row;
+	}
+
+	/**
+	 * Append all rows from another table with the same column layout.
+	 * Numeric values are copied without boxing.
+	 *
+	 * @param table
+	 */
+	public void appendRows(ColumnarTableDataSource table) {
+		if(table.getColumnCount() != getColumnCount())
+			throw new IllegalArgumentException("Column count mismatch");
+		for(int srcRow = 0; srcRow < table.getRowCount(); srcRow++) {
+			final int row = addRow();
+			for(int col = 0; col < getColumnCount(); col++) {
+				if(table.getColumnType(col) == ColumnType.DOUBLE) {
+					setDouble(row, col, table.getDouble(srcRow, col));
+				} else {
+					setValueAt(row, col, table.getValueAt(srcRow, col));
+				}
+			}
+		}
+	}
+
+	public void setValueAt(int row, int col, Object value) {
+		checkRow(row);
+		columns.get(col).set(row, value);
+	}
+
+	/**
+	 * Set value for the given cell without boxing if the column
+	 * is of type {@link ColumnType#DOUBLE}.
+	 *
+	 * @param row
+	 * @param col
+	 * @param value
+	 */
+	public void setDouble(int row, int col, double value) {
+		checkRow(row);
+		final Column column = columns.get(col);
+		if(column instanceof DoubleColumn doubleColumn) {
+			doubleColumn.values[row] = value;
+		} else {
+			column.set(row, value);
+		}
+	}
+
+	/**
+	 * Get value of a numeric cell without boxing.
+	 *
+	 * @param row
+	 * @param col
+	 *
+	 * @return value or <code>NaN</code> if the cell is empty or not numeric
+	 */
+	public double getDouble(int row, int col) {
+		checkRow(row);
+		final Column column = columns.get(col);
+		if(column instanceof DoubleColumn doubleColumn) {
+			return doubleColumn.values[row];
+		} else {
+			final Object val = column.get(row);
+			return (val instanceof Number num ? num.doubleValue() : Double.NaN);
+		}
+	}
+
+	/**
+	 * Remove all rows from the table.  Column definitions are retained,
+	 * dictionaries are reset so that memory use is bounded by the rows
+	 * currently held in the table.
+	 */
+	public void clear() {
+		for(Column col:columns) {
+			for(int row = 0; row < rowCount; row++) col.clear(row);
+			col.reset();
+		}
+		rowCount = 0;
+	}
+
+	public void setColumnTitle(int col, String title) {
+		columnTitles.set(col, title);
+	}
+
+	/*
+	 * Direct column access for table stream writers
+	 */
+	double[] doubleValues(int col) {
+		return ((DoubleColumn)columns.get(col)).values;
+	}
+
+	int[] dictionaryCodes(int col) {
+		return ((DictionaryColumn)columns.get(col)).codes;
+	}
+
+	List<Object> dictionary(int col) {
+		return Collections.unmodifiableList(((DictionaryColumn)columns.get(col)).dictionary);
+	}
+
+	private void checkRow(int row) {
+		if(row < 0 || row >= rowCount)
+			throw new IndexOutOfBoundsException("Row " + row + " out of bounds for length " + rowCount);
+	}
+
+	@Override
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	@Override
+	public int getColumnCount() {
+		return columns.size();
+	}
+
+	@Override
+	public Object getValueAt(int row, int col) {
+		checkRow(row);
+		return columns.get(col).get(row);
+	}
+
+	@Override
+	public String getColumnTitle(int col) {
+		return columnTitles.get(col);
+	}
+
+	@Override
+	public int getColumnIndex(String columnTitle) {
+		return columnTitles.indexOf(columnTitle);
+	}
+
+	private static abstract class Column {
+
+		abstract ColumnType getType();
+
+		abstract void ensureCapacity(int capacity);
+
+		abstract void set(int row, Object value);
+
+		abstract Object get(int row);
+
+		abstract void clear(int row);
+
+		/**
+		 * Release shared column data, called after all rows have been cleared
+		 */
+		void reset() {
+		}
+
+	}
+
+	private static class ObjectColumn extends Column {
+
+		private Object[] values;
+
+		ObjectColumn(int capacity) {
+			values = new Object[capacity];
+		}
+
+		@Override
+		ColumnType getType() {
+			return ColumnType.OBJECT;
+		}
+
+		@Override
+		void ensureCapacity(int capacity) {
+			if(values.length < capacity)
+				values = Arrays.copyOf(values, capacity);
+		}
+
+		@Override
+		void set(int row, Object value) {
+			values[row] = value;
+		}
+
+		@Override
+		Object get(int row) {
+			return values[row];
+		}
+
+		@Override
+		void clear(int row) {
+			values[row] = null;
+		}
+
+	}
+
+	private static class DoubleColumn extends Column {
+
+		private double[] values;
+
+		DoubleColumn(int capacity) {
+			values = new double[capacity];
+			Arrays.fill(values, Double.NaN);
+		}
+
+		@Override
+		ColumnType getType() {
+			return ColumnType.DOUBLE;
+		}
+
+		@Override
+		void ensureCapacity(int capacity) {
+			if(values.length < capacity) {
+				final int oldLength = values.length;
+				values = Arrays.copyOf(values, capacity);
+				Arrays.fill(values, oldLength, capacity, Double.NaN);
+			}
+		}
+
+		@Override
+		void set(int row, Object value) {
+			values[row] = (value instanceof Number num ? num.doubleValue() : Double.NaN);
+		}
+
+		@Override
+		Object get(int row) {
+			return values[row];
+		}
+
+		@Override
+		void clear(int row) {
+			values[row] = Double.NaN;
+		}
+
+	}
+
+	private static class DictionaryColumn extends Column {
+
+		/* codes into dictionary, -1 means no value */
+		private int[] codes;
+
+		private final List<Object> dictionary = new ArrayList<>();
+
+		private final Map<Object, Integer> lookup = new HashMap<>();
+
+		DictionaryColumn(int capacity) {
+			codes = new int[capacity];
+			Arrays.fill(codes, -1);
+		}
+
+		@Override
+		ColumnType getType() {
+			return ColumnType.DICTIONARY;
+		}
+
+		@Override
+		void ensureCapacity(int capacity) {
+			if(codes.length < capacity) {
+				final int oldLength = codes.length;
+				codes = Arrays.copyOf(codes, capacity);
+				Arrays.fill(codes, oldLength, capacity, -1);
+			}
+		}
+
+		@Override
+		void set(int row, Object value) {
+			if(value == null) {
+				codes[row] = -1;
+			} else {
+				Integer code = lookup.get(value);
+				if(code == null) {
+					code = dictionary.size();
+					dictionary.add(value);
+					lookup.put(value, code);
+				}
+				codes[row] = code;
+			}
+		}
+
+		@Override
+		Object get(int row) {
+			final int code = codes[row];
+			return (code < 0 ? null : dictionary.get(code));
+		}
+
+		@Override
+		void clear(int row) {
+			codes[row] = -1;
+		}
+
+		@Override
+		void reset() {
+			dictionary.clear();
+			lookup.clear();
+		}
+
+	}
+
+}
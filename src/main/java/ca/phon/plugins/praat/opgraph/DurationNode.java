@@ -18,8 +18,8 @@ package ca.phon.plugins.praat.opgraph;
 import ca.hedlund.jpraat.binding.fon.*;
 import ca.phon.opgraph.OpNodeInfo;
 import ca.phon.opgraph.app.GraphDocument;
+import ca.phon.plugins.praat.TextGridIndex;
 import ca.phon.query.db.*;
-import ca.phon.query.report.datasource.DefaultTableDataSource;
 import ca.phon.session.Record;
 import ca.phon.session.*;
 
@@ -39,35 +39,39 @@ public class DurationNode extends PraatNode {
 	private JPanel settingsPanel;
 
 	@Override
-	public void addRowToTable(LongSound longSound, TextGrid textGrid, TextInterval textInterval, 
+	public boolean requiresAudio() {
+		return false;
+	}
+
+	@Override
+	public void addRowToTable(LongSound longSound, TextGridIndex textGrid, TextInterval textInterval, 
 			Session session, SessionPath sessionPath,
 			MediaSegment segment, Result result,
-			ResultValue rv, Object value, DefaultTableDataSource table) {
+			ResultValue rv, Object value, ColumnarTableDataSource table) {
+		final PraatNodeConfig config = getConfig();
 		final Record r = (result.getRecordIndex() < session.getRecordCount() ? session.getRecord(result.getRecordIndex()) : null);
 		final Participant speaker = (r != null ? r.getSpeaker() : Participant.UNKNOWN);
 		
-		Object[] rowData = new Object[getColumnNames().size()];
+		final int row = table.addRow();
 		int col = 0;
-		rowData[col++] = sessionPath;
-		rowData[col++] = speaker;
-		rowData[col++] = (speaker != Participant.UNKNOWN ? speaker.getAge(session.getDate()) : "");
-		rowData[col++] = result.getRecordIndex()+1;
-		rowData[col++] = result;
+		table.setValueAt(row, col++, sessionPath);
+		table.setValueAt(row, col++, speaker);
+		table.setValueAt(row, col++, (speaker != Participant.UNKNOWN ? speaker.getAge(session.getDate()) : ""));
+		table.setValueAt(row, col++, result.getRecordIndex()+1);
+		table.setValueAt(row, col++, result);
 
-		if(isUseRecordInterval()) {
+		if(config.isUseRecordInterval()) {
 			// add nothing
-		} else if(isUseTextGridInterval()) {
-			rowData[col++] = textInterval.getText();
+		} else if(config.isUseTextGridInterval()) {
+			table.setValueAt(row, col++, textInterval.getText());
 		} else {
-			rowData[col++] = rv.getTierName();
-			rowData[col++] = value;
+			table.setValueAt(row, col++, rv.getTierName());
+			table.setValueAt(row, col++, value);
 		}
 
-		rowData[col++] = textInterval.getXmin();
-		rowData[col++] = textInterval.getXmax();
-		rowData[col++] = textInterval.getXmax() - textInterval.getXmin();
-
-		table.addRow(rowData);
+		table.setDouble(row, col++, textInterval.getXmin());
+		table.setDouble(row, col++, textInterval.getXmax());
+		table.setDouble(row, col++, textInterval.getXmax() - textInterval.getXmin());
 	}
 
 	@Override
@@ -75,7 +79,7 @@ public class DurationNode extends PraatNode {
 		if(settingsPanel == null) {
 			final GridBagConstraints gbc = new GridBagConstraints();
 			gbc.gridx = 0;
-			gbc.gridy = 7;
+			gbc.gridy = 11;
 			gbc.weightx = 1.0;
 			gbc.weighty = 1.0;
 			gbc.fill = GridBagConstraints.BOTH;
@@ -90,6 +94,7 @@ public class DurationNode extends PraatNode {
 
 	@Override
 	public List<String> getColumnNames() {
+		final PraatNodeConfig config = getConfig();
 		List<String> colNames = new ArrayList<>();
 
 		colNames.add("Session");
@@ -98,13 +103,13 @@ public class DurationNode extends PraatNode {
 		colNames.add("Record #");
 		colNames.add("Result");
 
-		if(isUseRecordInterval()) {
+		if(config.isUseRecordInterval()) {
 			// no extra tiers
-		} else if (isUseTextGridInterval()) {
+		} else if (config.isUseTextGridInterval()) {
 			colNames.add("Text");
 		} else {
 			colNames.add("Tier");
-			colNames.add(getColumn());
+			colNames.add(config.getColumn());
 		}
 
 		colNames.add("Start Time");
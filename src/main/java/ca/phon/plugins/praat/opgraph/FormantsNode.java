@@ -21,7 +21,6 @@ import ca.phon.opgraph.app.GraphDocument;
 import ca.phon.opgraph.app.extensions.NodeSettings;
 import ca.phon.plugins.praat.*;
 import ca.phon.query.db.*;
-import ca.phon.query.report.datasource.DefaultTableDataSource;
 import ca.phon.session.Record;
 import ca.phon.session.*;
 import org.jdesktop.swingx.JXTitledSeparator;
@@ -72,10 +71,11 @@ public class FormantsNode extends PraatNode implements NodeSettings {
 	}
 	
 	@Override
-	public void addRowToTable(LongSound longSound, TextGrid textGrid, TextInterval textInterval,
+	public void addRowToTable(LongSound longSound, TextGridIndex textGrid, TextInterval textInterval,
 			Session session, SessionPath sessionPath, MediaSegment segment, Result result, ResultValue rv, Object value,
-			DefaultTableDataSource table) {
-		final FormantSettings formantSettings = getFormantSettings();
+			ColumnarTableDataSource table) {
+		final PraatNodeConfig config = getConfig();
+		final FormantSettings formantSettings = config.get(FormantSettings.class);
 		
 		final double xmin = segment.getStartValue()/1000.0;
 		final double xmax = segment.getEndValue()/1000.0;
@@ -87,48 +87,51 @@ public class FormantsNode extends PraatNode implements NodeSettings {
 					formantSettings.getMaxFrequency(),
 					formantSettings.getWindowLength(),
 					formantSettings.getPreEmphasis())) {
-				// columns
-				int cols = getColumnNames().size();
+				// compute measures before adding row to table
+				final int numFormants = formantSettings.getNumFormants();
+				final boolean includeBandwidths = formantSettings.isIncludeBandwidths();
+				final double[] measures = new double[numFormants * 9 * (includeBandwidths ? 2 : 1)];
+				int measureIdx = 0;
+				
+				double len = textInterval.getXmax() - textInterval.getXmin();
+				double timeStep = len / 10.0;
+				for(int formant = 1; formant <= numFormants; formant++) {
+					for(int i = 10; i < 100; i+=10) {
+						double time = textInterval.getXmin() + (timeStep * (i/10));
+						measures[measureIdx++] = formants.getValueAtTime(formant, time, kFormant_unit.HERTZ);
+						
+						if(includeBandwidths) {
+							measures[measureIdx++] = formants.getBandwidthAtTime(formant, time, kFormant_unit.HERTZ);
+						}
+					}
+				}
 				
 				final Record r = (result.getRecordIndex() < session.getRecordCount() ? session.getRecord(result.getRecordIndex()) : null);
 				final Participant speaker = (r != null ? r.getSpeaker() : Participant.UNKNOWN);
 				
-				Object[] rowData = new Object[cols];
+				final int row = table.addRow();
 				int colIdx = 0;
-				rowData[colIdx++] = sessionPath;
-				rowData[colIdx++] = speaker;
-				rowData[colIdx++] = (speaker != Participant.UNKNOWN ? speaker.getAge(session.getDate()) : "");
-				rowData[colIdx++] = result.getRecordIndex()+1;
-				rowData[colIdx++] = result;
+				table.setValueAt(row, colIdx++, sessionPath);
+				table.setValueAt(row, colIdx++, speaker);
+				table.setValueAt(row, colIdx++, (speaker != Participant.UNKNOWN ? speaker.getAge(session.getDate()) : ""));
+				table.setValueAt(row, colIdx++, result.getRecordIndex()+1);
+				table.setValueAt(row, colIdx++, result);
 				
-				if(isUseRecordInterval()) {
+				if(config.isUseRecordInterval()) {
 					// add nothing
-				} else if(isUseTextGridInterval()) {
-					rowData[colIdx++] = textInterval.getText();
+				} else if(config.isUseTextGridInterval()) {
+					table.setValueAt(row, colIdx++, textInterval.getText());
 				} else {
-					rowData[colIdx++] = rv.getTierName();
-					rowData[colIdx++] = value;
+					table.setValueAt(row, colIdx++, rv.getTierName());
+					table.setValueAt(row, colIdx++, value);
 				}
 				
-				rowData[colIdx++] = textInterval.getXmin();
-				rowData[colIdx++] = textInterval.getXmax();
+				table.setDouble(row, colIdx++, textInterval.getXmin());
+				table.setDouble(row, colIdx++, textInterval.getXmax());
 				
-				double len = textInterval.getXmax() - textInterval.getXmin();
-				double timeStep = len / 10.0;
-				for(int formant = 1; formant <= formantSettings.getNumFormants(); formant++) {
-					for(int i = 10; i < 100; i+=10) {
-						double time = textInterval.getXmin() + (timeStep * (i/10));
-						double fval = formants.getValueAtTime(formant, time, kFormant_unit.HERTZ);
-						rowData[colIdx++] = fval;
-						
-						if(formantSettings.isIncludeBandwidths()) {
-							double band = formants.getBandwidthAtTime(formant, time, kFormant_unit.HERTZ);
-							rowData[colIdx++] = band;
-						}
-					}
+				for(double measure:measures) {
+					table.setDouble(row, colIdx++, measure);
 				}
-				
-				table.addRow(rowData);
 			}
 		} catch (Exception e) {
 			addToWarningsTable(sessionPath, result, e.getLocalizedMessage());
@@ -138,8 +141,9 @@ public class FormantsNode extends PraatNode implements NodeSettings {
 	
 	@Override
 	public List<String> getColumnNames() {
+		final PraatNodeConfig config = getConfig();
 		final List<String> colNames = new ArrayList<>();
-		final FormantSettings formantSettings = getFormantSettings();
+		final FormantSettings formantSettings = config.get(FormantSettings.class);
 		
 		colNames.add("Session");
 		colNames.add("Speaker");
@@ -147,13 +151,13 @@ public class FormantsNode extends PraatNode implements NodeSettings {
 		colNames.add("Record #");
 		colNames.add("Result");
 		
-		if(isUseRecordInterval()) {
+		if(config.isUseRecordInterval()) {
 			// no extra tiers
-		} else if (isUseTextGridInterval()) {
+		} else if (config.isUseTextGridInterval()) {
 			colNames.add("Text");
 		} else {
 			colNames.add("Tier");
-			colNames.add(getColumn());
+			colNames.add(config.getColumn());
 		}
 		
 		colNames.add("Start Time");
@@ -185,7 +189,7 @@ public class FormantsNode extends PraatNode implements NodeSettings {
 		if(settingsPanel == null) {
 			final GridBagConstraints gbc = new GridBagConstraints();
 			gbc.gridx = 0;
-			gbc.gridy = 7;
+			gbc.gridy = 11;
 			gbc.weightx = 1.0;
 			gbc.weighty = 0.0;
 			gbc.fill = GridBagConstraints.HORIZONTAL;
@@ -206,6 +210,11 @@ public class FormantsNode extends PraatNode implements NodeSettings {
 		return settingsPanel;
 	}
 
+	@Override
+	protected PraatNodeConfig createConfig() {
+		return super.createConfig().with(FormantSettings.class, getFormantSettings());
+	}
+
 	@Override
 	public Properties getSettings() {
 		Properties retVal = super.getSettings();
@@ -21,7 +21,6 @@ import ca.phon.opgraph.app.GraphDocument;
 import ca.phon.opgraph.app.extensions.NodeSettings;
 import ca.phon.plugins.praat.*;
 import ca.phon.query.db.*;
-import ca.phon.query.report.datasource.DefaultTableDataSource;
 import ca.phon.session.Record;
 import ca.phon.session.*;
 import org.jdesktop.swingx.JXTitledSeparator;
@@ -47,11 +46,12 @@ public class IntensityNode extends PraatNode implements NodeSettings {
 	private IntensitySettingsPanel intensitySettingsPanel;
 
 	@Override
-	public void addRowToTable(LongSound longSound, TextGrid textGrid, TextInterval textInterval, 
+	public void addRowToTable(LongSound longSound, TextGridIndex textGrid, TextInterval textInterval, 
 			Session session, SessionPath sessionPath,
 			MediaSegment segment, Result result,
-			ResultValue rv, Object value, DefaultTableDataSource table) {
-		final IntensitySettings intensitySettings = getIntensitySettings();
+			ResultValue rv, Object value, ColumnarTableDataSource table) {
+		final PraatNodeConfig config = getConfig();
+		final IntensitySettings intensitySettings = config.get(IntensitySettings.class);
 		final double xmin = segment.getStartValue()/1000.0;
 		final double xmax = segment.getEndValue()/1000.0;
 
@@ -59,42 +59,43 @@ public class IntensityNode extends PraatNode implements NodeSettings {
 			try (final Intensity intensity = 
 					sound.to_Intensity(intensitySettings.getViewRangeMin(), 0.0, 
 							intensitySettings.getSubtractMean())) {
-				// columns
-				int cols = getColumnNames().size();
+				// compute measures before adding row to table
+				final double[] measures = new double[9];
+				double len = textInterval.getXmax() - textInterval.getXmin();
+				double timeStep = len / 10.0;
+				for(int i = 1; i <= 9; i++) {
+					double v =
+							intensity.getValueAtX(textInterval.getXmin() + (i * timeStep), 1, kVector_valueInterpolation.LINEAR);
+					v = intensity.convertSpecialToStandardUnit(v, 1, Intensity.UNITS_DB);
+					measures[i-1] = v;
+				}
 				
 				final Record r = (result.getRecordIndex() < session.getRecordCount() ? session.getRecord(result.getRecordIndex()) : null);
 				final Participant speaker = (r != null ? r.getSpeaker() : Participant.UNKNOWN);
 				
-				Object[] rowData = new Object[cols];
+				final int row = table.addRow();
 				int colIdx = 0;
-				rowData[colIdx++] = sessionPath;
-				rowData[colIdx++] = speaker;
-				rowData[colIdx++] = (speaker != Participant.UNKNOWN ? speaker.getAge(session.getDate()) : "");
-				rowData[colIdx++] = result.getRecordIndex()+1;
-				rowData[colIdx++] = result;
+				table.setValueAt(row, colIdx++, sessionPath);
+				table.setValueAt(row, colIdx++, speaker);
+				table.setValueAt(row, colIdx++, (speaker != Participant.UNKNOWN ? speaker.getAge(session.getDate()) : ""));
+				table.setValueAt(row, colIdx++, result.getRecordIndex()+1);
+				table.setValueAt(row, colIdx++, result);
 				
-				if(isUseRecordInterval()) {
+				if(config.isUseRecordInterval()) {
 					// add nothing
-				} else if(isUseTextGridInterval()) {
-					rowData[colIdx++] = textInterval.getText();
+				} else if(config.isUseTextGridInterval()) {
+					table.setValueAt(row, colIdx++, textInterval.getText());
 				} else {
-					rowData[colIdx++] = rv.getTierName();
-					rowData[colIdx++] = value;
+					table.setValueAt(row, colIdx++, rv.getTierName());
+					table.setValueAt(row, colIdx++, value);
 				}
 				
-				rowData[colIdx++] = textInterval.getXmin();
-				rowData[colIdx++] = textInterval.getXmax();
+				table.setDouble(row, colIdx++, textInterval.getXmin());
+				table.setDouble(row, colIdx++, textInterval.getXmax());
 				
-				double len = textInterval.getXmax() - textInterval.getXmin();
-				double timeStep = len / 10.0;
-				for(int i = 1; i <= 9; i++) {
-					double v =
-							intensity.getValueAtX(textInterval.getXmin() + (i * timeStep), 1, kVector_valueInterpolation.LINEAR);
-					v = intensity.convertSpecialToStandardUnit(v, 1, Intensity.UNITS_DB);
-					rowData[colIdx++] = v;
+				for(double measure:measures) {
+					table.setDouble(row, colIdx++, measure);
 				}
-				
-				table.addRow(rowData);
 			}
 		} catch (Exception e) {
 			addToWarningsTable(sessionPath, result, e.getLocalizedMessage());
@@ -104,6 +105,7 @@ public class IntensityNode extends PraatNode implements NodeSettings {
 
 	@Override
 	public List<String> getColumnNames() {
+		final PraatNodeConfig config = getConfig();
 		final List<String> colNames = new ArrayList<>();
 		
 		colNames.add("Session");
@@ -112,13 +114,13 @@ public class IntensityNode extends PraatNode implements NodeSettings {
 		colNames.add("Record #");
 		colNames.add("Result");
 		
-		if(isUseRecordInterval()) {
+		if(config.isUseRecordInterval()) {
 			// no extra tiers
-		} else if (isUseTextGridInterval()) {
+		} else if (config.isUseTextGridInterval()) {
 			colNames.add("Text");
 		} else {
 			colNames.add("Tier");
-			colNames.add(getColumn());
+			colNames.add(config.getColumn());
 		}
 		
 		colNames.add("Start Time");
@@ -140,7 +142,7 @@ public class IntensityNode extends PraatNode implements NodeSettings {
 			
 			final GridBagConstraints gbc = new GridBagConstraints();
 			gbc.gridx = 0;
-			gbc.gridy = 7;
+			gbc.gridy = 11;
 			gbc.weightx = 1.0;
 			gbc.weighty = 0.0;
 			gbc.fill = GridBagConstraints.HORIZONTAL;
@@ -167,6 +169,11 @@ public class IntensityNode extends PraatNode implements NodeSettings {
 			this.intensitySettingsPanel.loadSettings(settings);
 	}
 
+	@Override
+	protected PraatNodeConfig createConfig() {
+		return super.createConfig().with(IntensitySettings.class, getIntensitySettings());
+	}
+
 	@Override
 	public Properties getSettings() {
 		final Properties retVal = super.getSettings();
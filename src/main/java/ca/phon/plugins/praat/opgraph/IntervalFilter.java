@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat.opgraph;
+
+import java.util.*;
+import java.util.regex.*;
+
+/**
+ * Pre-compiled filter for TextGrid interval labels.  Filters which
+ * are a plain label or an alternation of plain labels (e.g., <code>a|e|i</code>)
+ * are matched using a set lookup, all other filters are compiled
+ * as a regular expression which must match the entire label.
+ */
+public final class IntervalFilter {
+
+	private final static String REGEX_CHARS = "\\.[]{}()<>*+-=!?^$|";
+
+	/** Filter which accepts all labels */
+	public final static IntervalFilter ACCEPT_ALL = new IntervalFilter("", null, null);
+
+	private final String filter;
+
+	private final Set<String> labels;
+
+	private final Pattern pattern;
+
+	private IntervalFilter(String filter, Set<String> labels, Pattern pattern) {
+		super();
+		this.filter = filter;
+		this.labels = labels;
+		this.pattern = pattern;
+	}
+
+	/**
+	 * Compile given filter text
+	 *
+	 * @param filter
+	 *
+	 * @return interval filter
+	 * @throws PatternSyntaxException if filter is not a valid regular expression
+	 */
+	public static IntervalFilter compile(String filter) {
+		if(filter == null || filter.trim().length() == 0) {
+			return ACCEPT_ALL;
+		}
+
+		final String[] alternatives = filter.split("\\|", -1);
+		final Set<String> labels = new HashSet<>();
+		for(String alternative:alternatives) {
+			if(!isLiteral(alternative)) {
+				return new IntervalFilter(filter, null, Pattern.compile(filter));
+			}
+			labels.add(alternative);
+		}
+		return new IntervalFilter(filter, Collections.unmodifiableSet(labels), null);
+	}
+
+	private static boolean isLiteral(String text) {
+		for(int i = 0; i < text.length(); i++) {
+			if(REGEX_CHARS.indexOf(text.charAt(i)) >= 0) return false;
+		}
+		return true;
+	}
+
+	public String getFilter() {
+		return this.filter;
+	}
+
+	/**
+	 * @return <code>true</code> if this filter is a set of literal labels
+	 */
+	public boolean isLiteral() {
+		return this.labels != null;
+	}
+
+	/**
+	 * Test given interval label
+	 *
+	 * @param label
+	 *
+	 * @return <code>true</code> if label is accepted by filter
+	 */
+	public boolean accept(String label) {
+		if(labels != null) {
+			return labels.contains(label);
+		} else if(pattern != null) {
+			return pattern.matcher(label).matches();
+		} else {
+			return true;
+		}
+	}
+
+}
@@ -15,7 +15,6 @@
  */
 package ca.phon.plugins.praat.opgraph;
 
-import ca.hedlund.jpraat.TextGridUtils;
 import ca.hedlund.jpraat.binding.fon.*;
 import ca.hedlund.jpraat.binding.sys.MelderFile;
 import ca.hedlund.jpraat.exceptions.PraatException;
@@ -45,10 +44,13 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionListener;
 import java.io.*;
+import java.lang.reflect.InvocationTargetException;
 import java.text.ParseException;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.*;
+import java.util.regex.PatternSyntaxException;
 
 public abstract class PraatNode extends TableOpNode implements NodeSettings {
 
@@ -60,6 +62,17 @@ public abstract class PraatNode extends TableOpNode implements NodeSettings {
 	protected final OutputField warningsOutput = 
 			new OutputField("warnings", "Table of warnings produced by the node", true, TableDataSource.class);
 
+	protected final OutputField fileOutput =
+			new OutputField("file", "File rows were streamed to, null if streaming is disabled", true, File.class);
+
+	/**
+	 * Number of rows held in memory before they are written
+	 * to the output file when streaming is enabled.
+	 */
+	public final static int STREAM_BUFFER_ROWS = 1024;
+
+	private final static String TEXTGRID_EXT = ".TextGrid";
+
 	/**
 	 * These options determine what interval is passed
 	 * to the implementing subclass in the operate method.
@@ -71,6 +84,10 @@ public abstract class PraatNode extends TableOpNode implements NodeSettings {
 	private PromptedTextField intervalFilterField;
 	private JRadioButton fromColumnBox;
 	private PromptedTextField columnField;
+	private JCheckBox streamToFileBox;
+	private PromptedTextField streamFileField;
+	private JComboBox<TableStreamWriter.Format> streamFormatBox;
+	private PromptedTextField checkpointFolderField;
 
 	private boolean useRecordInterval = false;
 	private boolean useTextGridInterval = false;
@@ -78,14 +95,26 @@ public abstract class PraatNode extends TableOpNode implements NodeSettings {
 	private String intervalFilter = "";
 	private boolean useColumnInterval = true;
 	private String column = "IPA Actual";
+	private boolean streamToFile = false;
+	private String streamFile = "";
+	private TableStreamWriter.Format streamFormat = TableStreamWriter.Format.CSV;
 	
 	private DefaultTableDataSource warningsTable;
 
+	private TableStreamWriter streamWriter;
+
+	private String checkpointFolder = "";
+
+	private ReportCheckpoint checkpoint;
+
+	private volatile PraatNodeConfig operateConfig;
+
 	public PraatNode() {
 		super();
 
 		putField(projectInput);
 		putField(warningsOutput);
+		putField(fileOutput);
 		putExtension(NodeSettings.class, this);
 	}
 
@@ -171,341 +200,424 @@ public abstract class PraatNode extends TableOpNode implements NodeSettings {
 
 	@Override
 	public void operate(OpContext context) throws ProcessingException {
-//		final Project project = (Project)context.get(projectInput);
-//
-//		final DefaultTableDataSource table = (DefaultTableDataSource)context.get(tableInput);
-//		final DefaultTableDataSource outputTable = new DefaultTableDataSource();
-//
-//		warningsTable = new DefaultTableDataSource();
-//		int col = 0;
-//		warningsTable.setColumnTitle(col++, "Session");
-//		warningsTable.setColumnTitle(col++, "Record #");
-//		warningsTable.setColumnTitle(col++, "Group #");
-//		warningsTable.setColumnTitle(col++, "Result");
-//		warningsTable.setColumnTitle(col++, "Warning");
-//
-//		final TextGridManager tgManager = new TextGridManager(project);
-//		final TextGridAnnotator annotator = new TextGridAnnotator();
-//
-//		final int resultCol = table.getColumnIndex("Result");
-//		final int sessionNameCol = table.getColumnIndex("Session");
-//
-//		SessionPath lastSessionName = null;
-//		Session session = null;
-//		TextGrid textGrid = null;
-//		LongSound longSound = null;
-//
-//		List<Integer> recordList = new ArrayList<>();
-//
-//		for(int row = 0; row < table.getRowCount(); row++) {
-//			if(super.isCanceled()) throw new BreakpointEncountered(null, this);
-//
-//			final SessionPath sessionName = (SessionPath)table.getValueAt(row, sessionNameCol);
-//			if(session == null || !sessionName.equals(lastSessionName)) {
-//				// clean up old data
-//				if(textGrid != null) {
-//					try {
-//						textGrid.close();
-//					} catch (Exception e) {
-//						LogUtil.severe(e);
-//					}
-//				}
-//				if(longSound != null) {
-//					try {
-//						longSound.close();
-//					} catch (Exception e) {
-//						LogUtil.severe(e);
-//					}
-//				}
-//				try {
-//					session = project.openSession(sessionName.getFolder(), sessionName.getSessionFile());
-//					final Optional<File> textGridFile = tgManager.defaultTextGridFile(session);
-//					if(!textGridFile.isPresent())
-//						throw new PraatException("TextGrid not found for " + sessionName);
-//
-//					textGrid = TextGridManager.loadTextGrid(textGridFile.get());
-//					File mediaFile = getMediaFile(project, session);
-//					longSound = LongSound.open(MelderFile.fromPath(mediaFile.getAbsolutePath()));
-//				} catch (IOException | PraatException e) {
-//					LOGGER.log(Level.SEVERE, e.getLocalizedMessage(), e);
-//					throw new ProcessingException(null, e);
-//				}
-//			}
-//			lastSessionName = sessionName;
-//
-//			final Result result = (Result)table.getValueAt(row, resultCol);
-//			if(textGrid == null) {
-//				addToWarningsTable(sessionName, result, "TextGrid not found");
-//				continue;
-//			}
-//			if(longSound == null) {
-//				addToWarningsTable(sessionName, result, "LongSound not found");
-//				continue;
-//			}
-//			final Record record = session.getRecord(result.getRecordIndex());
-//			final Tier<MediaSegment> segTier = record.getSegmentTier();
-//			final MediaSegment segment = segTier.getValue();
-//			double startTime = segment.getStartValue() / 1000.0;
-//			double endTime = segment.getEndValue() / 1000.0;
-//
-//			TextInterval textInterval = null;
-//			if(isUseRecordInterval()) {
-//				if(recordList.contains(result.getRecordIndex())) continue;
-//				try {
-//					textInterval = TextInterval.create(startTime, endTime, ReportHelper.createResultString(result));
-//					addRowToTable(longSound, textGrid, textInterval, session, sessionName, segment, result, null, null, outputTable);
-//					recordList.add(result.getRecordIndex());
-//				} catch (PraatException pe) {
-//					LOGGER.log(Level.SEVERE, pe.getLocalizedMessage(), pe);
-//				}
-//			} else if(isUseTextGridInterval()) {
-//				try(final TextGrid recordTextGrid = textGrid.extractPart(startTime, endTime, true)) {
-//					annotator.annotateRecord(recordTextGrid, record);
-//
-//					if(recordList.contains(result.getRecordIndex())) continue;
-//					String textGridTier = getTextGridTier();
-//					final long tierNum = TextGridUtils.tierNumberFromName(recordTextGrid, textGridTier);
-//					if(tierNum <= 0) continue;
-//
-//					try {
-//						final IntervalTier intervalTier = recordTextGrid.checkSpecifiedTierIsIntervalTier(tierNum);
-//						recordList.add(result.getRecordIndex());
-//
-//						for(long i = 1; i <= intervalTier.numberOfIntervals(); i++) {
-//							final TextInterval interval = intervalTier.interval(i);
-//
-//							// check interval filter
-//							if(checkFilter(interval)) {
-//								addRowToTable(longSound, textGrid, interval, session, sessionName, segment, result, null, null, outputTable);
-//							}
-//						}
-//					} catch (PraatException pe) {
-//						LOGGER.log(Level.SEVERE, pe.getLocalizedMessage(), pe);
-//					}
-//				} catch (Exception e) {
-//					LOGGER.log(Level.SEVERE, e.getLocalizedMessage(), e);
-//					throw new ProcessingException(null, e);
-//				}
-//			} else {
-//				try(final TextGrid recordTextGrid = textGrid.extractPart(startTime, endTime, true)) {
-//					annotator.annotateRecord(recordTextGrid, record);
-//					// find correct result value in result
-//					ResultValue rv = null;
-//					for(int i = 0; i < result.getNumberOfResultValues(); i++) {
-//						ResultValue v = result.getResultValue(i);
-//						if(v.getTierName().equalsIgnoreCase(getColumn())) {
-//							rv = v;
-//							break;
-//						}
-//					}
-//					if(rv == null) {
-//						addToWarningsTable(sessionName, result, "Result value for " + getColumn() + " tier not found");
-//						continue;
-//					}
-//
-//					Object tierVal = null;
-//					SystemTierType systemTier = SystemTierType.tierFromString(rv.getTierName());
-//					if(systemTier != null) {
-//						switch(systemTier)
-//						{
-//						case Orthography:
-//							tierVal = record.getOrthography();
-//							break;
-//						case IPATarget:
-//							tierVal = record.getIPATarget();
-//							break;
-//						case IPAActual:
-//							tierVal = record.getIPAActual();
-//							break;
-//						case Notes:
-//							tierVal = record.getNotes();
-//							break;
-//
-//						default:
-//							break;
-//						}
-//					} else {
-//						final Tier<?> tier = record.getTier(rv.getTierName());
-//						tierVal = tier.getValue();
-//					}
-//					if(tierVal == null) {
-//						addToWarningsTable(sessionName, result, "Tier value for " + rv.getTierName() + " not found");
-//						continue;
-//					}
-//
-//					Object resultValue = null;
-//					if(tierVal instanceof Orthography ortho) {
-//						if(rv.getRange().getFirst() == 0
-//								&& rv.getRange().getRange() == ortho.toString().length()) {
-//							resultValue = ortho;
-//						} else {
-//							// try to copy whole elements if possible to retain annotations
-//							int startEleIdx = -1;
-//							int endEleIdx = -1;
-//							// rv.getRange().getFirst() must start at the beginning of an element
-//							int startIdx = 0;
-//							for(int i = 0; i < ortho.length(); i++) {
-//								final OrthographyElement ele = ortho.elementAt(i);
-//								if(startIdx == rv.getRange().getFirst()) {
-//									startEleIdx = i;
-//									break;
-//								} else if (rv.getRange().getFirst() > startIdx + ele.text().length()) {
-//									// continue
-//									startIdx += ele.text().length()+1;
-//								} else {
-//									// inside element, break
-//									break;
-//								}
-//							}
-//							if(startEleIdx >= 0) {
-//								// rv.getRange.getLast() must be at the end of an element
-//								for(int i = startEleIdx; i < ortho.length(); i++) {
-//									final OrthographyElement ele = ortho.elementAt(i);
-//									if(rv.getRange().getLast() == startIdx + ele.text().length()) {
-//										endEleIdx = i;
-//										break;
-//									} else if(rv.getRange().getLast() > startIdx + ele.text().length()) {
-//										startIdx += ele.text().length()+1;
-//									} else {
-//										break;
-//									}
-//								}
-//							}
-//							if(startEleIdx >= 0 && endEleIdx >= 0) {
-//								resultValue = ortho.subsection(startEleIdx, endEleIdx+1);
-//							} else {
-//								final String tierTxt = ortho.toString();
-//
-//								final String resultTxt =
-//										(rv.getRange().getFirst() >= 0 && rv.getRange().getLast() >= rv.getRange().getFirst() ?
-//												tierTxt.substring(
-//														Math.max(0, rv.getRange().getFirst()),
-//														Math.max(0, Math.min(rv.getRange().getLast(), tierTxt.length()))) : "");
-//								try {
-//									resultValue = Orthography.parseOrthography(resultTxt);
-//								} catch (ParseException e) {
-//									// ignore
-//								}
-//							}
-//						}
-//					} else if(tierVal instanceof IPATranscript) {
-//						IPATranscript ipa = (IPATranscript)tierVal;
-//
-//						if(rv.getRange().getFirst() == 0 && rv.getRange().getRange() == ipa.toString().length()) {
-//							resultValue = ipa;
-//						} else {
-//							if(rv.getRange().getRange() > 0) {
-//								int startPhone = ipa.ipaIndexOf(rv.getRange().getFirst());
-//								int endPhone = ipa.ipaIndexOf(rv.getRange().getLast());
-//								resultValue = ipa.subsection(startPhone, endPhone + (rv.getRange().isExcludesEnd() ? 1 : 0) );
-//							}
-//						}
-//					} else if (tierVal instanceof TierString) {
-//						TierString tierString = (TierString)tierVal;
-//
-//						if(rv.getRange().getFirst() == 0 && rv.getRange().getRange() == tierString.length()) {
-//							resultValue = tierString;
-//						} else {
-//							int startWordIdx = -1;
-//							int endWordIdx = -1;
-//							for(int i = 0; i < tierString.numberOfWords(); i++) {
-//								TierString word = tierString.getWord(i);
-//								if(rv.getRange().getFirst() == tierString.getWordOffset(i)) {
-//									startWordIdx = i;
-//									break;
-//								} else if(rv.getRange().getFirst() > tierString.getWordOffset(i) + word.length()) {
-//									continue;
-//								} else {
-//									break;
-//								}
-//							}
-//							if(startWordIdx >= 0) {
-//								for(int i = startWordIdx; i < tierString.numberOfWords(); i++) {
-//									TierString word = tierString.getWord(i);
-//									if(rv.getRange().getLast() == tierString.getWordOffset(i) + word.length()) {
-//										endWordIdx = i;
-//										break;
-//									} else if(rv.getRange().getLast() > tierString.getWordOffset(i) + word.length()) {
-//										continue;
-//									} else {
-//										break;
-//									}
-//								}
-//							}
-//							TierString resultTierString = new TierString(tierString.substring(rv.getRange().getFirst(), rv.getRange().getLast()));
-//							if(startWordIdx >= 0 && endWordIdx >= 0) {
-//								// copy TextInverval extensions
-//								int wIdx = 0;
-//								for(int i = startWordIdx; i <= endWordIdx && wIdx < resultTierString.numberOfWords(); i++) {
-//									TierString word = tierString.getWord(i);
-//									TierString resultWord = resultTierString.getWord(wIdx++);
-//									resultWord.putExtension(TextInterval.class, word.getExtension(TextInterval.class));
-//								}
-//							}
-//							resultValue = resultTierString;
-//						}
-//					} else {
-//						String txt = tierVal.toString();
-//						resultValue = txt.substring(rv.getRange().getFirst(), rv.getRange().getLast());
-//					}
-//					if(resultValue == null || !(resultValue instanceof IExtendable)) {
-//						addToWarningsTable(sessionName, result, "Unable to locate subsection for result");
-//						continue;
-//					}
-//
-//					IExtendable extendable = (IExtendable)resultValue;
-//					textInterval = getTextInterval(extendable);
-//					if(textInterval == null) {
-//						addToWarningsTable(sessionName, result, "TextInterval not found");
-//						continue;
-//					}
-//					try {
-//						textInterval.setText(resultValue.toString());
-//					} catch (PraatException e) {
-//						LogUtil.warning(e);
-//					}
-//					addRowToTable(longSound, textGrid, textInterval, session, sessionName, segment, result, rv, resultValue, outputTable);
-//
-//					// delete textInterval if a new instance was created in getTextInterval(IExtendable)
-//					if(textInterval != extendable.getExtension(TextInterval.class)) {
-//						try {
-//							textInterval.close();
-//						} catch (Exception e) {
-//							LogUtil.severe(e);
-//						}
-//					}
-//				} catch (Exception e) {
-//					LOGGER.log(Level.SEVERE, e.getLocalizedMessage(), e);
-//					throw new ProcessingException(null, e);
-//				}
-//			}
-//		}
-//
-//		// cleanup
-//		if(textGrid != null) {
-//			try {
-//				textGrid.close();
-//			} catch (Exception e) {
-//				LogUtil.severe(e);
-//			}
-//		}
-//		if(longSound != null) {
-//			try {
-//				longSound.close();
-//			} catch (Exception e) {
-//				LogUtil.severe(e);
-//			}
-//		}
-//
-//		List<String> colNames = getColumnNames();
-//		for(int i = 0; i < colNames.size(); i++) {
-//			outputTable.setColumnTitle(i, colNames.get(i));
-//		}
-//
-//		context.put(tableOutput, outputTable);
-//		context.put(warningsOutput, warningsTable);
+		final PraatNodeConfig config = beginOperate();
+		final Project project = (Project)context.get(projectInput);
+
+		final TableDataSource table = (TableDataSource)context.get(tableInput);
+		final ColumnarTableDataSource outputTable = createOutputTable();
+
+		warningsTable = new DefaultTableDataSource();
+		int col = 0;
+		warningsTable.setColumnTitle(col++, "Session");
+		warningsTable.setColumnTitle(col++, "Record #");
+		warningsTable.setColumnTitle(col++, "Result");
+		warningsTable.setColumnTitle(col++, "Warning");
+
+		final int resultCol = table.getColumnIndex("Result");
+		final int sessionNameCol = table.getColumnIndex("Session");
+
+		SessionPath lastSessionName = null;
+		Session session = null;
+		TextGridIndex textGrid = null;
+		TextGridRecordAnnotator annotator = null;
+		LongSound longSound = null;
+
+		// records already processed for the current session
+		final Set<Integer> recordSet = new HashSet<>();
+
+		// when checkpointing rows are collected per session and moved
+		// to the output table once the session is complete
+		ColumnarTableDataSource sessionTable = outputTable;
+		List<Result> sessionResults = new ArrayList<>();
+		// index in sessionResults for each row in sessionTable
+		final List<Integer> rowResults = new ArrayList<>();
+		// first row in warnings table for the current session
+		int sessionWarningRow = 0;
+		String sessionFingerprint = null;
+		boolean skipSession = false;
+		int resultIdx = -1;
+
+		File streamedFile = null;
+		try {
+			openStreamWriter();
+			if(openCheckpoint() != null) {
+				sessionTable = createOutputTable();
+			}
+
+			for(int row = 0; row < table.getRowCount(); row++) {
+				if(super.isCanceled()) throw new BreakpointEncountered(null, this);
+
+				final SessionPath sessionName = (SessionPath)table.getValueAt(row, sessionNameCol);
+				if(!sessionName.equals(lastSessionName)) {
+					if(sessionFingerprint != null) {
+						fillRowResults(rowResults, sessionTable, resultIdx);
+						completeSession(lastSessionName, sessionFingerprint, sessionTable, rowResults,
+								sessionResults, sessionWarningRow, outputTable);
+					}
+
+					// clean up old data
+					close(annotator);
+					close(longSound);
+					annotator = null;
+					longSound = null;
+					textGrid = null;
+					recordSet.clear();
+					rowResults.clear();
+					resultIdx = -1;
+					sessionWarningRow = warningsTable.getRowCount();
+					sessionFingerprint = null;
+					lastSessionName = sessionName;
+
+					session = project.openSession(sessionName.getFolder(), sessionName.getSessionFile());
+					sessionResults = getSessionResults(table, row, sessionNameCol, resultCol);
+					final File textGridFile = findTextGridFile(project, session);
+
+					if(checkpoint != null) {
+						sessionFingerprint = getInputFingerprint(project, sessionName, session, textGridFile, sessionResults);
+						skipSession = restoreSession(session, sessionName, sessionFingerprint, sessionResults, outputTable);
+						if(skipSession) sessionFingerprint = null;
+					} else {
+						skipSession = false;
+					}
+					if(skipSession) continue;
+
+					if(textGridFile != null) {
+						try {
+							textGrid = TextGridReader.readWithFallback(textGridFile);
+							annotator = new TextGridRecordAnnotator(textGrid);
+						} catch (IOException e) {
+							LOGGER.log(Level.WARNING, textGridFile.getAbsolutePath() + ": " + e.getLocalizedMessage(), e);
+						}
+					}
+					// nodes which do not measure audio do not open the media file
+					if(requiresAudio()) {
+						longSound = openLongSound(project, session);
+					}
+				} else if(skipSession) {
+					continue;
+				}
+
+				if(checkpoint != null) {
+					fillRowResults(rowResults, sessionTable, resultIdx);
+					++resultIdx;
+				}
+				flushRows(outputTable, false);
+
+				final Result result = (Result)table.getValueAt(row, resultCol);
+				if(textGrid == null) {
+					addToWarningsTable(sessionName, result, "TextGrid not found");
+					continue;
+				}
+				if(longSound == null && requiresAudio()) {
+					addToWarningsTable(sessionName, result, "LongSound not found");
+					continue;
+				}
+				final Record record = session.getRecord(result.getRecordIndex());
+				final MediaSegment segment = record.getSegmentTier().getValue();
+				if(segment == null) {
+					addToWarningsTable(sessionName, result, "Record segment not found");
+					continue;
+				}
+				final double startTime = segment.getStartValue() / 1000.0;
+				final double endTime = segment.getEndValue() / 1000.0;
+
+				if(config.isUseRecordInterval()) {
+					if(!recordSet.add(result.getRecordIndex())) continue;
+					try(final TextInterval textInterval = TextInterval.create(startTime, endTime, ReportHelper.createResultString(result))) {
+						addRowToTable(longSound, textGrid, textInterval, session, sessionName, segment, result, null, null, sessionTable);
+					} catch (Exception e) {
+						LOGGER.log(Level.SEVERE, e.getLocalizedMessage(), e);
+					}
+				} else if(config.isUseTextGridInterval()) {
+					if(recordSet.contains(result.getRecordIndex())) continue;
+					final TextGridIndex.TierIndex tierIndex = textGrid.getTier(config.getTextGridTier());
+					if(tierIndex == null || !tierIndex.isIntervalTier()) continue;
+					recordSet.add(result.getRecordIndex());
+
+					// intervals overlapping record segment, clipped to the segment
+					final int toIdx = tierIndex.toIndex(endTime);
+					for(int i = tierIndex.fromIndex(startTime); i < toIdx; i++) {
+						// check interval filter
+						if(!config.getIntervalFilter().accept(tierIndex.getLabel(i))) continue;
+						try(final TextInterval interval = tierIndex.createInterval(i, startTime, endTime)) {
+							addRowToTable(longSound, textGrid, interval, session, sessionName, segment, result, null, null, sessionTable);
+						} catch (Exception e) {
+							LOGGER.log(Level.SEVERE, e.getLocalizedMessage(), e);
+						}
+					}
+				} else {
+					annotator.annotateRecord(record);
+
+					// find correct result value in result
+					ResultValue rv = null;
+					for(int i = 0; i < result.getNumberOfResultValues(); i++) {
+						ResultValue v = result.getResultValue(i);
+						if(v.getTierName().equalsIgnoreCase(config.getColumn())) {
+							rv = v;
+							break;
+						}
+					}
+					if(rv == null) {
+						addToWarningsTable(sessionName, result, "Result value for " + config.getColumn() + " tier not found");
+						continue;
+					}
+
+					final Object tierVal = getTierValue(record, rv.getTierName());
+					if(tierVal == null) {
+						addToWarningsTable(sessionName, result, "Tier value for " + rv.getTierName() + " not found");
+						continue;
+					}
+
+					final Object resultValue = getResultValue(tierVal, rv);
+					if(resultValue == null || !(resultValue instanceof IExtendable)) {
+						addToWarningsTable(sessionName, result, "Unable to locate subsection for result");
+						continue;
+					}
+
+					IExtendable extendable = (IExtendable)resultValue;
+					final TextInterval textInterval = getTextInterval(extendable);
+					if(textInterval == null) {
+						addToWarningsTable(sessionName, result, "TextInterval not found");
+						continue;
+					}
+					try {
+						textInterval.setText(resultValue.toString());
+					} catch (PraatException e) {
+						LogUtil.warning(e);
+					}
+					addRowToTable(longSound, textGrid, textInterval, session, sessionName, segment, result, rv, resultValue, sessionTable);
+
+					// delete textInterval if a new instance was created in getTextInterval(IExtendable)
+					if(textInterval != extendable.getExtension(TextInterval.class)) {
+						close(textInterval);
+					}
+				}
+			}
+
+			if(sessionFingerprint != null) {
+				fillRowResults(rowResults, sessionTable, resultIdx);
+				completeSession(lastSessionName, sessionFingerprint, sessionTable, rowResults,
+						sessionResults, sessionWarningRow, outputTable);
+			}
+			flushRows(outputTable, true);
+			streamedFile = closeStreamWriter();
+		} catch (IOException e) {
+			LOGGER.log(Level.SEVERE, e.getLocalizedMessage(), e);
+			throw new ProcessingException(null, e);
+		} finally {
+			// cleanup
+			close(annotator);
+			close(longSound);
+			try {
+				closeStreamWriter();
+			} catch (IOException e) {
+				LOGGER.log(Level.WARNING, e.getLocalizedMessage(), e);
+			}
+			endOperate();
+		}
+
+		context.put(tableOutput, outputTable);
+		context.put(warningsOutput, warningsTable);
+		context.put(fileOutput, streamedFile);
 	}
-	
+
+	private void close(AutoCloseable obj) {
+		if(obj == null) return;
+		try {
+			obj.close();
+		} catch (Exception e) {
+			LogUtil.severe(e);
+		}
+	}
+
+	/**
+	 * Find TextGrid file for session.  TextGrids are located next to the
+	 * session media using the media file name (e.g., <code>media.TextGrid</code>
+	 * for <code>media.wav</code>) or next to the session file using the
+	 * session name.
+	 *
+	 * @param project
+	 * @param session
+	 *
+	 * @return TextGrid file or <code>null</code> if not found
+	 */
+	protected File findTextGridFile(Project project, Session session) {
+		final List<File> candidates = new ArrayList<>();
+		final File mediaFile = getMediaFile(project, session);
+		if(mediaFile != null) {
+			final String mediaName = mediaFile.getName();
+			final int lastDot = mediaName.lastIndexOf('.');
+			candidates.add(new File(mediaFile.getParentFile(), (lastDot > 0 ? mediaName.substring(0, lastDot) : mediaName) + TEXTGRID_EXT));
+		}
+		final File sessionFile = new File(project.getSessionPath(session.getCorpus(), session.getName()));
+		candidates.add(new File(sessionFile.getParentFile(), session.getName() + TEXTGRID_EXT));
+
+		for(File candidate:candidates) {
+			if(candidate.isFile()) return candidate;
+		}
+		return null;
+	}
+
+	private LongSound openLongSound(Project project, Session session) {
+		final File mediaFile = getMediaFile(project, session);
+		if(mediaFile == null || !mediaFile.isFile()) return null;
+		try {
+			return LongSound.open(MelderFile.fromPath(mediaFile.getAbsolutePath()));
+		} catch (PraatException e) {
+			LOGGER.log(Level.WARNING, e.getLocalizedMessage(), e);
+			return null;
+		}
+	}
+
+	private Object getTierValue(Record record, String tierName) {
+		final SystemTierType systemTier = SystemTierType.tierFromString(tierName);
+		if(systemTier != null) {
+			switch(systemTier) {
+			case Orthography:
+				return record.getOrthography();
+
+			case IPATarget:
+				return record.getIPATarget();
+
+			case IPAActual:
+				return record.getIPAActual();
+
+			case Notes:
+				return record.getNotes();
+
+			default:
+				return null;
+			}
+		} else {
+			final Tier<?> tier = record.getTier(tierName);
+			return (tier != null ? tier.getValue() : null);
+		}
+	}
+
+	/**
+	 * Locate the subsection of a tier value identified by a result value.
+	 * Whole elements are copied where possible to retain interval annotations.
+	 *
+	 * @param tierVal
+	 * @param rv
+	 *
+	 * @return result value or <code>null</code> if not found
+	 */
+	private Object getResultValue(Object tierVal, ResultValue rv) {
+		Object resultValue = null;
+		if(tierVal instanceof Orthography ortho) {
+			if(rv.getRange().getFirst() == 0
+					&& rv.getRange().getRange() == ortho.toString().length()) {
+				resultValue = ortho;
+			} else {
+				// try to copy whole elements if possible to retain annotations
+				int startEleIdx = -1;
+				int endEleIdx = -1;
+				// rv.getRange().getFirst() must start at the beginning of an element
+				int startIdx = 0;
+				for(int i = 0; i < ortho.length(); i++) {
+					final OrthographyElement ele = ortho.elementAt(i);
+					if(startIdx == rv.getRange().getFirst()) {
+						startEleIdx = i;
+						break;
+					} else if (rv.getRange().getFirst() > startIdx + ele.text().length()) {
+						// continue
+						startIdx += ele.text().length()+1;
+					} else {
+						// inside element, break
+						break;
+					}
+				}
+				if(startEleIdx >= 0) {
+					// rv.getRange.getLast() must be at the end of an element
+					for(int i = startEleIdx; i < ortho.length(); i++) {
+						final OrthographyElement ele = ortho.elementAt(i);
+						if(rv.getRange().getLast() == startIdx + ele.text().length()) {
+							endEleIdx = i;
+							break;
+						} else if(rv.getRange().getLast() > startIdx + ele.text().length()) {
+							startIdx += ele.text().length()+1;
+						} else {
+							break;
+						}
+					}
+				}
+				if(startEleIdx >= 0 && endEleIdx >= 0) {
+					resultValue = ortho.subsection(startEleIdx, endEleIdx+1);
+				} else {
+					final String tierTxt = ortho.toString();
+
+					final String resultTxt =
+							(rv.getRange().getFirst() >= 0 && rv.getRange().getLast() >= rv.getRange().getFirst() ?
+									tierTxt.substring(
+											Math.max(0, rv.getRange().getFirst()),
+											Math.max(0, Math.min(rv.getRange().getLast(), tierTxt.length()))) : "");
+					try {
+						resultValue = Orthography.parseOrthography(resultTxt);
+					} catch (ParseException e) {
+						// ignore
+					}
+				}
+			}
+		} else if(tierVal instanceof IPATranscript ipa) {
+			if(rv.getRange().getFirst() == 0 && rv.getRange().getRange() == ipa.toString().length()) {
+				resultValue = ipa;
+			} else {
+				if(rv.getRange().getRange() > 0) {
+					int startPhone = ipa.ipaIndexOf(rv.getRange().getFirst());
+					int endPhone = ipa.ipaIndexOf(rv.getRange().getLast());
+					resultValue = ipa.subsection(startPhone, endPhone + (rv.getRange().isExcludesEnd() ? 1 : 0) );
+				}
+			}
+		} else if (tierVal instanceof TierString tierString) {
+			if(rv.getRange().getFirst() == 0 && rv.getRange().getRange() == tierString.length()) {
+				resultValue = tierString;
+			} else {
+				int startWordIdx = -1;
+				int endWordIdx = -1;
+				for(int i = 0; i < tierString.numberOfWords(); i++) {
+					TierString word = tierString.getWord(i);
+					if(rv.getRange().getFirst() == tierString.getWordOffset(i)) {
+						startWordIdx = i;
+						break;
+					} else if(rv.getRange().getFirst() > tierString.getWordOffset(i) + word.length()) {
+						continue;
+					} else {
+						break;
+					}
+				}
+				if(startWordIdx >= 0) {
+					for(int i = startWordIdx; i < tierString.numberOfWords(); i++) {
+						TierString word = tierString.getWord(i);
+						if(rv.getRange().getLast() == tierString.getWordOffset(i) + word.length()) {
+							endWordIdx = i;
+							break;
+						} else if(rv.getRange().getLast() > tierString.getWordOffset(i) + word.length()) {
+							continue;
+						} else {
+							break;
+						}
+					}
+				}
+				TierString resultTierString = new TierString(tierString.substring(rv.getRange().getFirst(), rv.getRange().getLast()));
+				if(startWordIdx >= 0 && endWordIdx >= 0) {
+					// copy TextInverval extensions
+					int wIdx = 0;
+					for(int i = startWordIdx; i <= endWordIdx && wIdx < resultTierString.numberOfWords(); i++) {
+						TierString word = tierString.getWord(i);
+						TierString resultWord = resultTierString.getWord(wIdx++);
+						resultWord.putExtension(TextInterval.class, word.getExtension(TextInterval.class));
+					}
+				}
+				resultValue = resultTierString;
+			}
+		} else {
+			String txt = tierVal.toString();
+			resultValue = txt.substring(rv.getRange().getFirst(), rv.getRange().getLast());
+		}
+		return resultValue;
+	}
+
 	protected void addToWarningsTable(SessionPath sp, Result r, String warning) {
 		var rowData = new Object[warningsTable.getColumnCount()];
 		var col = 0;
@@ -517,13 +629,348 @@ public abstract class PraatNode extends TableOpNode implements NodeSettings {
 		warningsTable.addRow(rowData);
 	}
 
-	private boolean checkFilter(TextInterval interval) {
-		if(getIntervalFilter().trim().length() > 0) {
-			return interval.getText().matches(getIntervalFilter());
-		} else {
-			// no filter
-			return true;
+	/**
+	 * Open stream writer if streaming is enabled.
+	 *
+	 * @throws IOException
+	 */
+	protected void openStreamWriter() throws IOException {
+		closeStreamWriter();
+		if(isStreamToFile() && getStreamFile().trim().length() > 0) {
+			streamWriter = TableStreamWriter.create(new File(getStreamFile().trim()), getStreamFormat());
+		}
+	}
+
+	/**
+	 * Write buffered rows to the stream writer (if any) and clear the table.
+	 * Rows are only written when the table holds at least {@link #STREAM_BUFFER_ROWS}
+	 * rows unless <code>force</code> is <code>true</code>.
+	 *
+	 * @param table
+	 * @param force
+	 *
+	 * @throws IOException
+	 */
+	protected void flushRows(ColumnarTableDataSource table, boolean force) throws IOException {
+		if(streamWriter == null) return;
+		if(force || table.getRowCount() >= STREAM_BUFFER_ROWS) {
+			streamWriter.writeRows(table);
+			streamWriter.flush();
+			table.clear();
+		}
+	}
+
+	/**
+	 * Close stream writer
+	 *
+	 * @return file written or <code>null</code> if streaming was not enabled
+	 * @throws IOException
+	 */
+	protected File closeStreamWriter() throws IOException {
+		File retVal = null;
+		if(streamWriter != null) {
+			retVal = streamWriter.getFile();
+			try {
+				streamWriter.close();
+			} finally {
+				streamWriter = null;
+			}
+		}
+		return retVal;
+	}
+
+	/**
+	 * Settings used to identify compatible checkpoint data.  Output
+	 * options are not included as they do not change row data.
+	 *
+	 * @return settings hash
+	 */
+	protected String getSettingsHash() {
+		final Properties settings = getSettings();
+		settings.remove("streamToFile");
+		settings.remove("streamFile");
+		settings.remove("streamFormat");
+		settings.remove("checkpointFolder");
+		return ReportCheckpoint.settingsHash(getClass().getName() + ":" + getId(), settings);
+	}
+
+	/**
+	 * Open checkpoint data if a checkpoint folder has been provided.
+	 *
+	 * @return checkpoint or <code>null</code> if checkpointing is disabled
+	 * @throws IOException
+	 */
+	protected ReportCheckpoint openCheckpoint() throws IOException {
+		checkpoint = null;
+		if(getCheckpointFolder().trim().length() > 0) {
+			checkpoint = new ReportCheckpoint(new File(getCheckpointFolder().trim()), getSettingsHash());
+		}
+		return checkpoint;
+	}
+
+	/**
+	 * Fingerprint of the input used for the given session.  Files are
+	 * compared using size and modification time, results are compared
+	 * using record index and result value ranges.
+	 *
+	 * @param project
+	 * @param sessionPath
+	 * @param session
+	 * @param textGridFile may be <code>null</code>
+	 * @param results input results for the session
+	 *
+	 * @return fingerprint
+	 */
+	protected String getInputFingerprint(Project project, SessionPath sessionPath, Session session, File textGridFile,
+			List<Result> results) {
+		final File sessionFile = new File(project.getSessionPath(sessionPath.getFolder(), sessionPath.getSessionFile()));
+		final File mediaFile = getMediaFile(project, session);
+
+		final StringBuilder sb = new StringBuilder();
+		sb.append(ReportCheckpoint.inputFingerprint(sessionFile, mediaFile, textGridFile));
+		for(Result result:results) {
+			sb.append('\n').append(result.getRecordIndex());
+			for(int i = 0; i < result.getNumberOfResultValues(); i++) {
+				final ResultValue rv = result.getResultValue(i);
+				sb.append('|').append(rv.getTierName())
+					.append(':').append(rv.getRange().getFirst())
+					.append('-').append(rv.getRange().getLast());
+			}
+		}
+		return ReportCheckpoint.sha256(sb.toString());
+	}
+
+	/**
+	 * Results in the input table for the session starting at the given row.
+	 * Rows for a session are expected to be contiguous.
+	 *
+	 * @param table
+	 * @param firstRow
+	 * @param sessionCol
+	 * @param resultCol
+	 *
+	 * @return results for session in table order
+	 */
+	private List<Result> getSessionResults(TableDataSource table, int firstRow, int sessionCol, int resultCol) {
+		final List<Result> retVal = new ArrayList<>();
+		final Object sessionPath = table.getValueAt(firstRow, sessionCol);
+		for(int row = firstRow; row < table.getRowCount() && sessionPath.equals(table.getValueAt(row, sessionCol)); row++) {
+			retVal.add((Result)table.getValueAt(row, resultCol));
+		}
+		return retVal;
+	}
+
+	/**
+	 * Assign the given result index to rows added to the session table
+	 * since the last call.
+	 */
+	private void fillRowResults(List<Integer> rowResults, ColumnarTableDataSource sessionTable, int resultIdx) {
+		while(rowResults.size() < sessionTable.getRowCount()) {
+			rowResults.add(resultIdx);
+		}
+	}
+
+	/**
+	 * Restore rows for the given session if it was completed
+	 * in a previous run and its input files have not changed.
+	 *
+	 * Checkpoint data only stores values as text, session, speaker,
+	 * age, record and result columns are rebuilt from the session and
+	 * the input results so restored rows are identical to rows
+	 * produced by {@link #addRowToTable(LongSound, TextGridIndex, TextInterval, Session, SessionPath, MediaSegment, Result, ResultValue, Object, ColumnarTableDataSource)}.
+	 * Warnings stored for the session are added to the warnings table.
+	 * If checkpoint data cannot be read the session is analysed again.
+	 *
+	 * @param session
+	 * @param sessionPath
+	 * @param fingerprint
+	 * @param results input results for the session
+	 * @param outputTable
+	 *
+	 * @return <code>true</code> if rows were restored and the session should be skipped
+	 * @throws IOException
+	 */
+	protected boolean restoreSession(Session session, SessionPath sessionPath, String fingerprint, List<Result> results,
+			ColumnarTableDataSource outputTable) throws IOException {
+		if(checkpoint == null || !checkpoint.isComplete(sessionPath, fingerprint)) return false;
+
+		final ColumnarTableDataSource restoredTable = createOutputTable();
+		final List<ReportCheckpoint.Warning> warnings;
+		final List<Result> warningResults = new ArrayList<>();
+		try {
+			checkpoint.loadRows(sessionPath, restoredTable);
+			restoreColumns(session, sessionPath, results, restoredTable);
+			warnings = checkpoint.loadWarnings(sessionPath);
+			for(ReportCheckpoint.Warning warning:warnings) {
+				warningResults.add(results.get(warning.resultIndex()));
+			}
+		} catch (IOException | RuntimeException e) {
+			LOGGER.log(Level.WARNING, "Unable to restore checkpoint data for " + sessionPath + ": " + e.getLocalizedMessage(), e);
+			return false;
+		}
+		for(int i = 0; i < warnings.size(); i++) {
+			addToWarningsTable(sessionPath, warningResults.get(i), warnings.get(i).message());
+		}
+		outputTable.appendRows(restoredTable);
+		flushRows(outputTable, true);
+		return true;
+	}
+
+	private void restoreColumns(Session session, SessionPath sessionPath, List<Result> results, ColumnarTableDataSource table) throws IOException {
+		final PraatNodeConfig config = getConfig();
+		final int resultCol = table.getColumnIndex("Result");
+		if(resultCol < 0) throw new IOException("Result column not found");
+		final int valueCol = (config.isUseColumnInterval() ? table.getColumnIndex(config.getColumn()) : -1);
+
+		for(int row = 0; row < table.getRowCount(); row++) {
+			final Object resultIdx = table.getValueAt(row, resultCol);
+			if(resultIdx == null) throw new IOException("Missing result index in row " + row);
+			final Result result = results.get(Integer.parseInt(resultIdx.toString()));
+			final Record record = (result.getRecordIndex() < session.getRecordCount() ? session.getRecord(result.getRecordIndex()) : null);
+			final Participant speaker = (record != null ? record.getSpeaker() : Participant.UNKNOWN);
+
+			for(int col = 0; col < table.getColumnCount(); col++) {
+				switch(table.getColumnTitle(col)) {
+					case "Session" -> table.setValueAt(row, col, sessionPath);
+					case "Speaker" -> table.setValueAt(row, col, speaker);
+					case "Age" -> table.setValueAt(row, col, (speaker != Participant.UNKNOWN ? speaker.getAge(session.getDate()) : ""));
+					case "Record #" -> table.setValueAt(row, col, result.getRecordIndex()+1);
+					case "Result" -> table.setValueAt(row, col, result);
+					default -> {}
+				}
+			}
+
+			if(valueCol >= 0 && record != null) {
+				for(int i = 0; i < result.getNumberOfResultValues(); i++) {
+					final ResultValue rv = result.getResultValue(i);
+					if(!rv.getTierName().equalsIgnoreCase(config.getColumn())) continue;
+					final Object tierVal = getTierValue(record, rv.getTierName());
+					final Object resultValue = (tierVal != null ? getResultValue(tierVal, rv) : null);
+					if(resultValue != null) table.setValueAt(row, valueCol, resultValue);
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Called after all rows for a session have been added to <code>sessionTable</code>.
+	 * Rows and warnings are saved to the checkpoint (if any), rows are moved to
+	 * the output table and streamed to file if enabled.  Checkpoint data stores
+	 * the index of the input result for each row in the Result column and for
+	 * each warning, see
+	 * {@link #restoreSession(Session, SessionPath, String, List, ColumnarTableDataSource)}.
+	 *
+	 * @param sessionPath
+	 * @param fingerprint
+	 * @param sessionTable
+	 * @param rowResults index of input result for each row in <code>sessionTable</code>
+	 * @param results input results for the session
+	 * @param firstWarningRow first row in the warnings table added for the session
+	 * @param outputTable
+	 *
+	 * @throws IOException
+	 */
+	protected void completeSession(SessionPath sessionPath, String fingerprint, ColumnarTableDataSource sessionTable,
+			List<Integer> rowResults, List<Result> results, int firstWarningRow, ColumnarTableDataSource outputTable) throws IOException {
+		if(checkpoint != null) {
+			final ColumnarTableDataSource checkpointRows = createOutputTable();
+			checkpointRows.appendRows(sessionTable);
+			final int resultCol = checkpointRows.getColumnIndex("Result");
+			for(int row = 0; row < checkpointRows.getRowCount() && resultCol >= 0; row++) {
+				checkpointRows.setValueAt(row, resultCol, rowResults.get(row));
+			}
+
+			final Map<Result, Integer> resultIndexes = new IdentityHashMap<>();
+			for(int i = 0; i < results.size(); i++) resultIndexes.putIfAbsent(results.get(i), i);
+			final int warningResultCol = warningsTable.getColumnIndex("Result");
+			final int warningCol = warningsTable.getColumnIndex("Warning");
+			final List<ReportCheckpoint.Warning> warnings = new ArrayList<>();
+			for(int row = firstWarningRow; row < warningsTable.getRowCount(); row++) {
+				final Integer resultIdx = resultIndexes.get(warningsTable.getValueAt(row, warningResultCol));
+				if(resultIdx == null) continue;
+				warnings.add(new ReportCheckpoint.Warning(resultIdx, String.valueOf(warningsTable.getValueAt(row, warningCol))));
+			}
+			checkpoint.markComplete(sessionPath, fingerprint, checkpointRows, warnings);
+
+			if(sessionTable != outputTable) {
+				outputTable.appendRows(sessionTable);
+				sessionTable.clear();
+			}
+		}
+		flushRows(outputTable, true);
+	}
+
+	/**
+	 * Create a new config from current settings.  Subclasses should
+	 * override this method to attach their own settings using
+	 * {@link PraatNodeConfig#with(Class, Object)}.  This method
+	 * may read values from Swing components and must not compile
+	 * the interval filter.
+	 *
+	 * @return config
+	 */
+	protected PraatNodeConfig createConfig() {
+		final PraatNodeConfig.IntervalMode intervalMode =
+				(isUseRecordInterval() ? PraatNodeConfig.IntervalMode.RECORD
+						: isUseTextGridInterval() ? PraatNodeConfig.IntervalMode.TEXTGRID
+								: PraatNodeConfig.IntervalMode.COLUMN);
+		return new PraatNodeConfig(intervalMode, getTextGridTier(), getIntervalFilter(), getColumn());
+	}
+
+	/**
+	 * Take a snapshot of current settings.  If the settings panel has been
+	 * created values are read on the event dispatch thread.
+	 *
+	 * @return config
+	 */
+	public PraatNodeConfig snapshotConfig() {
+		if(settingsPanel != null && !SwingUtilities.isEventDispatchThread()) {
+			final AtomicReference<PraatNodeConfig> configRef = new AtomicReference<>();
+			try {
+				SwingUtilities.invokeAndWait(() -> configRef.set(createConfig()));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (InvocationTargetException e) {
+				LOGGER.log(Level.WARNING, e.getLocalizedMessage(), e);
+			}
+			if(configRef.get() != null)
+				return configRef.get();
 		}
+		return createConfig();
+	}
+
+	/**
+	 * Config used for the current operation.  If called outside of
+	 * operate a new config is created from current settings, the
+	 * interval filter of this config is not compiled.
+	 *
+	 * @return config
+	 */
+	public PraatNodeConfig getConfig() {
+		final PraatNodeConfig config = this.operateConfig;
+		return (config != null ? config : createConfig());
+	}
+
+	/**
+	 * Wait for the Praat library and snapshot settings for the current operation
+	 *
+	 * @return config
+	 * @throws ProcessingException if the interval filter is not valid
+	 * @throws UnsatisfiedLinkError if the Praat library could not be loaded
+	 */
+	protected PraatNodeConfig beginOperate() throws ProcessingException {
+		PraatLibrary.await();
+		try {
+			operateConfig = snapshotConfig().compileIntervalFilter();
+		} catch (PatternSyntaxException e) {
+			throw new ProcessingException(null, e);
+		}
+		return operateConfig;
+	}
+
+	protected void endOperate() {
+		operateConfig = null;
 	}
 
 	/**
@@ -590,10 +1037,62 @@ public abstract class PraatNode extends TableOpNode implements NodeSettings {
 			this.textGridTierField.setText(textGridTier);
 	}
 
+	public boolean isStreamToFile() {
+		return (this.streamToFileBox != null ? this.streamToFileBox.isSelected() : streamToFile);
+	}
+
+	public void setStreamToFile(boolean streamToFile) {
+		this.streamToFile = streamToFile;
+		if(this.streamToFileBox != null)
+			this.streamToFileBox.setSelected(streamToFile);
+	}
+
+	public String getStreamFile() {
+		return (this.streamFileField != null ? this.streamFileField.getText() : streamFile);
+	}
+
+	public void setStreamFile(String streamFile) {
+		this.streamFile = streamFile;
+		if(this.streamFileField != null)
+			this.streamFileField.setText(streamFile);
+	}
+
+	public TableStreamWriter.Format getStreamFormat() {
+		return (this.streamFormatBox != null ? (TableStreamWriter.Format)this.streamFormatBox.getSelectedItem() : streamFormat);
+	}
+
+	public void setStreamFormat(TableStreamWriter.Format streamFormat) {
+		this.streamFormat = streamFormat;
+		if(this.streamFormatBox != null)
+			this.streamFormatBox.setSelectedItem(streamFormat);
+	}
+
+	public String getCheckpointFolder() {
+		return (this.checkpointFolderField != null ? this.checkpointFolderField.getText() : checkpointFolder);
+	}
+
+	public void setCheckpointFolder(String checkpointFolder) {
+		this.checkpointFolder = checkpointFolder;
+		if(this.checkpointFolderField != null)
+			this.checkpointFolderField.setText(checkpointFolder);
+	}
+
+	/**
+	 * Does this node measure audio?  If <code>false</code> the session media
+	 * is not opened and <code>longSound</code> will be <code>null</code>
+	 * in {@link #addRowToTable(LongSound, TextGridIndex, TextInterval, Session, SessionPath, MediaSegment, Result, ResultValue, Object, ColumnarTableDataSource)}.
+	 *
+	 * @return <code>true</code> by default
+	 */
+	public boolean requiresAudio() {
+		return true;
+	}
+
 	/**
 	 * Add data to output table
 	 *
-	 * @param longSound
+	 * @param longSound may be <code>null</code> if {@link #requiresAudio()} is <code>false</code>
+	 * @param textGrid TextGrid data for the session
 	 * @param textInerval
 	 * @param sessionPath
 	 * @param result
@@ -601,12 +1100,45 @@ public abstract class PraatNode extends TableOpNode implements NodeSettings {
 	 * @param value
 	 * @param table
 	 */
-	public abstract void addRowToTable(LongSound longSound, TextGrid textGrid, TextInterval textInerval,
+	public abstract void addRowToTable(LongSound longSound, TextGridIndex textGrid, TextInterval textInerval,
 			Session session, SessionPath sessionPath, MediaSegment segment, Result result, ResultValue rv, Object value,
-			DefaultTableDataSource table);
+			ColumnarTableDataSource table);
 
 	public abstract List<String> getColumnNames();
 
+	/**
+	 * Storage type used for the given output column.  By default
+	 * session, speaker, tier and text columns are dictionary encoded,
+	 * columns identifying the result are stored as objects and all
+	 * other columns are assumed to be numeric measures.
+	 *
+	 * @param columnName
+	 * @return column type
+	 */
+	protected ColumnarTableDataSource.ColumnType getColumnType(String columnName) {
+		final PraatNodeConfig config = getConfig();
+		return switch(columnName) {
+			case "Session", "Speaker", "Tier", "Text" -> ColumnarTableDataSource.ColumnType.DICTIONARY;
+			case "Age", "Record #", "Result" -> ColumnarTableDataSource.ColumnType.OBJECT;
+			default -> (config.isUseColumnInterval() && columnName.equals(config.getColumn())
+					? ColumnarTableDataSource.ColumnType.OBJECT : ColumnarTableDataSource.ColumnType.DOUBLE);
+		};
+	}
+
+	/**
+	 * Create an empty output table using the columns provided by
+	 * {@link #getColumnNames()}
+	 *
+	 * @return output table
+	 */
+	protected ColumnarTableDataSource createOutputTable() {
+		final ColumnarTableDataSource retVal = new ColumnarTableDataSource();
+		for(String colName:getColumnNames()) {
+			retVal.addColumn(colName, getColumnType(colName));
+		}
+		return retVal;
+	}
+
 	private JPanel createSettingsPanel() {
 		final JPanel retVal = new JPanel();
 
@@ -671,9 +1203,42 @@ public abstract class PraatNode extends TableOpNode implements NodeSettings {
 		gbc.insets = new Insets(2, 20, 2, 2);
 		retVal.add(columnField, gbc);
 
+		streamToFileBox = new JCheckBox("Stream rows to file");
+		streamToFileBox.setSelected(streamToFile);
+		streamFileField = new PromptedTextField("Enter output file path");
+		streamFileField.setText(streamFile);
+		streamFormatBox = new JComboBox<>(TableStreamWriter.Format.values());
+		streamFormatBox.setSelectedItem(streamFormat);
+		final ActionListener streamListener = (e) -> {
+			this.streamFileField.setEnabled(this.streamToFileBox.isSelected());
+			this.streamFormatBox.setEnabled(this.streamToFileBox.isSelected());
+		};
+		streamToFileBox.addActionListener(streamListener);
+
+		final JPanel streamPanel = new JPanel(new BorderLayout());
+		streamPanel.add(streamFileField, BorderLayout.CENTER);
+		streamPanel.add(streamFormatBox, BorderLayout.EAST);
+
+		++gbc.gridy;
+		gbc.insets = new Insets(5, 2, 2, 2);
+		retVal.add(new JXTitledSeparator("Output"), gbc);
+		++gbc.gridy;
+		gbc.insets = new Insets(2, 2, 2, 2);
+		retVal.add(streamToFileBox, gbc);
+		++gbc.gridy;
+		gbc.insets = new Insets(2, 20, 2, 2);
+		retVal.add(streamPanel, gbc);
+
+		checkpointFolderField = new PromptedTextField("Enter folder for checkpoints and cached results (leave empty to disable)");
+		checkpointFolderField.setText(checkpointFolder);
+		++gbc.gridy;
+		gbc.insets = new Insets(2, 2, 2, 2);
+		retVal.add(checkpointFolderField, gbc);
+
 		recordIntervalBox.setSelected(useRecordInterval);
 		textGridTierBox.setSelected(useTextGridInterval);
 		fromColumnBox.setSelected(useColumnInterval);
+		streamListener.actionPerformed(null);
 
 		return retVal;
 	}
@@ -695,6 +1260,10 @@ public abstract class PraatNode extends TableOpNode implements NodeSettings {
 		retVal.put("intervalFilter", getIntervalFilter());
 		retVal.put("useColumnInterval", Boolean.toString(isUseColumnInterval()));
 		retVal.put("column", getColumn());
+		retVal.put("streamToFile", Boolean.toString(isStreamToFile()));
+		retVal.put("streamFile", getStreamFile());
+		retVal.put("streamFormat", getStreamFormat().name());
+		retVal.put("checkpointFolder", getCheckpointFolder());
 		return retVal;
 	}
 
@@ -706,6 +1275,15 @@ public abstract class PraatNode extends TableOpNode implements NodeSettings {
 		setIntervalFilter(properties.getProperty("intervalFilter", ""));
 		setUseColumnInterval(Boolean.parseBoolean(properties.getProperty("useColumnInterval", "true")));
 		setColumn(properties.getProperty("column", "IPA Actual"));
+		setStreamToFile(Boolean.parseBoolean(properties.getProperty("streamToFile", "false")));
+		setStreamFile(properties.getProperty("streamFile", ""));
+		setCheckpointFolder(properties.getProperty("checkpointFolder", ""));
+		try {
+			setStreamFormat(TableStreamWriter.Format.valueOf(properties.getProperty("streamFormat", TableStreamWriter.Format.CSV.name())));
+		} catch (IllegalArgumentException e) {
+			LOGGER.log(Level.WARNING, e.getLocalizedMessage(), e);
+			setStreamFormat(TableStreamWriter.Format.CSV);
+		}
 	}
 
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat.opgraph;
+
+import java.util.*;
+
+/**
+ * Immutable snapshot of {@link PraatNode} settings.  A snapshot is taken
+ * at the start of operate so that the analysis loop never reads values
+ * from Swing components or re-compiles the interval filter.  The interval
+ * filter is only compiled by {@link #compileIntervalFilter()}, configs
+ * used to list output columns never compile the filter.
+ *
+ * Subclasses may attach their own settings objects using {@link #with(Class, Object)}.
+ */
+public final class PraatNodeConfig {
+
+	/**
+	 * Source of intervals passed to {@link PraatNode#addRowToTable}
+	 */
+	public static enum IntervalMode {
+		RECORD,
+		TEXTGRID,
+		COLUMN
+	}
+
+	private final IntervalMode intervalMode;
+
+	private final String textGridTier;
+
+	private final String intervalFilterText;
+
+	private final IntervalFilter intervalFilter;
+
+	private final String column;
+
+	private final Map<Class<?>, Object> extensions;
+
+	public PraatNodeConfig(IntervalMode intervalMode, String textGridTier, String intervalFilter, String column) {
+		this(intervalMode, textGridTier, intervalFilter, null, column, Map.of());
+	}
+
+	private PraatNodeConfig(IntervalMode intervalMode, String textGridTier, String intervalFilterText,
+			IntervalFilter intervalFilter, String column, Map<Class<?>, Object> extensions) {
+		super();
+		this.intervalMode = intervalMode;
+		this.textGridTier = textGridTier;
+		this.intervalFilterText = (intervalFilterText != null ? intervalFilterText : "");
+		this.intervalFilter = intervalFilter;
+		this.column = column;
+		this.extensions = extensions;
+	}
+
+	/**
+	 * Create a copy of this config with the given settings object attached.
+	 *
+	 * @param type
+	 * @param value
+	 *
+	 * @return new config
+	 */
+	public <T> PraatNodeConfig with(Class<T> type, T value) {
+		final Map<Class<?>, Object> newExtensions = new HashMap<>(extensions);
+		newExtensions.put(type, value);
+		return new PraatNodeConfig(intervalMode, textGridTier, intervalFilterText, intervalFilter, column,
+				Collections.unmodifiableMap(newExtensions));
+	}
+
+	/**
+	 * Create a copy of this config with a compiled interval filter.
+	 *
+	 * @return new config
+	 * @throws java.util.regex.PatternSyntaxException if the interval filter is not valid
+	 */
+	public PraatNodeConfig compileIntervalFilter() {
+		return new PraatNodeConfig(intervalMode, textGridTier, intervalFilterText,
+				IntervalFilter.compile(intervalFilterText), column, extensions);
+	}
+
+	/**
+	 * Get settings object attached using {@link #with(Class, Object)}
+	 *
+	 * @param type
+	 *
+	 * @return settings object or <code>null</code>
+	 */
+	public <T> T get(Class<T> type) {
+		return type.cast(extensions.get(type));
+	}
+
+	public IntervalMode getIntervalMode() {
+		return this.intervalMode;
+	}
+
+	public boolean isUseRecordInterval() {
+		return this.intervalMode == IntervalMode.RECORD;
+	}
+
+	public boolean isUseTextGridInterval() {
+		return this.intervalMode == IntervalMode.TEXTGRID;
+	}
+
+	public boolean isUseColumnInterval() {
+		return this.intervalMode == IntervalMode.COLUMN;
+	}
+
+	public String getTextGridTier() {
+		return this.textGridTier;
+	}
+
+	public String getIntervalFilterText() {
+		return this.intervalFilterText;
+	}
+
+	/**
+	 * Compiled interval filter
+	 *
+	 * @return interval filter
+	 * @throws IllegalStateException if {@link #compileIntervalFilter()} has not been called
+	 */
+	public IntervalFilter getIntervalFilter() {
+		if(this.intervalFilter == null)
+			throw new IllegalStateException("Interval filter not compiled");
+		return this.intervalFilter;
+	}
+
+	public String getColumn() {
+		return this.column;
+	}
+
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat.opgraph;
+
+import ca.phon.session.SessionPath;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.*;
+import java.util.*;
+
+/**
+ * Persists rows produced by a {@link PraatNode} after each completed session
+ * so that an interrupted report can be resumed and sessions which have not
+ * changed since a previous run are not analysed again.  Data is stored in a
+ * sub-folder of the work folder named using a hash of the node settings,
+ * a re-run with different settings will not re-use previous rows.  Each
+ * completed session also records a fingerprint of its input files
+ * (see {@link #inputFingerprint(File...)}), rows are only re-used
+ * if the fingerprint has not changed.
+ *
+ * <pre>
+ * &lt;workFolder&gt;/&lt;settingsHash&gt;/progress.txt      - session path and input fingerprint, one line per completed session
+ * &lt;workFolder&gt;/&lt;settingsHash&gt;/&lt;sessionHash&gt;.ctbl - rows for session
+ * &lt;workFolder&gt;/&lt;settingsHash&gt;/&lt;sessionHash&gt;.warnings - warnings for session, one line per warning
+ * </pre>
+ */
+public class ReportCheckpoint {
+
+	private final static String PROGRESS_FILE = "progress.txt";
+
+	private final static String ROWS_EXT = ".ctbl";
+
+	private final static String WARNINGS_EXT = ".warnings";
+
+	/**
+	 * Warning produced while analysing a session.
+	 *
+	 * @param resultIndex index of the input result within the session
+	 * @param message
+	 */
+	public record Warning(int resultIndex, String message) {}
+
+	private final File folder;
+
+	private final String settingsHash;
+
+	/* session path -> input fingerprint */
+	private final Map<String, String> completedSessions = new LinkedHashMap<>();
+
+	public ReportCheckpoint(File workFolder, String settingsHash) throws IOException {
+		super();
+
+		this.settingsHash = settingsHash;
+		this.folder = new File(workFolder, settingsHash);
+		if(!folder.exists() && !folder.mkdirs()) {
+			throw new IOException("Unable to create checkpoint folder " + folder.getAbsolutePath());
+		}
+		loadProgress();
+	}
+
+	/**
+	 * Create a hash for the given node settings.  Keys are sorted so the
+	 * result does not depend on property iteration order.
+	 *
+	 * @param nodeId
+	 * @param settings
+	 *
+	 * @return hex encoded SHA-256 hash
+	 */
+	public static String settingsHash(String nodeId, Properties settings) {
+		final StringBuilder sb = new StringBuilder();
+		sb.append(nodeId).append('\n');
+		for(String key:new TreeSet<>(settings.stringPropertyNames())) {
+			sb.append(key).append('=').append(settings.getProperty(key)).append('\n');
+		}
+		return sha256(sb.toString());
+	}
+
+	static String sha256(String text) {
+		try {
+			final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Create a fingerprint for the given input files using path, size and
+	 * modification time.  Missing files (or <code>null</code> values) are
+	 * included in the fingerprint as absent.
+	 *
+	 * @param files
+	 *
+	 * @return hex encoded SHA-256 hash
+	 */
+	public static String inputFingerprint(File... files) {
+		final StringBuilder sb = new StringBuilder();
+		for(File file:files) {
+			if(file == null || !file.exists()) {
+				sb.append('-');
+			} else {
+				sb.append(file.getAbsolutePath()).append('|')
+					.append(file.length()).append('|')
+					.append(file.lastModified());
+			}
+			sb.append('\n');
+		}
+		return sha256(sb.toString());
+	}
+
+	public String getSettingsHash() {
+		return this.settingsHash;
+	}
+
+	public File getFolder() {
+		return this.folder;
+	}
+
+	private File getProgressFile() {
+		return new File(folder, PROGRESS_FILE);
+	}
+
+	private File getRowsFile(String sessionKey) {
+		return new File(folder, sha256(sessionKey) + ROWS_EXT);
+	}
+
+	private File getWarningsFile(String sessionKey) {
+		return new File(folder, sha256(sessionKey) + WARNINGS_EXT);
+	}
+
+	private void loadProgress() throws IOException {
+		final File progressFile = getProgressFile();
+		if(!progressFile.exists()) return;
+
+		final List<String> lines = Files.readAllLines(progressFile.toPath(), StandardCharsets.UTF_8);
+		for(String line:lines) {
+			if(line.isBlank()) continue;
+			final int tabIdx = line.lastIndexOf('\t');
+			final String sessionKey = (tabIdx >= 0 ? line.substring(0, tabIdx) : line);
+			final String fingerprint = (tabIdx >= 0 ? line.substring(tabIdx + 1) : "");
+			// ignore sessions whose row data has gone missing,
+			// later entries replace earlier entries for the same session
+			if(getRowsFile(sessionKey).exists())
+				completedSessions.put(sessionKey, fingerprint);
+		}
+
+		// compact progress file if sessions were re-computed
+		if(completedSessions.size() < lines.size()) {
+			writeProgress();
+		}
+	}
+
+	private void writeProgress() throws IOException {
+		final File progressFile = getProgressFile();
+		final File tmpFile = new File(folder, PROGRESS_FILE + ".tmp");
+		try(final FileOutputStream out = new FileOutputStream(tmpFile)) {
+			for(var entry:completedSessions.entrySet()) {
+				out.write((entry.getKey() + "\t" + entry.getValue() + "\n").getBytes(StandardCharsets.UTF_8));
+			}
+			out.getFD().sync();
+		}
+		Files.move(tmpFile.toPath(), progressFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Has the given session been completed in a previous run with
+	 * the same input files?
+	 *
+	 * @param sessionPath
+	 * @param fingerprint input fingerprint for the session
+	 *
+	 * @return <code>true</code> if rows for the session are available and up-to-date
+	 */
+	public boolean isComplete(SessionPath sessionPath, String fingerprint) {
+		return fingerprint.equals(completedSessions.get(sessionPath.toString()));
+	}
+
+	/**
+	 * Persist rows and warnings for a completed session and record the
+	 * session in the progress file.  Data is written to temporary files
+	 * first so that a crash cannot leave a partial rows file
+	 * marked as complete.
+	 *
+	 * @param sessionPath
+	 * @param fingerprint input fingerprint for the session
+	 * @param rows
+	 * @param warnings
+	 *
+	 * @throws IOException
+	 */
+	public void markComplete(SessionPath sessionPath, String fingerprint, ColumnarTableDataSource rows,
+			List<Warning> warnings) throws IOException {
+		final File warningsFile = getWarningsFile(sessionPath.toString());
+		final File tmpWarningsFile = new File(folder, warningsFile.getName() + ".tmp");
+		try(final FileOutputStream out = new FileOutputStream(tmpWarningsFile)) {
+			for(Warning warning:warnings) {
+				out.write((warning.resultIndex() + "\t" + escape(warning.message()) + "\n").getBytes(StandardCharsets.UTF_8));
+			}
+			out.getFD().sync();
+		}
+		Files.move(tmpWarningsFile.toPath(), warningsFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		final File rowsFile = getRowsFile(sessionPath.toString());
+		final File tmpFile = new File(folder, rowsFile.getName() + ".tmp");
+		try(final BinaryTableStreamWriter writer = new BinaryTableStreamWriter(tmpFile)) {
+			writer.writeRows(rows);
+		}
+		Files.move(tmpFile.toPath(), rowsFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		try(final FileOutputStream out = new FileOutputStream(getProgressFile(), true)) {
+			out.write((sessionPath.toString() + "\t" + fingerprint + "\n").getBytes(StandardCharsets.UTF_8));
+			out.getFD().sync();
+		}
+		completedSessions.put(sessionPath.toString(), fingerprint);
+	}
+
+	/**
+	 * Append rows stored for the given session to a table.
+	 *
+	 * @param sessionPath
+	 * @param table
+	 *
+	 * @return number of rows loaded
+	 * @throws IOException
+	 */
+	public int loadRows(SessionPath sessionPath, ColumnarTableDataSource table) throws IOException {
+		try(final BinaryTableStreamReader reader = new BinaryTableStreamReader(getRowsFile(sessionPath.toString()))) {
+			return reader.readRows(table);
+		}
+	}
+
+	/**
+	 * Warnings stored for the given session.  Sessions completed before
+	 * warnings were stored have no warnings.
+	 *
+	 * @param sessionPath
+	 *
+	 * @return warnings in the order they were produced
+	 * @throws IOException
+	 */
+	public List<Warning> loadWarnings(SessionPath sessionPath) throws IOException {
+		final File warningsFile = getWarningsFile(sessionPath.toString());
+		if(!warningsFile.exists()) return List.of();
+
+		final List<Warning> retVal = new ArrayList<>();
+		for(String line:Files.readAllLines(warningsFile.toPath(), StandardCharsets.UTF_8)) {
+			if(line.isEmpty()) continue;
+			final int tabIdx = line.indexOf('\t');
+			if(tabIdx < 0) throw new IOException("Invalid warning in " + warningsFile.getName() + ": " + line);
+			try {
+				retVal.add(new Warning(Integer.parseInt(line.substring(0, tabIdx)), unescape(line.substring(tabIdx + 1))));
+			} catch (NumberFormatException e) {
+				throw new IOException("Invalid warning in " + warningsFile.getName() + ": " + line, e);
+			}
+		}
+		return retVal;
+	}
+
+	private static String escape(String text) {
+		return (text == null ? "" : text.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t"));
+	}
+
+	private static String unescape(String text) {
+		final StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < text.length(); i++) {
+			final char c = text.charAt(i);
+			if(c == '\\' && i + 1 < text.length()) {
+				final char next = text.charAt(++i);
+				switch(next) {
+					case 'n' -> sb.append('\n');
+					case 'r' -> sb.append('\r');
+					case 't' -> sb.append('\t');
+					default -> sb.append(next);
+				}
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Remove all checkpoint data for the current settings
+	 *
+	 * @throws IOException
+	 */
+	public void clear() throws IOException {
+		final File[] files = folder.listFiles();
+		if(files != null) {
+			for(File file:files) Files.deleteIfExists(file.toPath());
+		}
+		completedSessions.clear();
+	}
+
+}
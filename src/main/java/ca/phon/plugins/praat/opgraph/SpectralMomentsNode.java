@@ -22,7 +22,6 @@ import ca.phon.opgraph.app.GraphDocument;
 import ca.phon.opgraph.app.extensions.NodeSettings;
 import ca.phon.plugins.praat.*;
 import ca.phon.query.db.*;
-import ca.phon.query.report.datasource.DefaultTableDataSource;
 import ca.phon.session.Record;
 import ca.phon.session.*;
 import org.jdesktop.swingx.JXTitledSeparator;
@@ -55,10 +54,11 @@ public class SpectralMomentsNode extends PraatNode implements NodeSettings {
 	}
 	
 	@Override
-	public void addRowToTable(LongSound longSound, TextGrid textGrid, TextInterval textInterval,
+	public void addRowToTable(LongSound longSound, TextGridIndex textGrid, TextInterval textInterval,
 			Session session, SessionPath sessionPath,
-			MediaSegment segment, Result result, ResultValue rv, Object value, DefaultTableDataSource table) {
-		final SpectralMomentsSettings settings = getSpectrumSettings();
+			MediaSegment segment, Result result, ResultValue rv, Object value, ColumnarTableDataSource table) {
+		final PraatNodeConfig config = getConfig();
+		final SpectralMomentsSettings settings = config.get(SpectralMomentsSettings.class);
 		final double xmin = segment.getStartValue()/1000.0;
 		final double xmax = segment.getEndValue()/1000.0;
 
@@ -74,37 +74,39 @@ public class SpectralMomentsNode extends PraatNode implements NodeSettings {
 						spectrum.formula(formula, Interpreter.create(), null);
 					}
 					
-					int cols = getColumnNames().size();
+					// compute measures before adding row to table
+					final double centreOfGravity = spectrum.getCentreOfGravity(2);
+					final double standardDeviation = spectrum.getStandardDeviation(2);
+					final double kurtosis = spectrum.getKurtosis(2);
+					final double skewness = spectrum.getSkewness(2);
 					
 					final Record r = (result.getRecordIndex() < session.getRecordCount() ? session.getRecord(result.getRecordIndex()) : null);
 					final Participant speaker = (r != null ? r.getSpeaker() : Participant.UNKNOWN);
 					
-					Object[] rowData = new Object[cols];
+					final int row = table.addRow();
 					int colIdx = 0;
-					rowData[colIdx++] = sessionPath;
-					rowData[colIdx++] = speaker;
-					rowData[colIdx++] = (speaker != Participant.UNKNOWN ? speaker.getAge(session.getDate()) : "");
-					rowData[colIdx++] = result.getRecordIndex()+1;
-					rowData[colIdx++] = result;
+					table.setValueAt(row, colIdx++, sessionPath);
+					table.setValueAt(row, colIdx++, speaker);
+					table.setValueAt(row, colIdx++, (speaker != Participant.UNKNOWN ? speaker.getAge(session.getDate()) : ""));
+					table.setValueAt(row, colIdx++, result.getRecordIndex()+1);
+					table.setValueAt(row, colIdx++, result);
 					
-					if(isUseRecordInterval()) {
+					if(config.isUseRecordInterval()) {
 						// add nothing
-					} else if(isUseTextGridInterval()) {
-						rowData[colIdx++] = textInterval.getText();
+					} else if(config.isUseTextGridInterval()) {
+						table.setValueAt(row, colIdx++, textInterval.getText());
 					} else {
-						rowData[colIdx++] = rv.getTierName();
-						rowData[colIdx++] = value;
+						table.setValueAt(row, colIdx++, rv.getTierName());
+						table.setValueAt(row, colIdx++, value);
 					}
 					
-					rowData[colIdx++] = textInterval.getXmin();
-					rowData[colIdx++] = textInterval.getXmax();
-					
-					rowData[colIdx++] = spectrum.getCentreOfGravity(2);
-					rowData[colIdx++] = spectrum.getStandardDeviation(2);
-					rowData[colIdx++] = spectrum.getKurtosis(2);
-					rowData[colIdx++] = spectrum.getSkewness(2);
+					table.setDouble(row, colIdx++, textInterval.getXmin());
+					table.setDouble(row, colIdx++, textInterval.getXmax());
 					
-					table.addRow(rowData);
+					table.setDouble(row, colIdx++, centreOfGravity);
+					table.setDouble(row, colIdx++, standardDeviation);
+					table.setDouble(row, colIdx++, kurtosis);
+					table.setDouble(row, colIdx++, skewness);
 				}
 			}
 		} catch (Exception e) {
@@ -125,6 +127,7 @@ public class SpectralMomentsNode extends PraatNode implements NodeSettings {
 	
 	@Override
 	public List<String> getColumnNames() {
+		final PraatNodeConfig config = getConfig();
 		final List<String> colNames = new ArrayList<>();
 		colNames.add("Session");
 		colNames.add("Speaker");
@@ -132,13 +135,13 @@ public class SpectralMomentsNode extends PraatNode implements NodeSettings {
 		colNames.add("Record #");
 		colNames.add("Result");
 		
-		if(isUseRecordInterval()) {
+		if(config.isUseRecordInterval()) {
 			// no extra tiers
-		} else if (isUseTextGridInterval()) {
+		} else if (config.isUseTextGridInterval()) {
 			colNames.add("Text");
 		} else {
 			colNames.add("Tier");
-			colNames.add(getColumn());
+			colNames.add(config.getColumn());
 		}
 		
 		colNames.add("Start Time(s)");
@@ -157,7 +160,7 @@ public class SpectralMomentsNode extends PraatNode implements NodeSettings {
 		if(settingsPanel == null) {
 			final GridBagConstraints gbc = new GridBagConstraints();
 			gbc.gridx = 0;
-			gbc.gridy = 7;
+			gbc.gridy = 11;
 			gbc.weightx = 1.0;
 			gbc.weighty = 0.0;
 			gbc.fill = GridBagConstraints.HORIZONTAL;
@@ -179,6 +182,11 @@ public class SpectralMomentsNode extends PraatNode implements NodeSettings {
 		return settingsPanel;
 	}
 
+	@Override
+	protected PraatNodeConfig createConfig() {
+		return super.createConfig().with(SpectralMomentsSettings.class, getSpectrumSettings());
+	}
+
 	@Override
 	public Properties getSettings() {
 		final Properties retVal = super.getSettings();
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat.opgraph;
+
+import java.io.*;
+
+/**
+ * Writes rows of a {@link ColumnarTableDataSource} to a file as they are
+ * produced.  Callers append rows to a table, call {@link #writeRows(ColumnarTableDataSource)}
+ * and then clear the table so that memory use is bounded by the size
+ * of a single chunk.  The column layout is taken from the first chunk written.
+ */
+public abstract class TableStreamWriter implements Closeable {
+
+	/**
+	 * Supported output formats
+	 */
+	public static enum Format {
+		CSV("CSV", "csv"),
+		BINARY("Binary columnar", "ctbl");
+
+		private final String title;
+
+		private final String extension;
+
+		private Format(String title, String extension) {
+			this.title = title;
+			this.extension = extension;
+		}
+
+		public String getTitle() {
+			return this.title;
+		}
+
+		public String getExtension() {
+			return this.extension;
+		}
+
+		@Override
+		public String toString() {
+			return getTitle();
+		}
+
+	}
+
+	private final File file;
+
+	public TableStreamWriter(File file) {
+		super();
+		this.file = file;
+	}
+
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Create a new writer for the given format
+	 *
+	 * @param file
+	 * @param format
+	 *
+	 * @return writer
+	 * @throws IOException
+	 */
+	public static TableStreamWriter create(File file, Format format) throws IOException {
+		if(file.getParentFile() != null && !file.getParentFile().exists()) {
+			if(!file.getParentFile().mkdirs())
+				throw new IOException("Unable to create folder " + file.getParent());
+		}
+		return switch(format) {
+			case BINARY -> new BinaryTableStreamWriter(file);
+			default -> new CSVTableStreamWriter(file);
+		};
+	}
+
+	/**
+	 * Write all rows in the given table.
+	 *
+	 * @param table
+	 * @throws IOException
+	 */
+	public abstract void writeRows(ColumnarTableDataSource table) throws IOException;
+
+	/**
+	 * Flush buffered output to disk
+	 *
+	 * @throws IOException
+	 */
+	public abstract void flush() throws IOException;
+
+}
@@ -16,13 +16,11 @@
 package ca.phon.plugins.praat.opgraph;
 
 import ca.hedlund.jpraat.binding.fon.*;
-import ca.hedlund.jpraat.exceptions.PraatException;
-import ca.phon.app.log.LogUtil;
+import ca.phon.plugins.praat.TextGridIndex;
 import ca.phon.opgraph.OpNodeInfo;
 import ca.phon.opgraph.app.GraphDocument;
 import ca.phon.opgraph.app.extensions.NodeSettings;
 import ca.phon.query.db.*;
-import ca.phon.query.report.datasource.DefaultTableDataSource;
 import ca.phon.session.Record;
 import ca.phon.session.*;
 import ca.phon.ui.text.PromptedTextField;
@@ -51,7 +49,12 @@ public class VOTNode extends PraatNode implements NodeSettings {
 	private JPanel settingsPanel;
 	private PromptedTextField votTierNameField;
 	
-	private final Collection<TextPoint> processedPoints = new ArrayList<>();
+	/* processed points in vot tier of current TextGrid */
+	private TextGridIndex processedIndex;
+	private final BitSet processedPoints = new BitSet();
+
+	/* VOT settings attached to node config */
+	private record VOTOptions(String votTier, float threshold) {}
 	
 	public VOTNode() {
 		super();
@@ -60,24 +63,30 @@ public class VOTNode extends PraatNode implements NodeSettings {
 	}
 	
 	@Override
-	public void addRowToTable(LongSound longSound, TextGrid textGrid, TextInterval textInterval, 
+	public void addRowToTable(LongSound longSound, TextGridIndex textGridIndex, TextInterval textInterval, 
 			Session session, SessionPath sessionPath,
-			MediaSegment segment, Result result, ResultValue rv, Object value, DefaultTableDataSource table) {
+			MediaSegment segment, Result result, ResultValue rv, Object value, ColumnarTableDataSource table) {
+		final PraatNodeConfig config = getConfig();
 		// check for vot tier
-		final Optional<TextTier> votTier = findVoTTier(textGrid);
-		if(!votTier.isPresent()) {
+		final TextGridIndex.TierIndex votTier = textGridIndex.getTier(config.get(VOTOptions.class).votTier());
+		if(votTier == null || !votTier.isPointTier()) {
 			addToWarningsTable(sessionPath, result, "VoT tier not found");
 			return;
 		}
+		if(textGridIndex != processedIndex) {
+			processedPoints.clear();
+			processedIndex = textGridIndex;
+		}
 		
 		// find vot point for given interval
-		final Optional<TextPoint> votPoint = findVoTPoint(votTier.get(), textInterval);
-		if(!votPoint.isPresent()) {
+		final int votPointIdx = findVoTPoint(votTier, textInterval);
+		if(votPointIdx < 0) {
 			addToWarningsTable(sessionPath, result, "VoT point not found in VoT tier");
 			return;
 		}
+		final double votTime = votTier.getTime(votPointIdx);
 		
-		final double vot = votPoint.get().getNumber() - textInterval.getXmax();
+		final double vot = votTime - textInterval.getXmax();
 		
 		// add row
 		int col = 0;
@@ -85,33 +94,32 @@ public class VOTNode extends PraatNode implements NodeSettings {
 		final Record r = (result.getRecordIndex() < session.getRecordCount() ? session.getRecord(result.getRecordIndex()) : null);
 		final Participant speaker = (r != null ? r.getSpeaker() : Participant.UNKNOWN);
 		
-		final Object rowData[] = new Object[getColumnNames().size()];
-		rowData[col++] = sessionPath;
-		rowData[col++] = speaker;
-		rowData[col++] = (speaker != Participant.UNKNOWN ? speaker.getAge(session.getDate()) : "");
-		rowData[col++] = result.getRecordIndex()+1;
-		rowData[col++] = result;
+		final int row = table.addRow();
+		table.setValueAt(row, col++, sessionPath);
+		table.setValueAt(row, col++, speaker);
+		table.setValueAt(row, col++, (speaker != Participant.UNKNOWN ? speaker.getAge(session.getDate()) : ""));
+		table.setValueAt(row, col++, result.getRecordIndex()+1);
+		table.setValueAt(row, col++, result);
 
-		if(isUseRecordInterval()) {
+		if(config.isUseRecordInterval()) {
 			// add nothing
-		} else if(isUseTextGridInterval()) {
-			rowData[col++] = textInterval.getText();
+		} else if(config.isUseTextGridInterval()) {
+			table.setValueAt(row, col++, textInterval.getText());
 		} else {
-			rowData[col++] = rv.getTierName();
-			rowData[col++] = value;
+			table.setValueAt(row, col++, rv.getTierName());
+			table.setValueAt(row, col++, value);
 		}
 
-		rowData[col++] = textInterval.getXmin();
-		rowData[col++] = textInterval.getXmax();
-		rowData[col++] = votPoint.get().getNumber();
-		rowData[col++] = (textInterval.getXmax() - textInterval.getXmin()) + vot;
-		rowData[col++] = vot;
-		
-		table.addRow(rowData);
+		table.setDouble(row, col++, textInterval.getXmin());
+		table.setDouble(row, col++, textInterval.getXmax());
+		table.setDouble(row, col++, votTime);
+		table.setDouble(row, col++, (textInterval.getXmax() - textInterval.getXmin()) + vot);
+		table.setDouble(row, col++, vot);
 	}
 
 	@Override
 	public List<String> getColumnNames() {
+		final PraatNodeConfig config = getConfig();
 		final List<String> colNames = new ArrayList<>();
 		colNames.add("Session");
 		colNames.add("Speaker");
@@ -119,13 +127,13 @@ public class VOTNode extends PraatNode implements NodeSettings {
 		colNames.add("Record #");
 		colNames.add("Result");
 		
-		if(isUseRecordInterval()) {
+		if(config.isUseRecordInterval()) {
 			// no extra tiers
-		} else if (isUseTextGridInterval()) {
+		} else if (config.isUseTextGridInterval()) {
 			colNames.add("Text");
 		} else {
 			colNames.add("Tier");
-			colNames.add(getColumn());
+			colNames.add(config.getColumn());
 		}
 		
 		colNames.add("Start Time(s)");
@@ -137,38 +145,18 @@ public class VOTNode extends PraatNode implements NodeSettings {
 		return colNames;
 	}
 	
-	private Optional<TextPoint> findVoTPoint(TextTier tier, TextInterval interval) {
-		for(long i = 1; i <= tier.numberOfPoints(); i++) {
-			TextPoint tp = tier.point(i);
-			if(tp.getNumber() < interval.getXmin() || processedPoints.contains(tp)) 
-				continue;
-			else if(tp.getNumber() > interval.getXmax() + 0.5)
-				break;
+	private int findVoTPoint(TextGridIndex.TierIndex tier, TextInterval interval) {
+		final String text = interval.getText();
+		final int toIdx = tier.toIndex(interval.getXmax() + 0.5);
+		for(int i = tier.fromIndex(interval.getXmin()); i < toIdx; i++) {
+			if(processedPoints.get(i)) continue;
 			
-			if(tp.getText().equals(interval.getText())) {
-				processedPoints.add(tp);
-				return Optional.of(tp);
-			}
-		}
-		return Optional.empty();
-	}
-	
-	private Optional<TextTier> findVoTTier(TextGrid textGrid) {
-		final String tierName = getVoTTier();
-		
-		for(long i = 1; i <= textGrid.numberOfTiers(); i++) {
-			Function tier = textGrid.tier(i);
-			if(tier.getName().equals(tierName)) {
-				try {
-					return Optional.of(textGrid.checkSpecifiedTierIsPointTier(i));
-				} catch (PraatException e1) {
-					LogUtil.warning(e1.getLocalizedMessage(), e1);
-					return Optional.empty();
-				}
+			if(tier.getLabel(i).equals(text)) {
+				processedPoints.set(i);
+				return i;
 			}
 		}
-		
-		return Optional.empty();
+		return -1;
 	}
 	
 	public float getThreshold() {
@@ -190,6 +178,11 @@ public class VOTNode extends PraatNode implements NodeSettings {
 		}
 	}
 	
+	@Override
+	protected PraatNodeConfig createConfig() {
+		return super.createConfig().with(VOTOptions.class, new VOTOptions(getVoTTier(), getThreshold()));
+	}
+
 	@Override
 	public Properties getSettings() {
 		final Properties retVal = super.getSettings();
@@ -213,7 +206,7 @@ public class VOTNode extends PraatNode implements NodeSettings {
 		if(settingsPanel == null) {
 			final GridBagConstraints gbc = new GridBagConstraints();
 			gbc.gridx = 0;
-			gbc.gridy = 7;
+			gbc.gridy = 11;
 			gbc.weightx = 1.0;
 			gbc.weighty = 0.0;
 			gbc.fill = GridBagConstraints.HORIZONTAL;
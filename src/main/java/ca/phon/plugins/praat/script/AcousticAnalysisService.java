@@ -0,0 +1,407 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat.script;
+
+import ca.hedlund.jpraat.binding.fon.*;
+import ca.hedlund.jpraat.exceptions.PraatException;
+import ca.phon.plugins.praat.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.*;
+
+/**
+ * Computes pitch, formant and intensity measurements for query scripts.
+ *
+ * Requests are processed in batches.  Requests sharing the same audio file,
+ * segment, measure and settings share a single extracted sound and analysis
+ * object.  Segments are extracted from long sounds opened using the caller's
+ * {@link PraatResourceScope}; for wav files the segment is first checked
+ * against the duration read from the wav header (using the scope's
+ * {@link WavSegmentReader}) so that segments outside of the audio fail
+ * without native I/O.  The service does not keep native resources open
+ * between calls.  Results are returned as primitive arrays and cached so
+ * that repeated requests do not cross into native code.
+ *
+ * Praat is not thread safe: groups are submitted in parallel but all
+ * calls into Praat hold {@link PraatLibrary#LOCK}.
+ *
+ * Callers should submit requests in batches (e.g., per session or a bounded
+ * number of records), groups are only processed in parallel within a batch.
+ */
+public class AcousticAnalysisService implements AutoCloseable {
+
+	private final static Logger LOGGER = Logger.getLogger(AcousticAnalysisService.class.getName());
+
+	public final static int DEFAULT_CACHE_SIZE = 4096;
+
+	public static enum Measure {
+		PITCH,
+		FORMANTS,
+		INTENSITY;
+	}
+
+	/**
+	 * Analysis request.  Times are in seconds.  Settings must be
+	 * {@link PitchSettings}, {@link FormantSettings} or {@link IntensitySettings}
+	 * depending on measure.
+	 *
+	 * @param audioFile wav file
+	 * @param segmentStart start of segment extracted for analysis
+	 * @param segmentEnd end of segment extracted for analysis
+	 * @param start start of measured interval
+	 * @param end end of measured interval
+	 * @param measure
+	 * @param settings
+	 */
+	public static record AnalysisRequest(File audioFile, double segmentStart, double segmentEnd,
+			double start, double end, Measure measure, Object settings) {}
+
+	/**
+	 * Analysis result.  For pitch and intensity <code>times</code> contains the
+	 * time of each analysis frame inside the interval and <code>values[0]</code> the
+	 * value at each frame.  For formants <code>times</code> contains 9 points
+	 * (10%-90% of the interval) and <code>values</code> has one row per formant
+	 * followed by one row per bandwidth if bandwidths are included.
+	 */
+	public static final class AnalysisResult {
+
+		private final double[] times;
+
+		private final double[][] values;
+
+		private final String unitText;
+
+		private final String error;
+
+		AnalysisResult(double[] times, double[][] values, String unitText, String error) {
+			this.times = times;
+			this.values = values;
+			this.unitText = unitText;
+			this.error = error;
+		}
+
+		public double[] getTimes() {
+			return times;
+		}
+
+		public double[][] getValues() {
+			return values;
+		}
+
+		public double[] getValues(int track) {
+			return values[track];
+		}
+
+		public int getTrackCount() {
+			return values.length;
+		}
+
+		/**
+		 * @return short unit text for values (e.g., Hz, dB)
+		 */
+		public String getUnitText() {
+			return unitText;
+		}
+
+		public boolean isError() {
+			return error != null;
+		}
+
+		public String getError() {
+			return error;
+		}
+
+	}
+
+	private record CacheKey(String path, double segmentStart, double segmentEnd,
+			double start, double end, Measure measure, String settingsKey) {}
+
+	private record GroupKey(String path, double segmentStart, double segmentEnd,
+			Measure measure, String settingsKey) {}
+
+	private final ExecutorService executor;
+
+	private final Map<CacheKey, AnalysisResult> cache;
+
+	public AcousticAnalysisService() {
+		this(Math.min(4, Runtime.getRuntime().availableProcessors()), DEFAULT_CACHE_SIZE);
+	}
+
+	public AcousticAnalysisService(int numThreads, int cacheSize) {
+		super();
+		final AtomicInteger threadNum = new AtomicInteger(0);
+		this.executor = Executors.newFixedThreadPool(Math.max(1, numThreads), (r) -> {
+			final Thread t = new Thread(r, "acoustic-analysis-" + threadNum.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		this.cache = new LinkedHashMap<>(cacheSize, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<CacheKey, AnalysisResult> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	/**
+	 * Analyse a single request.  Long sounds are opened in a temporary
+	 * scope which is closed before returning.
+	 *
+	 * @param request
+	 * @return result
+	 * @throws InterruptedException
+	 */
+	public AnalysisResult analyze(AnalysisRequest request) throws InterruptedException {
+		try(PraatResourceScope scope = new PraatResourceScope()) {
+			return analyze(List.of(request), scope).get(0);
+		}
+	}
+
+	/**
+	 * Analyse batch of requests.  Failed requests produce a result with an error
+	 * message instead of throwing an exception.
+	 *
+	 * @param requests
+	 * @param scope resource scope used to open long sounds, long sounds
+	 *  remain owned by the scope
+	 * @return results in request order
+	 * @throws InterruptedException
+	 */
+	public List<AnalysisResult> analyze(List<AnalysisRequest> requests, PraatResourceScope scope) throws InterruptedException {
+		final AnalysisResult[] results = new AnalysisResult[requests.size()];
+		final CacheKey[] keys = new CacheKey[requests.size()];
+
+		final Map<GroupKey, List<Integer>> groups = new LinkedHashMap<>();
+		synchronized(cache) {
+			for(int i = 0; i < requests.size(); i++) {
+				final AnalysisRequest request = requests.get(i);
+				final String path = request.audioFile().getAbsolutePath();
+				final String settingsKey = settingsKey(request.measure(), request.settings());
+				keys[i] = new CacheKey(path, request.segmentStart(), request.segmentEnd(),
+						request.start(), request.end(), request.measure(), settingsKey);
+				results[i] = cache.get(keys[i]);
+				if(results[i] == null) {
+					groups.computeIfAbsent(new GroupKey(path, request.segmentStart(), request.segmentEnd(),
+							request.measure(), settingsKey), (k) -> new ArrayList<>()).add(i);
+				}
+			}
+		}
+
+		final List<Future<?>> futures = new ArrayList<>();
+		for(var entry:groups.entrySet()) {
+			futures.add(executor.submit(() -> analyzeGroup(scope, entry.getKey(), entry.getValue(), requests, results)));
+		}
+		for(Future<?> future:futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				LOGGER.log(Level.SEVERE, e.getLocalizedMessage(), e);
+			} catch (InterruptedException e) {
+				for(Future<?> f:futures) f.cancel(true);
+				throw e;
+			}
+		}
+
+		synchronized(cache) {
+			for(int i = 0; i < results.length; i++) {
+				if(results[i] == null) {
+					results[i] = new AnalysisResult(new double[0], new double[0][], null, "Not analysed");
+				} else if(!results[i].isError()) {
+					cache.put(keys[i], results[i]);
+				}
+			}
+		}
+		return Arrays.asList(results);
+	}
+
+	private void analyzeGroup(PraatResourceScope scope, GroupKey key, List<Integer> indices,
+			List<AnalysisRequest> requests, AnalysisResult[] results) {
+		final Object settings = requests.get(indices.get(0)).settings();
+		try {
+			final Sound sound = extractSound(scope, requests.get(indices.get(0)).audioFile(), key.segmentStart(), key.segmentEnd());
+			synchronized(PraatLibrary.LOCK) {
+				try(sound) {
+					analyzeSound(sound, key, settings, indices, requests, results);
+				}
+			}
+		} catch (Exception | UnsatisfiedLinkError e) {
+			LOGGER.log(Level.WARNING, e.getLocalizedMessage(), e);
+			final AnalysisResult errorResult = new AnalysisResult(new double[0], new double[0][], null, e.getLocalizedMessage());
+			for(int idx:indices) {
+				if(results[idx] == null) results[idx] = errorResult;
+			}
+		}
+	}
+
+	/**
+	 * Analyse sound and copy results for each request in the group,
+	 * must be called holding {@link PraatLibrary#LOCK}.
+	 */
+	private void analyzeSound(Sound sound, GroupKey key, Object settings, List<Integer> indices,
+			List<AnalysisRequest> requests, AnalysisResult[] results) throws Exception {
+		switch(key.measure()) {
+		case PITCH:
+			try(Pitch pitch = toPitch(sound, (PitchSettings)settings)) {
+				for(int idx:indices)
+					results[idx] = pitchResult(pitch, (PitchSettings)settings, requests.get(idx));
+			}
+			break;
+
+		case FORMANTS:
+			final FormantSettings formantSettings = (FormantSettings)settings;
+			try(Formant formant = sound.to_Formant_burg(formantSettings.getTimeStep(), formantSettings.getNumFormants(),
+					formantSettings.getMaxFrequency(), formantSettings.getWindowLength(), formantSettings.getPreEmphasis())) {
+				for(int idx:indices)
+					results[idx] = formantResult(formant, formantSettings, requests.get(idx));
+			}
+			break;
+
+		case INTENSITY:
+			final IntensitySettings intensitySettings = (IntensitySettings)settings;
+			try(Intensity intensity = sound.to_Intensity(intensitySettings.getViewRangeMin(), 0.0,
+					intensitySettings.getSubtractMean())) {
+				for(int idx:indices)
+					results[idx] = intensityResult(intensity, requests.get(idx));
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Extract segment for analysis from a long sound opened in the given scope.
+	 */
+	private Sound extractSound(PraatResourceScope scope, File audioFile, double xmin, double xmax) throws PraatException, IOException {
+		final WavSegmentReader reader = scope.openWavReader(audioFile);
+		if(reader != null && (xmin >= reader.getDuration() || xmax <= 0.0 || xmax <= xmin)) {
+			throw new IOException("Segment outside of audio range");
+		}
+		PraatLibrary.await();
+		// lock order: scope, then Praat
+		synchronized(scope) {
+			final LongSound longSound = scope.openLongSound(audioFile);
+			synchronized(PraatLibrary.LOCK) {
+				return longSound.extractPart(xmin, xmax, true);
+			}
+		}
+	}
+
+	private Pitch toPitch(Sound sound, PitchSettings pitchSettings) throws PraatException {
+		if(pitchSettings.isAutoCorrelate()) {
+			return sound.to_Pitch_ac(pitchSettings.getTimeStep(), pitchSettings.getRangeStart(), 3.0,
+					pitchSettings.getMaxCandidates(), (pitchSettings.isVeryAccurate() ? 1 : 0), pitchSettings.getSilenceThreshold(),
+					pitchSettings.getVoicingThreshold(), pitchSettings.getOctaveCost(),
+					pitchSettings.getOctaveJumpCost(), pitchSettings.getVoicedUnvoicedCost(), pitchSettings.getRangeEnd());
+		} else {
+			return sound.to_Pitch_cc(pitchSettings.getTimeStep(), pitchSettings.getRangeStart(), 3.0,
+					pitchSettings.getMaxCandidates(), (pitchSettings.isVeryAccurate() ? 1 : 0), pitchSettings.getSilenceThreshold(),
+					pitchSettings.getVoicingThreshold(), pitchSettings.getOctaveCost(),
+					pitchSettings.getOctaveJumpCost(), pitchSettings.getVoicedUnvoicedCost(), pitchSettings.getRangeEnd());
+		}
+	}
+
+	private AnalysisResult pitchResult(Pitch pitch, PitchSettings pitchSettings, AnalysisRequest request) {
+		final AtomicReference<Long> iminRef = new AtomicReference<>(0L);
+		final AtomicReference<Long> imaxRef = new AtomicReference<>(0L);
+		pitch.getWindowSamples(request.start(), request.end(), iminRef, imaxRef);
+		final int imin = iminRef.get().intValue();
+		final int imax = imaxRef.get().intValue();
+
+		final int unit = pitchSettings.getUnits().ordinal();
+		final int n = Math.max(0, imax - imin + 1);
+		final double[] times = new double[n];
+		final double[] f0 = new double[n];
+		for(int i = 0; i < n; i++) {
+			times[i] = pitch.indexToX(imin + i);
+			f0[i] = pitch.convertToNonlogarithmic(
+					pitch.getValueAtSample(imin + i, Pitch.LEVEL_FREQUENCY, unit), Pitch.LEVEL_FREQUENCY, unit);
+		}
+		final String unitText = pitch.getUnitText(Pitch.LEVEL_FREQUENCY, unit, Function.UNIT_TEXT_SHORT);
+		return new AnalysisResult(times, new double[][] { f0 }, unitText, null);
+	}
+
+	private AnalysisResult formantResult(Formant formant, FormantSettings formantSettings, AnalysisRequest request) {
+		final int numFormants = formantSettings.getNumFormants();
+		final boolean includeBandwidths = formantSettings.isIncludeBandwidths();
+
+		final double timeStep = (request.end() - request.start()) / 10.0;
+		final double[] times = new double[9];
+		for(int i = 0; i < 9; i++) times[i] = request.start() + (timeStep * (i + 1));
+
+		final double[][] values = new double[numFormants * (includeBandwidths ? 2 : 1)][9];
+		for(int f = 0; f < numFormants; f++) {
+			for(int i = 0; i < 9; i++) {
+				values[f][i] = formant.getValueAtTime(f + 1, times[i], kFormant_unit.HERTZ);
+				if(includeBandwidths)
+					values[numFormants + f][i] = formant.getBandwidthAtTime(f + 1, times[i], kFormant_unit.HERTZ);
+			}
+		}
+		return new AnalysisResult(times, values, "Hz", null);
+	}
+
+	private AnalysisResult intensityResult(Intensity intensity, AnalysisRequest request) {
+		final AtomicReference<Long> iminRef = new AtomicReference<>(0L);
+		final AtomicReference<Long> imaxRef = new AtomicReference<>(0L);
+		intensity.getWindowSamples(request.start(), request.end(), iminRef, imaxRef);
+		final int imin = iminRef.get().intValue();
+		final int imax = imaxRef.get().intValue();
+
+		final int n = Math.max(0, imax - imin + 1);
+		final double[] times = new double[n];
+		final double[] db = new double[n];
+		for(int i = 0; i < n; i++) {
+			times[i] = intensity.indexToX(imin + i);
+			db[i] = intensity.getValueAtSample(imin + i, 1, Intensity.UNITS_DB);
+		}
+		return new AnalysisResult(times, new double[][] { db }, "dB", null);
+	}
+
+	/**
+	 * Key for settings values which affect analysis
+	 */
+	private static String settingsKey(Measure measure, Object settings) {
+		if(settings instanceof PitchSettings ps && measure == Measure.PITCH) {
+			return List.of(ps.getTimeStep(), ps.getRangeStart(), ps.getRangeEnd(), ps.getUnits(), ps.isAutoCorrelate(),
+					ps.isVeryAccurate(), ps.getMaxCandidates(), ps.getSilenceThreshold(), ps.getVoicingThreshold(),
+					ps.getOctaveCost(), ps.getOctaveJumpCost(), ps.getVoicedUnvoicedCost()).toString();
+		} else if(settings instanceof FormantSettings fs && measure == Measure.FORMANTS) {
+			return List.of(fs.getTimeStep(), fs.getNumFormants(), fs.getMaxFrequency(), fs.getWindowLength(),
+					fs.getPreEmphasis(), fs.isIncludeBandwidths()).toString();
+		} else if(settings instanceof IntensitySettings is && measure == Measure.INTENSITY) {
+			return List.of(is.getViewRangeMin(), is.getSubtractMean()).toString();
+		} else {
+			throw new IllegalArgumentException("Invalid settings for " + measure + ": " + settings);
+		}
+	}
+
+	/**
+	 * Remove all cached results
+	 */
+	public void clearCache() {
+		synchronized(cache) {
+			cache.clear();
+		}
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+		clearCache();
+	}
+
+}
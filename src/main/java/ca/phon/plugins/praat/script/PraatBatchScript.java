@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat.script;
+
+import ca.phon.plugins.praat.PraatProcessRunner;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Generates and runs a single Praat script for a list of segments.
+ * The long sound and TextGrid are opened once and the segment script
+ * is executed for each segment (see <code>SendPraatBatchTemplate.vm</code>.)
+ * Each segment produces one tab-separated line of output which is
+ * returned to the {@link ResultHandler} in segment order.
+ */
+public class PraatBatchScript {
+
+	public final static String BATCH_TEMPLATE = "SendPraatBatchTemplate.vm";
+
+	/**
+	 * Segment times in seconds
+	 *
+	 * @param start
+	 * @param end
+	 */
+	public static record Segment(double start, double end) {
+
+		public String formatStart() {
+			return formatNumber(start);
+		}
+
+		public String formatEnd() {
+			return formatNumber(end);
+		}
+
+	}
+
+	/**
+	 * Receives results for each segment
+	 */
+	@FunctionalInterface
+	public static interface ResultHandler {
+		/**
+		 * @param segmentIndex 0-based index of segment
+		 * @param segment
+		 * @param values tab-separated values of <code>result$</code>
+		 */
+		public void result(int segmentIndex, Segment segment, String[] values);
+	}
+
+	private static String batchTemplate;
+
+	private final List<Segment> segments = new ArrayList<>();
+
+	private String audioPath;
+
+	private String textGridPath;
+
+	private String segmentScript = "";
+
+	public PraatBatchScript() {
+		super();
+	}
+
+	public PraatBatchScript(String audioPath, String textGridPath, String segmentScript) {
+		super();
+		this.audioPath = audioPath;
+		this.textGridPath = textGridPath;
+		this.segmentScript = segmentScript;
+	}
+
+	public String getAudioPath() {
+		return audioPath;
+	}
+
+	public void setAudioPath(String audioPath) {
+		this.audioPath = audioPath;
+	}
+
+	public String getTextGridPath() {
+		return textGridPath;
+	}
+
+	public void setTextGridPath(String textGridPath) {
+		this.textGridPath = textGridPath;
+	}
+
+	public String getSegmentScript() {
+		return segmentScript;
+	}
+
+	/**
+	 * Praat code executed for each segment.  Variables <code>snd</code>,
+	 * <code>textGrid</code>, <code>segment</code>, <code>start</code> and
+	 * <code>end</code> are available; the script should set <code>result$</code>.
+	 *
+	 * @param segmentScript
+	 */
+	public void setSegmentScript(String segmentScript) {
+		this.segmentScript = segmentScript;
+	}
+
+	public void addSegment(double start, double end) {
+		segments.add(new Segment(start, end));
+	}
+
+	public void addSegment(Segment segment) {
+		segments.add(segment);
+	}
+
+	public List<Segment> getSegments() {
+		return Collections.unmodifiableList(segments);
+	}
+
+	private static synchronized String loadBatchTemplate() throws IOException {
+		if(batchTemplate == null) {
+			try(InputStream is = PraatBatchScript.class.getResourceAsStream(BATCH_TEMPLATE)) {
+				if(is == null) throw new FileNotFoundException(BATCH_TEMPLATE);
+				batchTemplate = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+			}
+		}
+		return batchTemplate;
+	}
+
+	/**
+	 * Generate batch script.  Additional values (e.g., session) may be
+	 * provided in the given context.
+	 *
+	 * @param ctx
+	 * @return script
+	 * @throws IOException
+	 */
+	public String generateScript(PraatScriptContext ctx) throws IOException {
+		if(audioPath == null) {
+			throw new IOException("No audio path given");
+		}
+		ctx.put("segments", getSegments());
+		ctx.put("audioPath", escape(audioPath));
+		if(textGridPath != null)
+			ctx.put("textGridPath", escape(textGridPath));
+		ctx.put("segmentScript", segmentScript.lines().map(line -> "\t" + line).collect(Collectors.joining("\n")));
+		return new PraatScript(loadBatchTemplate()).generateScript(ctx);
+	}
+
+	public String generateScript() throws IOException {
+		return generateScript(new PraatScriptContext());
+	}
+
+	/**
+	 * Generate and run batch script.
+	 *
+	 * @param handler
+	 * @throws IOException
+	 */
+	public void run(ResultHandler handler) throws IOException {
+		parseResults(PraatProcessRunner.runScript(generateScript()), handler);
+	}
+
+	/**
+	 * Parse output of batch script.  Lines not starting with a segment
+	 * number are ignored.
+	 *
+	 * @param output
+	 * @param handler
+	 */
+	public void parseResults(String output, ResultHandler handler) {
+		try(BufferedReader reader = new BufferedReader(new StringReader(output))) {
+			String line = null;
+			while((line = reader.readLine()) != null) {
+				final int tabIdx = line.indexOf('\t');
+				if(tabIdx <= 0) continue;
+				final int segmentNumber;
+				try {
+					segmentNumber = Integer.parseInt(line.substring(0, tabIdx).trim());
+				} catch (NumberFormatException e) {
+					continue;
+				}
+				if(segmentNumber < 1 || segmentNumber > segments.size()) continue;
+
+				final String[] values = line.substring(tabIdx + 1).split("\t", -1);
+				handler.result(segmentNumber - 1, segments.get(segmentNumber - 1), values);
+			}
+		} catch (IOException e) {
+			// not possible with string reader
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static String escape(String text) {
+		return text.replace("\"", "\"\"");
+	}
+
+	private static String formatNumber(double val) {
+		return BigDecimal.valueOf(val).stripTrailingZeros().toPlainString();
+	}
+
+}
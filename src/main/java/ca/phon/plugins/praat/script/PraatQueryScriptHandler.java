@@ -18,33 +18,253 @@ package ca.phon.plugins.praat.script;
 import ca.phon.plugin.*;
 import ca.phon.query.db.ScriptLibrary;
 import ca.phon.query.script.*;
+import ca.phon.script.*;
 import ca.phon.util.resources.ClassLoaderHandler;
+import org.mozilla.javascript.*;
+import org.mozilla.javascript.commonjs.module.*;
+import org.mozilla.javascript.commonjs.module.provider.*;
 
-import java.io.IOException;
-import java.net.URL;
+import java.io.*;
+import java.net.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class PraatQueryScriptHandler extends ClassLoaderHandler<QueryScript> implements QueryScriptHandler,
 	IPluginExtensionPoint<QueryScriptHandler> {
 	
 	private final static String RESOURCE_FILE = "ca/phon/query/script/praat_query.list";
 	
+	/* queries are executed on worker threads, one resource scope per thread */
+	private final static ThreadLocal<PraatResourceScope> resourceScope = 
+			ThreadLocal.withInitial(PraatResourceScope::new);
+	
+	private static AcousticAnalysisService analysisService;
+	
+	/**
+	 * Loaded scripts keyed by URL.  The cached script holds the source text,
+	 * require paths for lib modules and imports read from the resource and is
+	 * never returned to callers; each call to {@link #loadFromURL(URL)} returns
+	 * a new script copied from the cached script so that callers do not share
+	 * parameters or script context.  Copies share the compiled script and the
+	 * compiled lib modules of the cache entry, which are immutable; each copy
+	 * evaluates them in its own scope.  Entries are re-used until the resource
+	 * is modified.
+	 */
+	private final static Map<String, CachedScript> scriptCache = new ConcurrentHashMap<>();
+	
+	/**
+	 * Last modified time of plugin jars, jars are not replaced while
+	 * their classes are loaded so each jar is only checked once.
+	 */
+	private final static Map<String, Long> jarLastModified = new ConcurrentHashMap<>();
+	
+	private static final class CachedScript {
+		
+		private final long lastModified;
+		
+		private final QueryScript script;
+		
+		/** compiled lib modules, shared by all copies of the script */
+		private final ModuleScriptProvider moduleScriptProvider;
+		
+		private volatile Script compiledScript;
+		
+		CachedScript(long lastModified, QueryScript script) {
+			this.lastModified = lastModified;
+			this.script = script;
+			this.moduleScriptProvider = new SoftCachingModuleScriptProvider(
+					new UrlModuleSourceProvider(script.getRequirePaths(), null));
+		}
+		
+		long lastModified() {
+			return lastModified;
+		}
+		
+		QueryScript script() {
+			return script;
+		}
+		
+	}
+	
 	public PraatQueryScriptHandler() {
 		super();
 		
 		loadResourceFile(RESOURCE_FILE);
 	}
 
+	/**
+	 * Shared analysis service for Praat query scripts.  The service holds
+	 * no native resources, long sounds are opened using the resource scope
+	 * passed to {@link AcousticAnalysisService#analyze(java.util.List, PraatResourceScope)}.
+	 * 
+	 * @return analysis service
+	 */
+	public static synchronized AcousticAnalysisService getAnalysisService() {
+		if(analysisService == null) {
+			analysisService = new AcousticAnalysisService();
+		}
+		return analysisService;
+	}
+	
+	/**
+	 * Resource scope for Praat query scripts running on the current thread.
+	 * Scripts should call <code>beginSession()</code> in <code>begin_search</code>,
+	 * register native objects and open long sounds using the scope, and call
+	 * <code>endSession()</code> in <code>end_search</code>.  Long sounds are
+	 * closed shortly after the last session of a search has ended, see
+	 * {@link PraatResourceScope#getReleaseDelay()}.
+	 * 
+	 * @return resource scope for current thread
+	 */
+	public static PraatResourceScope getResourceScope() {
+		return resourceScope.get();
+	}
+
 	@Override
 	public QueryScript loadFromURL(URL url) throws IOException {
-		final QueryScript retVal = new QueryScript(url);
-		final QueryName qn = retVal.getExtension(QueryName.class);
-		if(qn != null) {
+		final String key = url.toExternalForm();
+		final long lastModified = getLastModified(url);
+		CachedScript cached = scriptCache.get(key);
+		if(cached == null || cached.lastModified() != lastModified) {
+			cached = new CachedScript(lastModified, new QueryScript(url));
+			scriptCache.put(key, cached);
+		}
+		return createScript(cached);
+	}
+	
+	/**
+	 * Remove all cached scripts
+	 */
+	public static void clearScriptCache() {
+		scriptCache.clear();
+		jarLastModified.clear();
+	}
+	
+	private static long getLastModified(URL url) {
+		try {
+			if("file".equals(url.getProtocol())) {
+				return new File(url.toURI()).lastModified();
+			} else if("jar".equals(url.getProtocol())) {
+				// jar:<jar url>!/<entry>, use timestamp of the jar file
+				final String spec = url.getFile();
+				final int sepIdx = spec.indexOf("!/");
+				final URI jarURI = new URI(sepIdx >= 0 ? spec.substring(0, sepIdx) : spec);
+				if("file".equals(jarURI.getScheme())) {
+					final File jarFile = new File(jarURI);
+					return jarLastModified.computeIfAbsent(jarFile.getAbsolutePath(), (k) -> jarFile.lastModified());
+				}
+			}
+			// unknown, cached script is used until the cache is cleared
+			return 0L;
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			return 0L;
+		}
+	}
+	
+	/**
+	 * Create a new script from the cached script source
+	 * 
+	 * @param cached
+	 * @return new query script
+	 */
+	private QueryScript createScript(CachedScript cached) {
+		final QueryScript cachedScript = cached.script();
+		final QueryScript retVal = new CachedQueryScript(cached);
+		for(URI requirePath:cachedScript.getRequirePaths()) {
+			retVal.addRequirePath(requirePath);
+		}
+		for(String packageImport:cachedScript.getPackageImports()) {
+			retVal.addPackageImport(packageImport);
+		}
+		for(String classImport:cachedScript.getClassImports()) {
+			retVal.addClassImport(classImport);
+		}
+		
+		final QueryName cachedName = cachedScript.getExtension(QueryName.class);
+		if(cachedName != null) {
+			final QueryName qn = new QueryName(cachedName.getName());
 			qn.setCategory("Praat");
 			qn.setScriptLibrary(ScriptLibrary.PLUGINS);
+			retVal.putExtension(QueryName.class, qn);
 		}
 		return retVal;
 	}
 
+	/**
+	 * Query script using the compiled script and lib modules of a cache entry.
+	 */
+	private static class CachedQueryScript extends QueryScript {
+		
+		private final CachedScript cached;
+		
+		private PhonScriptContext context;
+		
+		CachedQueryScript(CachedScript cached) {
+			super(cached.script().getScript());
+			this.cached = cached;
+		}
+		
+		@Override
+		public synchronized PhonScriptContext getContext() {
+			if(context == null) {
+				context = new CachedScriptContext(this, cached);
+			}
+			return context;
+		}
+		
+	}
+	
+	private static class CachedScriptContext extends PhonScriptContext {
+		
+		private final CachedScript cached;
+		
+		CachedScriptContext(PhonScript script, CachedScript cached) {
+			super(script);
+			this.cached = cached;
+		}
+		
+		/**
+		 * Compiled scripts hold no scope and may be executed in any
+		 * number of scopes; the script is compiled once per cache entry.
+		 */
+		@Override
+		public Script compileScript() throws PhonScriptException {
+			Script retVal = cached.compiledScript;
+			if(retVal == null) {
+				synchronized(cached) {
+					retVal = cached.compiledScript;
+					if(retVal == null) {
+						retVal = super.compileScript();
+						cached.compiledScript = retVal;
+					}
+				}
+			}
+			return retVal;
+		}
+		
+		/**
+		 * Install <code>require</code> using the module provider of the cache
+		 * entry so that lib modules are compiled once, module exports are
+		 * still evaluated for each scope.
+		 */
+		@Override
+		public Scriptable createImporterScope() throws PhonScriptException {
+			final Scriptable retVal = super.createImporterScope();
+			final Context ctx = Context.enter();
+			try {
+				final Require require = new RequireBuilder()
+						.setModuleScriptProvider(cached.moduleScriptProvider)
+						.setSandboxed(false)
+						.createRequire(ctx, retVal);
+				require.install(retVal);
+			} finally {
+				Context.exit();
+			}
+			return retVal;
+		}
+		
+	}
+
 	@Override
 	public Class<?> getExtensionType() {
 		return QueryScriptHandler.class;
@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat.script;
+
+import ca.hedlund.jpraat.binding.fon.LongSound;
+import ca.hedlund.jpraat.binding.sys.MelderFile;
+import ca.hedlund.jpraat.exceptions.PraatException;
+import ca.phon.plugins.praat.PraatLibrary;
+import ca.phon.plugins.praat.WavSegmentReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+/**
+ * Tracks native Praat resources opened by query scripts.
+ *
+ * Resources registered with the scope are closed when {@link #endSession()}
+ * is called.  Long sounds opened using {@link #openLongSound(File)} are shared
+ * between sessions using the same media and at most {@link #getMaxLongSounds()}
+ * long sounds are kept open; long sounds not used by the session being ended
+ * are closed by {@link #endSession()}.  This keeps the long sound open when
+ * consecutive sessions share media while the number of open native handles
+ * stays bounded.
+ *
+ * Wav readers opened using {@link #openWavReader(File)} are cached per file
+ * and released together with long sounds.
+ *
+ * Query scripts are executed once per session and are not notified when the
+ * search is finished.  Long sounds still open after {@link #endSession()} are
+ * closed if no new session is started within {@link #getReleaseDelay()} ms, so
+ * long sounds are shared by consecutive sessions of a search but are not kept
+ * open after the search has ended.
+ *
+ * Native calls made by the scope hold {@link PraatLibrary#LOCK}; callers
+ * needing both the scope and the Praat lock must lock the scope first.
+ */
+public class PraatResourceScope implements AutoCloseable {
+
+	private final static Logger LOGGER = Logger.getLogger(PraatResourceScope.class.getName());
+
+	public final static int DEFAULT_MAX_LONGSOUNDS = 2;
+
+	public final static long DEFAULT_RELEASE_DELAY = 2000L;
+
+	private final static ScheduledExecutorService releaseExecutor = Executors.newSingleThreadScheduledExecutor((r) -> {
+		final Thread t = new Thread(r, "praat-resource-release");
+		t.setDaemon(true);
+		return t;
+	});
+
+	private final List<AutoCloseable> sessionResources = new ArrayList<>();
+
+	private final LinkedHashMap<String, LongSound> longSounds = new LinkedHashMap<>(16, 0.75f, true);
+
+	/* wav readers by path, empty if the file is not a supported wav file */
+	private final LinkedHashMap<String, Optional<WavSegmentReader>> wavReaders = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final Set<String> sessionLongSounds = new HashSet<>();
+
+	private int maxLongSounds = DEFAULT_MAX_LONGSOUNDS;
+
+	private long releaseDelay = DEFAULT_RELEASE_DELAY;
+
+	private boolean sessionActive = false;
+
+	private ScheduledFuture<?> releaseTask;
+
+	public PraatResourceScope() {
+		super();
+	}
+
+	public PraatResourceScope(int maxLongSounds) {
+		super();
+		setMaxLongSounds(maxLongSounds);
+	}
+
+	public int getMaxLongSounds() {
+		return maxLongSounds;
+	}
+
+	public synchronized void setMaxLongSounds(int maxLongSounds) {
+		this.maxLongSounds = Math.max(1, maxLongSounds);
+		trimLongSounds();
+	}
+
+	public long getReleaseDelay() {
+		return releaseDelay;
+	}
+
+	/**
+	 * Time in ms after {@link #endSession()} before long sounds are closed
+	 * if no new session has been started.
+	 *
+	 * @param releaseDelay
+	 */
+	public synchronized void setReleaseDelay(long releaseDelay) {
+		this.releaseDelay = Math.max(0L, releaseDelay);
+	}
+
+	/**
+	 * Register resource to be closed at the end of the current session.
+	 *
+	 * @param resource
+	 * @return resource
+	 */
+	public synchronized <T extends AutoCloseable> T register(T resource) {
+		if(resource != null)
+			sessionResources.add(resource);
+		return resource;
+	}
+
+	/**
+	 * Open long sound for the given file or return the already open
+	 * long sound for the file.  Long sounds are owned by the scope and
+	 * should not be closed by the caller.
+	 *
+	 * @param file
+	 * @return long sound
+	 * @throws PraatException
+	 * @throws UnsatisfiedLinkError if the Praat library could not be loaded
+	 */
+	public synchronized LongSound openLongSound(File file) throws PraatException {
+		final String path = file.getAbsolutePath();
+		LongSound retVal = longSounds.get(path);
+		if(retVal == null) {
+			PraatLibrary.await();
+			synchronized(PraatLibrary.LOCK) {
+				retVal = LongSound.open(MelderFile.fromPath(path));
+			}
+			longSounds.put(path, retVal);
+			trimLongSounds();
+		}
+		sessionLongSounds.add(path);
+		return retVal;
+	}
+
+	/**
+	 * Open wav reader for the given file or return the already open reader
+	 * for the file.  The wav header is read once per file, readers are owned
+	 * by the scope, should not be closed by the caller and are released with
+	 * long sounds.  At most {@link #getMaxLongSounds()} readers are kept open.
+	 *
+	 * @param file
+	 * @return reader or <code>null</code> if the file is not a supported wav file
+	 */
+	public synchronized WavSegmentReader openWavReader(File file) {
+		final String path = file.getAbsolutePath();
+		Optional<WavSegmentReader> retVal = wavReaders.get(path);
+		if(retVal == null) {
+			retVal = Optional.ofNullable(WavSegmentReader.openIfSupported(file));
+			wavReaders.put(path, retVal);
+
+			final Iterator<Optional<WavSegmentReader>> itr = wavReaders.values().iterator();
+			while(wavReaders.size() > maxLongSounds && itr.hasNext()) {
+				final Optional<WavSegmentReader> eldest = itr.next();
+				itr.remove();
+				eldest.ifPresent(this::closeReader);
+			}
+		}
+		return retVal.orElse(null);
+	}
+
+	/**
+	 * @return number of open long sounds
+	 */
+	public synchronized int getOpenLongSoundCount() {
+		return longSounds.size();
+	}
+
+	private void trimLongSounds() {
+		final Iterator<Map.Entry<String, LongSound>> itr = longSounds.entrySet().iterator();
+		while(longSounds.size() > maxLongSounds && itr.hasNext()) {
+			final Map.Entry<String, LongSound> eldest = itr.next();
+			itr.remove();
+			sessionLongSounds.remove(eldest.getKey());
+			closeResource(eldest.getValue());
+		}
+	}
+
+	/**
+	 * Start a new session.  Resources still registered from a previous
+	 * session are closed, open long sounds are kept.
+	 */
+	public synchronized void beginSession() {
+		cancelRelease();
+		closeSessionResources();
+		sessionActive = true;
+	}
+
+	/**
+	 * Close resources registered for the current session and any long sounds
+	 * not used during the session.
+	 */
+	public synchronized void endSession() {
+		closeSessionResources();
+
+		final Iterator<Map.Entry<String, LongSound>> itr = longSounds.entrySet().iterator();
+		while(itr.hasNext()) {
+			final Map.Entry<String, LongSound> entry = itr.next();
+			if(!sessionLongSounds.contains(entry.getKey())) {
+				itr.remove();
+				closeResource(entry.getValue());
+			}
+		}
+		sessionLongSounds.clear();
+		sessionActive = false;
+
+		cancelRelease();
+		if(!longSounds.isEmpty() || !wavReaders.isEmpty()) {
+			releaseTask = releaseExecutor.schedule(this::releaseIfIdle, releaseDelay, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Close long sounds if no session has been started since the
+	 * last call to {@link #endSession()}.
+	 */
+	private synchronized void releaseIfIdle() {
+		releaseTask = null;
+		if(sessionActive) return;
+		closeLongSounds();
+	}
+
+	private void cancelRelease() {
+		if(releaseTask != null) {
+			releaseTask.cancel(false);
+			releaseTask = null;
+		}
+	}
+
+	private void closeLongSounds() {
+		for(LongSound longSound:longSounds.values()) {
+			closeResource(longSound);
+		}
+		longSounds.clear();
+
+		for(Optional<WavSegmentReader> reader:wavReaders.values()) {
+			reader.ifPresent(this::closeReader);
+		}
+		wavReaders.clear();
+	}
+
+	private void closeReader(WavSegmentReader reader) {
+		try {
+			reader.close();
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, e.getLocalizedMessage(), e);
+		}
+	}
+
+	private void closeSessionResources() {
+		// close in reverse order of registration
+		for(int i = sessionResources.size() - 1; i >= 0; i--) {
+			closeResource(sessionResources.get(i));
+		}
+		sessionResources.clear();
+	}
+
+	private void closeResource(AutoCloseable resource) {
+		synchronized(PraatLibrary.LOCK) {
+			try {
+				resource.close();
+			} catch (Exception e) {
+				LOGGER.log(Level.WARNING, e.getLocalizedMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Close all resources including long sounds.
+	 */
+	@Override
+	public synchronized void close() {
+		endSession();
+		cancelRelease();
+		closeLongSounds();
+	}
+
+}
@@ -22,6 +22,8 @@ import org.apache.velocity.runtime.resource.loader.StringResourceLoader;
 import org.apache.velocity.runtime.resource.util.StringResourceRepository;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.*;
 import java.util.*;
 
 
@@ -29,9 +31,46 @@ import java.util.*;
  * Helper class for loading script templates
  * and filling in values.
  *
+ * A single velocity engine is shared by all scripts and
+ * parsed templates are cached using a hash of the script text.
  */
 public class PraatScript {
 	
+	/** Maximum number of parsed templates kept in memory */
+	public final static int TEMPLATE_CACHE_SIZE = 64;
+	
+	private final static String TEMPLATE_PREFIX = "praatscript-";
+	
+	private final static Map<String, Template> templateCache = 
+			new LinkedHashMap<>(TEMPLATE_CACHE_SIZE, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+					return size() > TEMPLATE_CACHE_SIZE;
+				}
+			};
+	
+	/**
+	 * Lazy holder for shared velocity engine
+	 */
+	private static class EngineHolder {
+		
+		private final static VelocityEngine ENGINE = createEngine();
+		
+		private static VelocityEngine createEngine() {
+			final Properties p = new Properties();
+			p.setProperty(RuntimeConstants.RESOURCE_LOADER, "string");
+			p.setProperty("string.resource.loader.class", "org.apache.velocity.runtime.resource.loader.StringResourceLoader");
+			p.setProperty("runtime.log.logsystem.class", "org.apache.velocity.runtime.log.JdkLogChute");
+			p.setProperty("runtime.log.logsystem.jdk.logger", "ca.phon.velocity");
+			p.setProperty("runtime.log.logsystem.jdk.logger.level", "FINE");
+			
+			final VelocityEngine ve = new VelocityEngine();
+			ve.init(p);
+			return ve;
+		}
+		
+	}
+	
 	private String scriptTemplate;
 	
 	private String scriptText;
@@ -70,6 +109,59 @@ public class PraatScript {
 	public void setScriptText(String scriptText) {
 		this.scriptText = scriptText;
 	}
+	
+	/**
+	 * Return the shared velocity engine
+	 * 
+	 * @return velocity engine
+	 */
+	public static VelocityEngine getVelocityEngine() {
+		return EngineHolder.ENGINE;
+	}
+	
+	static String hash(String text) {
+		try {
+			final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Get parsed template for given script text.  The string resource
+	 * used to parse the template is removed once the template is loaded.
+	 * 
+	 * @param scriptText
+	 * @return template
+	 */
+	static Template getTemplateForText(String scriptText) {
+		final String templateName = TEMPLATE_PREFIX + hash(scriptText);
+		synchronized(templateCache) {
+			Template retVal = templateCache.get(templateName);
+			if(retVal == null) {
+				final VelocityEngine ve = getVelocityEngine();
+				final StringResourceRepository repository = StringResourceLoader.getRepository();
+				repository.putStringResource(templateName, scriptText);
+				try {
+					retVal = ve.getTemplate(templateName);
+				} finally {
+					repository.removeStringResource(templateName);
+				}
+				templateCache.put(templateName, retVal);
+			}
+			return retVal;
+		}
+	}
+	
+	/**
+	 * Remove all parsed templates from cache
+	 */
+	public static void clearTemplateCache() {
+		synchronized(templateCache) {
+			templateCache.clear();
+		}
+	}
 
 	/**
 	 * Generate a script from the specified template
@@ -84,25 +176,11 @@ public class PraatScript {
 	 */
 	public String generateScript(PraatScriptContext ctx) 
 		throws IOException {
-		final Properties p = new Properties();
-		p.setProperty(RuntimeConstants.RESOURCE_LOADER, "string");
-		p.setProperty("string.resource.loader.class", "org.apache.velocity.runtime.resource.loader.StringResourceLoader");
-		p.setProperty("runtime.log.logsystem.class", "org.apache.velocity.runtime.log.JdkLogChute");
-		p.setProperty("runtime.log.logsystem.jdk.logger", "ca.phon.velocity");
-		p.setProperty("runtime.log.logsystem.jdk.logger.level", "FINE");
-		
-		final VelocityEngine ve = new VelocityEngine();
-		ve.init(p);
-		
-		if(scriptTemplate == null || scriptTemplate.length() == 0) {
-			// install string and set template name
-			scriptTemplate = UUID.randomUUID().toString();
-			StringResourceRepository repository = StringResourceLoader.getRepository();
-			repository.putStringResource(scriptTemplate, scriptText);
-		}
-		
 		// load template
-		final Template t = ve.getTemplate(getScriptTemplate());
+		final Template t = 
+				(scriptTemplate == null || scriptTemplate.length() == 0 
+					? getTemplateForText(scriptText)
+					: getVelocityEngine().getTemplate(getScriptTemplate()));
 		final StringWriter sw = new StringWriter();
 		
 		t.merge(ctx.velocityContext(), sw);
@@ -38,6 +38,15 @@ public class PraatScriptParam {
 	public PraatScriptParam() {
 		super();
 	}
+	
+	public PraatScriptParam(PraatScriptParam other) {
+		super();
+		this.name = other.name;
+		this.description = other.description;
+		this.prompt = other.prompt;
+		this.type = other.type;
+		this.defaultValue = other.defaultValue;
+	}
 
 	public String getName() {
 		return name;
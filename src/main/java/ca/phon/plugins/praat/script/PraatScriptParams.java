@@ -15,12 +15,18 @@
  */
 package ca.phon.plugins.praat.script;
 
+import java.text.ParseException;
 import java.util.*;
-import java.util.logging.Logger;
+import java.util.logging.*;
 import java.util.regex.*;
 
 /**
+ * Parses script parameters from the <code># BEGIN PARAMS #</code> section
+ * of a script.  The section contains a JSON array of parameter objects with
+ * properties <code>name</code>, <code>label</code>, <code>type</code>,
+ * <code>prompt</code> and <code>default</code>.
  * 
+ * Parsed parameters are cached using a hash of the script text.
  */
 public class PraatScriptParams {
 	
@@ -31,6 +37,19 @@ public class PraatScriptParams {
 	
 	private final static int REGEX_OPTIONS = Pattern.MULTILINE | Pattern.DOTALL;
 	
+	private final static Pattern PARAM_PATTERN = Pattern.compile(PARAM_REGEX, REGEX_OPTIONS);
+	
+	/** Maximum number of cached parameter lists */
+	public final static int PARAM_CACHE_SIZE = 256;
+	
+	private final static Map<String, List<PraatScriptParam>> paramCache = 
+			new LinkedHashMap<>(PARAM_CACHE_SIZE, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, List<PraatScriptParam>> eldest) {
+					return size() > PARAM_CACHE_SIZE;
+				}
+			};
+	
 	/**
 	 * Extract script param section from given text
 	 * 
@@ -38,46 +57,166 @@ public class PraatScriptParams {
 	 * @return param section if found
 	 */
 	public static String extractParamSection(String text) {
-		final Pattern pattern = Pattern.compile(PARAM_REGEX, REGEX_OPTIONS);
-		final Matcher matcher = pattern.matcher(text);
+		final Matcher matcher = PARAM_PATTERN.matcher(text);
 		if(matcher.find()) {
-			return matcher.group(1).replaceAll("#", "");
+			return matcher.group(1).replace("#", "");
 		}
 		return null;
 	}
 	
+	/**
+	 * Return parameters for the given script text.  Results are cached
+	 * using a hash of the script text.
+	 * 
+	 * @param scriptText
+	 * @return list of script params, empty if script has no param section
+	 */
+	public static List<PraatScriptParam> getScriptParams(String scriptText) {
+		final String key = PraatScript.hash(scriptText);
+		List<PraatScriptParam> params = null;
+		synchronized(paramCache) {
+			params = paramCache.get(key);
+		}
+		if(params == null) {
+			final String paramSection = extractParamSection(scriptText);
+			params = (paramSection != null ? parseScriptParams(paramSection) : new ArrayList<>());
+			synchronized(paramCache) {
+				paramCache.put(key, params);
+			}
+		}
+		
+		// return copies as params are mutable
+		final List<PraatScriptParam> retVal = new ArrayList<>(params.size());
+		for(PraatScriptParam param:params) retVal.add(new PraatScriptParam(param));
+		return retVal;
+	}
+	
+	/**
+	 * Remove all cached parameter lists
+	 */
+	public static void clearCache() {
+		synchronized(paramCache) {
+			paramCache.clear();
+		}
+	}
+	
+	/**
+	 * Parse script params from the given json array.
+	 * 
+	 * @param json
+	 * @return list of script params
+	 */
 	public static List<PraatScriptParam> parseScriptParams(String json) {
 		final List<PraatScriptParam> retVal = new ArrayList<PraatScriptParam>();
 		
-//		final JSONTokener tokenizer = new JSONTokener(json);
-//		final JSONArray jsonArray = new JSONArray(tokenizer);
-//		
-//		for(int i = 0; i < jsonArray.length(); i++) {
-//			final JSONObject jsonObj = jsonArray.getJSONObject(i);
-//			
-//			final String name = jsonObj.getString("name");
-//			final String label = jsonObj.getString("label");
-//			final String type = jsonObj.getString("type");
-//			final String prompt = jsonObj.getString("prompt");
-//			final Object defVal = jsonObj.get("default");
-//			
-//			
-//			try {
-//				final Class<?> clazz = Class.forName(type);
-//				
-//				final PraatScriptParam param = new PraatScriptParam();
-//				param.setName(name);
-//				param.setType(clazz);
-//				param.setDescription(label);
-//				param.setPrompt(prompt);
-//				param.setDefaultValue(defVal);
-//				retVal.add(param);
-//			} catch (ClassNotFoundException e) {
-//				LOGGER.log(Level.SEVERE, e.getLocalizedMessage(), e);
-//			}
-//		}
-//		
+		final Object parsed;
+		try {
+			parsed = SimpleJsonParser.parse(json);
+		} catch (ParseException e) {
+			LOGGER.log(Level.SEVERE, e.getLocalizedMessage(), e);
+			return retVal;
+		}
+		if(!(parsed instanceof List<?> jsonArray)) {
+			LOGGER.severe("Script params must be a json array");
+			return retVal;
+		}
+		
+		for(Object obj:jsonArray) {
+			if(!(obj instanceof Map<?, ?> jsonObj)) continue;
+			
+			final String name = stringValue(jsonObj.get("name"));
+			final String label = stringValue(jsonObj.get("label"));
+			final String type = stringValue(jsonObj.get("type"));
+			final String prompt = stringValue(jsonObj.get("prompt"));
+			final Object defVal = jsonObj.get("default");
+			
+			if(name == null) {
+				LOGGER.warning("Script param without name");
+				continue;
+			}
+			
+			try {
+				final Class<?> clazz = typeForName(type);
+				
+				final PraatScriptParam param = new PraatScriptParam();
+				param.setName(name);
+				param.setType(clazz);
+				param.setDescription(label);
+				param.setPrompt(prompt);
+				param.setDefaultValue(convertValue(defVal, clazz));
+				retVal.add(param);
+			} catch (ClassNotFoundException e) {
+				LOGGER.log(Level.SEVERE, e.getLocalizedMessage(), e);
+			}
+		}
+		
 		return retVal;
 	}
 	
+	private static String stringValue(Object obj) {
+		return (obj != null ? obj.toString() : null);
+	}
+	
+	/**
+	 * Return type for given name.  Short names (e.g., 'int', 'boolean', 'string')
+	 * are accepted as well as fully qualified class names.
+	 */
+	private static Class<?> typeForName(String type) throws ClassNotFoundException {
+		if(type == null) return String.class;
+		switch(type.toLowerCase()) {
+		case "string":
+		case "text":
+			return String.class;
+			
+		case "int":
+		case "integer":
+			return Integer.class;
+			
+		case "long":
+			return Long.class;
+			
+		case "float":
+			return Float.class;
+			
+		case "double":
+		case "real":
+		case "number":
+			return Double.class;
+			
+		case "bool":
+		case "boolean":
+			return Boolean.class;
+			
+		default:
+			return Class.forName(type);
+		}
+	}
+	
+	/**
+	 * Convert json value to the given type
+	 * 
+	 * @return converted value, original value if no conversion is possible
+	 */
+	private static Object convertValue(Object val, Class<?> type) {
+		if(val == null || type.isInstance(val)) return val;
+		try {
+			if(type == String.class) {
+				return val.toString();
+			} else if(type == Integer.class) {
+				return (val instanceof Number n ? Integer.valueOf(n.intValue()) : Integer.valueOf(val.toString().trim()));
+			} else if(type == Long.class) {
+				return (val instanceof Number n ? Long.valueOf(n.longValue()) : Long.valueOf(val.toString().trim()));
+			} else if(type == Float.class) {
+				return (val instanceof Number n ? Float.valueOf(n.floatValue()) : Float.valueOf(val.toString().trim()));
+			} else if(type == Double.class) {
+				return (val instanceof Number n ? Double.valueOf(n.doubleValue()) : Double.valueOf(val.toString().trim()));
+			} else if(type == Boolean.class) {
+				return Boolean.valueOf(val.toString().trim());
+			}
+		} catch (NumberFormatException e) {
+			LOGGER.log(Level.WARNING, e.getLocalizedMessage(), e);
+		}
+		return val;
+	}
+	
 }
@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat.script;
+
+import java.text.ParseException;
+import java.util.*;
+
+/**
+ * Minimal JSON parser for script parameter sections.  Objects are returned
+ * as {@link Map}s (in document order), arrays as {@link List}s, numbers as
+ * {@link Long} or {@link Double}, and <code>true</code>/<code>false</code>/<code>null</code>
+ * as {@link Boolean} or <code>null</code>.
+ */
+final class SimpleJsonParser {
+
+	private final String text;
+
+	private int pos;
+
+	private SimpleJsonParser(String text) {
+		this.text = text;
+		this.pos = 0;
+	}
+
+	/**
+	 * Parse given JSON text
+	 *
+	 * @param text
+	 * @return parsed value
+	 * @throws ParseException
+	 */
+	public static Object parse(String text) throws ParseException {
+		final SimpleJsonParser parser = new SimpleJsonParser(text);
+		final Object retVal = parser.readValue();
+		parser.skipWhitespace();
+		if(parser.pos < text.length()) {
+			throw new ParseException("Unexpected text after value", parser.pos);
+		}
+		return retVal;
+	}
+
+	private void skipWhitespace() {
+		while(pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+	}
+
+	private char peek() throws ParseException {
+		skipWhitespace();
+		if(pos >= text.length()) {
+			throw new ParseException("Unexpected end of input", pos);
+		}
+		return text.charAt(pos);
+	}
+
+	private void expect(char c) throws ParseException {
+		if(peek() != c) {
+			throw new ParseException("Expected '" + c + "'", pos);
+		}
+		pos++;
+	}
+
+	private Object readValue() throws ParseException {
+		final char c = peek();
+		switch(c) {
+		case '{':
+			return readObject();
+
+		case '[':
+			return readArray();
+
+		case '"':
+			return readString();
+
+		default:
+			if(c == '-' || (c >= '0' && c <= '9')) {
+				return readNumber();
+			} else if(text.startsWith("true", pos)) {
+				pos += 4;
+				return Boolean.TRUE;
+			} else if(text.startsWith("false", pos)) {
+				pos += 5;
+				return Boolean.FALSE;
+			} else if(text.startsWith("null", pos)) {
+				pos += 4;
+				return null;
+			}
+			throw new ParseException("Unexpected character '" + c + "'", pos);
+		}
+	}
+
+	private Map<String, Object> readObject() throws ParseException {
+		final Map<String, Object> retVal = new LinkedHashMap<>();
+		expect('{');
+		if(peek() == '}') {
+			pos++;
+			return retVal;
+		}
+		while(true) {
+			if(peek() != '"') {
+				throw new ParseException("Expected property name", pos);
+			}
+			final String key = readString();
+			expect(':');
+			retVal.put(key, readValue());
+
+			final char c = peek();
+			pos++;
+			if(c == '}') break;
+			else if(c != ',') throw new ParseException("Expected ',' or '}'", pos - 1);
+		}
+		return retVal;
+	}
+
+	private List<Object> readArray() throws ParseException {
+		final List<Object> retVal = new ArrayList<>();
+		expect('[');
+		if(peek() == ']') {
+			pos++;
+			return retVal;
+		}
+		while(true) {
+			retVal.add(readValue());
+
+			final char c = peek();
+			pos++;
+			if(c == ']') break;
+			else if(c != ',') throw new ParseException("Expected ',' or ']'", pos - 1);
+		}
+		return retVal;
+	}
+
+	private String readString() throws ParseException {
+		expect('"');
+		final StringBuilder sb = new StringBuilder();
+		while(pos < text.length()) {
+			final char c = text.charAt(pos++);
+			if(c == '"') {
+				return sb.toString();
+			} else if(c == '\\') {
+				if(pos >= text.length()) break;
+				final char esc = text.charAt(pos++);
+				switch(esc) {
+				case 'b': sb.append('\b'); break;
+				case 'f': sb.append('\f'); break;
+				case 'n': sb.append('\n'); break;
+				case 'r': sb.append('\r'); break;
+				case 't': sb.append('\t'); break;
+				case 'u':
+					if(pos + 4 > text.length()) throw new ParseException("Invalid unicode escape", pos);
+					try {
+						sb.append((char)Integer.parseInt(text.substring(pos, pos + 4), 16));
+					} catch (NumberFormatException e) {
+						throw new ParseException("Invalid unicode escape", pos);
+					}
+					pos += 4;
+					break;
+				case '"':
+				case '\\':
+				case '/':
+					sb.append(esc);
+					break;
+				default:
+					throw new ParseException("Invalid escape '\\" + esc + "'", pos - 1);
+				}
+			} else {
+				sb.append(c);
+			}
+		}
+		throw new ParseException("Unterminated string", pos);
+	}
+
+	/**
+	 * Read number using the JSON number grammar
+	 * <code>-?(0|[1-9][0-9]*)(\.[0-9]+)?([eE][+-]?[0-9]+)?</code>.
+	 * Integers which do not fit in a long are returned as doubles.
+	 */
+	private Number readNumber() throws ParseException {
+		final int start = pos;
+		boolean isDecimal = false;
+
+		if(pos < text.length() && text.charAt(pos) == '-') pos++;
+		if(pos < text.length() && text.charAt(pos) == '0') {
+			pos++;
+		} else if(readDigits() == 0) {
+			throw new ParseException("Invalid number", start);
+		}
+		if(pos < text.length() && text.charAt(pos) == '.') {
+			pos++;
+			isDecimal = true;
+			if(readDigits() == 0) throw new ParseException("Expected digit after '.'", pos);
+		}
+		if(pos < text.length() && (text.charAt(pos) == 'e' || text.charAt(pos) == 'E')) {
+			pos++;
+			isDecimal = true;
+			if(pos < text.length() && (text.charAt(pos) == '+' || text.charAt(pos) == '-')) pos++;
+			if(readDigits() == 0) throw new ParseException("Expected digit in exponent", pos);
+		}
+
+		final String num = text.substring(start, pos);
+		if(!isDecimal) {
+			try {
+				return Long.valueOf(num);
+			} catch (NumberFormatException e) {
+				// out of range for long
+			}
+		}
+		return Double.valueOf(num);
+	}
+
+	private int readDigits() {
+		final int start = pos;
+		while(pos < text.length() && text.charAt(pos) >= '0' && text.charAt(pos) <= '9') pos++;
+		return pos - start;
+	}
+
+}
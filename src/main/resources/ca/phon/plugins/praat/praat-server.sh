@@ -0,0 +1,66 @@
+#!/bin/sh
+#
+# Copyright (C) 2012-2018 Gregory Hedlund
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#    http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+#
+# Reference server for ca.phon.plugins.praat.PraatProcessRunner.  Requests
+# are read from standard input and each script is executed using
+# 'praat --run', output and exit status are written to standard output:
+#
+#   request:  #!request <id> <lineCount>
+#             <lineCount lines of script>
+#   response: #!response <id>
+#             <output lines>
+#             #!end <id> <status>
+#
+# The Praat executable may be set using the PRAAT environment variable.
+#
+# Note: this server does not keep Praat loaded, a new Praat process is
+# started for every request.  It exists to exercise the protocol and as a
+# template for a server which keeps a single Praat instance running.
+
+PRAAT="${PRAAT:-praat}"
+
+workdir=$(mktemp -d) || exit 1
+trap 'rm -rf "$workdir"' EXIT
+
+script="$workdir/script.praat"
+output="$workdir/output.txt"
+
+while IFS= read -r header; do
+	set -- $header
+	if [ "$1" != "#!request" ] || [ $# -ne 3 ]; then
+		continue
+	fi
+	id=$2
+	count=$3
+
+	: > "$script"
+	i=0
+	while [ "$i" -lt "$count" ] && IFS= read -r line; do
+		printf '%s\n' "$line" >> "$script"
+		i=$((i + 1))
+	done
+
+	"$PRAAT" --run "$script" > "$output" 2>&1
+	status=$?
+
+	printf '#!response %s\n' "$id"
+	if [ -s "$output" ]; then
+		cat "$output"
+		# make sure end marker starts on a new line
+		[ -n "$(tail -c 1 "$output")" ] && printf '\n'
+	fi
+	printf '#!end %s %s\n' "$id" "$status"
+done
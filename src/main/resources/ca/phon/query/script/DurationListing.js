@@ -69,6 +69,7 @@ function setup_params(params) {
 importPackage(java.io)
 importPackage(Packages.ca.phon.textgrid)
 importPackage(Packages.ca.phon.plugins.praat)
+importPackage(Packages.ca.phon.plugins.praat.script)
 importPackage(Packages.ca.hedlund.jpraat.binding)
 importPackage(Packages.ca.hedlund.jpraat.binding.fon)
 importPackage(Packages.ca.hedlund.jpraat.binding.sys)
@@ -80,11 +81,17 @@ importPackage(Packages.ca.phon.media.util)
 var session;
 var textGridManager;
 var textGrid;
+var annotator;
+// native resources are closed at the end of each session
+var scope;
 
 var printedTableHeader = false;
 
 function begin_search(s) {
 	session = s;
+	scope = PraatQueryScriptHandler.getResourceScope();
+	scope.beginSession();
+	annotator = null;
 	printedTableHeader = false;
 	
 	textGridManager = new TextGridManager(project);
@@ -93,6 +100,11 @@ function begin_search(s) {
 		textGrid = textGridManager.openTextGrid(s.corpus, s.name, tgName);
 		if(textGrid == null) {
 			java.lang.System.err.println("No TextGrid found for session with name " + tgName);
+		} else {
+			// index intervals once and release native TextGrid
+			annotator = scope.register(TextGridRecordAnnotator.forTextGrid(textGrid));
+			textGrid.close();
+			textGrid = null;
 		}
 	} catch (e) {
 		java.lang.System.err.println(e.message);
@@ -100,23 +112,8 @@ function begin_search(s) {
 }
 
 function annotateRecord(r) {
-	if(textGrid == null) return;
-	
-	// extract record from textgrid
-	if(r.segment.numberOfGroups() == 0) return;
-	mediaSeg = r.segment.getGroup(0);
-	
-	startTime = mediaSeg.startValue / 1000.0;
-	endTime = mediaSeg.endValue / 1000.0;
-	if(endTime - startTime <= 0) return;
-	
-	if(startTime <= textGrid.xmin || endTime >= textGrid.xmax) return;
-	
-	tg = textGrid.extractPart(startTime, endTime, 1);
-	if(tg == null) return;
-	
-	tga = new TextGridAnnotator();
-	tga.annotateRecord(tg, r);
+	if(annotator == null) return;
+	annotator.annotateRecord(r);
 }
 
 function listDuration(recordIndex, groupIndex, ipa) {
@@ -251,3 +248,8 @@ function query_record(recordIndex, record) {
 		}
 	}
 }
+
+function end_search(s) {
+	scope.endSession();
+	annotator = null;
+}
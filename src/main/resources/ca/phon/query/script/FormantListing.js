@@ -75,6 +75,7 @@ function setup_params(params) {
 importPackage(java.io)
 importPackage(Packages.ca.phon.textgrid)
 importPackage(Packages.ca.phon.plugins.praat)
+importPackage(Packages.ca.phon.plugins.praat.script)
 importPackage(Packages.ca.hedlund.jpraat.binding)
 importPackage(Packages.ca.hedlund.jpraat.binding.fon)
 importPackage(Packages.ca.hedlund.jpraat.binding.sys)
@@ -86,8 +87,19 @@ importPackage(Packages.ca.phon.media.util)
 var session;
 var textGridManager;
 var textGrid;
+var annotator;
+// native resources are closed at the end of each session
+var scope;
 
-var longSound;
+// analysis is performed in Java, scripts only format output
+var analysisService;
+var formantSettings;
+var wavFile;
+// requests are analysed in batches of at most MAX_BATCH_SIZE, remaining
+// requests are analysed in end_search
+var MAX_BATCH_SIZE = 256;
+var requests;
+var listed;
 
 var printedTableHeader = false;
 
@@ -120,24 +132,37 @@ function getMediaFile(s) {
 
 function begin_search(s) {
 	session = s;
+	scope = PraatQueryScriptHandler.getResourceScope();
+	scope.beginSession();
+	annotator = null;
+	wavFile = null;
 	printedTableHeader = false;
+	requests = new java.util.ArrayList();
+	listed = new Array();
 	
 	textGridManager = new TextGridManager(project);
 	
-	wavPath = getMediaFile(s);
-	if(wavPath != null) { 
-		wavPath = wavPath.getAbsolutePath();
+	wavFile = getMediaFile(s);
+	analysisService = PraatQueryScriptHandler.getAnalysisService();
 	
-		// load our audio file
-		var mf = MelderFile.fromPath(wavPath);
-		longSound = LongSound.open(mf);
-	}
+	formantSettings = new FormantSettings();
+	formantSettings.setNumFormants(parseInt(filters.formantOpts.maxFormants));
+	formantSettings.setWindowLength(parseFloat(filters.formantOpts.windowLength));
+	formantSettings.setMaxFrequency(parseFloat(filters.formantOpts.maxFreq));
+	formantSettings.setTimeStep(parseFloat(filters.formantOpts.timeStep));
+	formantSettings.setPreEmphasis(parseFloat(filters.formantOpts.preEmp));
+	formantSettings.setIncludeBandwidths(filters.formantOpts.includeBandwidths == true);
 	
 	try {
 		tgName = (filters.textGridName.name.length() > 0 ? filters.textGridName.name : textGridManager.defaultTextGridName(s.corpus, s.name));
 		textGrid = textGridManager.openTextGrid(s.corpus, s.name, tgName);
 		if(textGrid == null) {
 			err.println("No TextGrid found for session with name " + tgName);
+		} else {
+			// index intervals once and release native TextGrid
+			annotator = scope.register(TextGridRecordAnnotator.forTextGrid(textGrid));
+			textGrid.close();
+			textGrid = null;
 		}
 	} catch (e) {
 		err.println(e.message);
@@ -145,42 +170,36 @@ function begin_search(s) {
 }
 
 function annotateRecord(r) {
-	if(textGrid == null) return;
-	
-	// extract record from textgrid
-	if(r.segment.numberOfGroups() == 0) return;
-	mediaSeg = r.segment.getGroup(0);
-	
-	startTime = mediaSeg.startValue / 1000.0;
-	endTime = mediaSeg.endValue / 1000.0;
-	if(endTime - startTime <= 0) return;
-	
-	if(startTime <= textGrid.xmin || endTime >= textGrid.xmax) return;
-	
-	tg = textGrid.extractPart(startTime, endTime, 1);
-	if(tg == null) return;
+	if(annotator == null) return;
+	annotator.annotateRecord(r);
+}
+
+function getIntervalTimes(ipa) {
+	var tgi = ipa.textInterval;
+	if(tgi != null) return { start: tgi.getXmin(), end: tgi.getXmax() };
+	if(ipa.length() == 0) return null;
 	
-	tga = new TextGridAnnotator();
-	tga.annotateRecord(tg, r);
+	tgi = ipa.elementAt(0).textInterval;
+	if(tgi == null) {
+		err.println("No TextGrid information for " + ipa);
+		return null;
+	}
+	var times = { start: tgi.getXmin(), end: tgi.getXmax() };
+	var lastTgi = ipa.elementAt(ipa.length()-1).textInterval;
+	if(ipa.length() > 1 && lastTgi != null) {
+		times.end = lastTgi.getXmax();
+	}
+	return times;
 }
 
-function listFormants(recordIndex, groupIndex, formants, ipa) {
-	tgi = ipa.textInterval;
-	if(tgi == null && ipa.length() > 0) {
-		tgi = ipa.elementAt(0).textInterval;
-		if(tgi == null) {
-			err.println("No TextGrid information for " + ipa);
-			return;
-		}
-		if(ipa.length() > 1 && ipa.elementAt(ipa.length()-1).textInterval) {
-			tgi = TextInterval.create(
-				tgi.getXmin(), ipa.elementAt(ipa.length()-1).textInterval.getXmax(), ipa.text);
-		}
+function listFormants(recordIndex, groupIndex, ipa, times, result) {
+	if(result.isError()) {
+		err.println("Unable to load formant information for " + ipa + ": " + result.error);
+		return;
 	}
 	
-	len = tgi.getXmax() - tgi.getXmin();
-	timeStep = len / 10.0;
-	numFormants = filters.formantOpts.maxFormants;
+	numFormants = formantSettings.numFormants;
+	includeBandwidths = formantSettings.includeBandwidths;
 	var nf = java.text.NumberFormat.getNumberInstance();
 	nf.setMaximumFractionDigits(6);
 	
@@ -195,7 +214,7 @@ function listFormants(recordIndex, groupIndex, formants, ipa) {
 				colName = "F" + fcol + "" + i;
 				out.print(",\"" + colName + "\"");
 				
-				if(filters.formantOpts.includeBandwidths == true) {
+				if(includeBandwidths == true) {
 					colName = "B" + fcol + "" + i;
 					out.print(",\"" + colName + "\"");
 				}
@@ -209,18 +228,17 @@ function listFormants(recordIndex, groupIndex, formants, ipa) {
     out.print("\"" + (recordIndex+1) + "\",");
     out.print("\"" + (groupIndex+1) + "\",");
 	out.print("\"" + ipa.toString() + "\",");
-	out.print("\"" + nf.format(tgi.getXmin()) + "\",");
-	out.print("\"" + nf.format(tgi.getXmax()) + "\"");
+	out.print("\"" + nf.format(times.start) + "\",");
+	out.print("\"" + nf.format(times.end) + "\"");
 	
-	for(fnum = 1; fnum <= numFormants; fnum++) {
-		for(i = 10; i < 100; i += 10) {
-			time = tgi.getXmin() + (timeStep * (i/10));
-			fval = formants.getValueAtTime(fnum, time, 0);
-			out.print(",\"" + nf.format(fval) + "\"");
+	// values has one row per formant followed by bandwidth rows
+	var values = result.values;
+	for(fnum = 0; fnum < numFormants; fnum++) {
+		for(i = 0; i < 9; i++) {
+			out.print(",\"" + nf.format(values[fnum][i]) + "\"");
 			
-			if(filters.formantOpts.includeBandwidths == true) {
-				bval = formants.getBandwidthAtTime(fnum, time, 0);
-				out.print(",\"" + nf.format(bval) + "\"");
+			if(includeBandwidths == true) {
+				out.print(",\"" + nf.format(values[numFormants + fnum][i]) + "\"");
 			}
 		}
 	}
@@ -246,26 +264,18 @@ function query_record(recordIndex, record) {
 	// annotate record with text grid information
 	annotateRecord(record);
 	
-	// get formant information
 	segment = (record.segment.numberOfGroups() == 1 ? record.segment.getGroup(0) : null);
-	var formants = null;
-	if(segment) {
-		sound = longSound.extractPart(segment.startValue / 1000.0, segment.endValue / 1000.0, 1);
-		formants = sound.to_Formant_burg(
-			filters.formantOpts.timeStep,
-			filters.formantOpts.maxFormants,
-			filters.formantOpts.maxFreq,
-			filters.formantOpts.windowLength,
-			filters.formantOpts.preEmp);
-	} else {
+	if(!segment) {
 		err.println("Record " + recordIndex + " does not have segment information.");
 		return;
 	}
-	
-	if(formants == null) {
-		err.println("Unable to load formant information for record " + recordIndex);
+	if(wavFile == null) {
+		err.println("No audio file found for session " + session.corpus + "." + session.name);
 		return;
 	}
+	
+	// matches are listed after analysis in end_search
+	var pending = new Array();
 
 	// perform searches
 	for(var i = 0; i < groups.length; i++)
@@ -323,7 +333,7 @@ function query_record(recordIndex, record) {
 		    for(k = 0; k < matches.length; k++) {
     	        var match = matches[k];
     	        
-    	        listFormants(recordIndex, i, formants, match.value);
+    	        pending.push({ groupIndex: i, ipa: match.value });
     	        
     			var result = factory.createResult();
     			// calculate start/end positions of data in text
@@ -344,4 +354,47 @@ function query_record(recordIndex, record) {
     	    }
 		}
 	}
+	
+	// queue formant requests, analysed when the batch is full or in end_search
+	for(j = 0; j < pending.length; j++) {
+		var times = getIntervalTimes(pending[j].ipa);
+		if(times == null) continue;
+		
+		requests.add(new AcousticAnalysisService.AnalysisRequest(wavFile,
+			segment.startValue / 1000.0, segment.endValue / 1000.0, times.start, times.end,
+			AcousticAnalysisService.Measure.FORMANTS, formantSettings));
+		pending[j].recordIndex = recordIndex;
+		pending[j].times = times;
+		listed.push(pending[j]);
+	}
+	if(requests.size() >= MAX_BATCH_SIZE) {
+		flushRequests();
+	}
+}
+
+/*
+ * Analyse queued requests and list results, matches are listed in
+ * record order.
+ */
+function flushRequests() {
+	if(requests.size() > 0) {
+		// long sounds are owned by the scope and closed with the session
+		var analysisResults = analysisService.analyze(requests, scope);
+		for(j = 0; j < listed.length; j++) {
+			listFormants(listed[j].recordIndex, listed[j].groupIndex, listed[j].ipa, listed[j].times, analysisResults.get(j));
+		}
+	}
+	requests = new java.util.ArrayList();
+	listed = new Array();
+}
+
+function end_search(s) {
+	try {
+		flushRequests();
+	} finally {
+		requests = null;
+		listed = null;
+		scope.endSession();
+		annotator = null;
+	}
 }
@@ -76,6 +76,7 @@ function setup_params(params) {
 importPackage(java.io)
 importPackage(Packages.ca.phon.textgrid)
 importPackage(Packages.ca.phon.plugins.praat)
+importPackage(Packages.ca.phon.plugins.praat.script)
 importPackage(Packages.ca.hedlund.jpraat.binding)
 importPackage(Packages.ca.hedlund.jpraat.binding.fon)
 importPackage(Packages.ca.hedlund.jpraat.binding.sys)
@@ -87,6 +88,9 @@ importPackage(Packages.ca.phon.media.util)
 var session;
 var textGridManager;
 var textGrid;
+var annotator;
+// native resources are closed at the end of each session
+var scope;
 var longSound;
 
 var printedTableHeader = false;
@@ -120,6 +124,10 @@ function getMediaFile(s) {
 
 function begin_search(s) {
 	session = s;
+	scope = PraatQueryScriptHandler.getResourceScope();
+	scope.beginSession();
+	annotator = null;
+	longSound = null;
 	printedTableHeader = false;
 	
 	textGridManager = new TextGridManager(project);
@@ -129,8 +137,7 @@ function begin_search(s) {
 		wavPath = wavPath.getAbsolutePath();
 	
 		// load our audio file
-		var mf = MelderFile.fromPath(wavPath);
-		longSound = LongSound.open(mf);
+		longSound = scope.openLongSound(new File(wavPath));
 	}
 	
 	try {
@@ -138,6 +145,11 @@ function begin_search(s) {
 		textGrid = textGridManager.openTextGrid(s.corpus, s.name, tgName);
 		if(textGrid == null) {
 			err.println("No TextGrid found for session with name " + tgName);
+		} else {
+			// index intervals once and release native TextGrid
+			annotator = scope.register(TextGridRecordAnnotator.forTextGrid(textGrid));
+			textGrid.close();
+			textGrid = null;
 		}
 	} catch (e) {
 		err.println(e.message);
@@ -145,23 +157,8 @@ function begin_search(s) {
 }
 
 function annotateRecord(r) {
-	if(textGrid == null) return;
-	
-	// extract record from textgrid
-	if(r.segment.numberOfGroups() == 0) return;
-	mediaSeg = r.segment.getGroup(0);
-	
-	startTime = mediaSeg.startValue / 1000.0;
-	endTime = mediaSeg.endValue / 1000.0;
-	if(endTime - startTime <= 0) return;
-	
-	if(startTime <= textGrid.xmin || endTime >= textGrid.xmax) return;
-	
-	tg = textGrid.extractPart(startTime, endTime, 1);
-	if(tg == null) return;
-	
-	tga = new TextGridAnnotator();
-	tga.annotateRecord(tg, r);
+	if(annotator == null) return;
+	annotator.annotateRecord(r);
 }
 
 function listIntensity(recordIndex, groupIndex, intensity, ipa) {
@@ -241,6 +238,7 @@ function query_record(recordIndex, record) {
 		    filters.intensityOpts.minPitch,
 		    filters.intensityOpts.timeStep,
 		    (filters.intensityOpts.subtractMean ? 1 : 0));
+		sound.close();
 	} else {
 		err.println("Record " + recordIndex + " does not have segment information.");
 		return;
@@ -329,3 +327,9 @@ function query_record(recordIndex, record) {
 		}
 	}
 }
+
+function end_search(s) {
+	scope.endSession();
+	annotator = null;
+	longSound = null;
+}
@@ -76,6 +76,7 @@ function setup_params(params) {
 importPackage(java.io)
 importPackage(Packages.ca.phon.textgrid)
 importPackage(Packages.ca.phon.plugins.praat)
+importPackage(Packages.ca.phon.plugins.praat.script)
 importPackage(Packages.ca.hedlund.jpraat.binding)
 importPackage(Packages.ca.hedlund.jpraat.binding.fon)
 importPackage(Packages.ca.hedlund.jpraat.binding.sys)
@@ -87,7 +88,18 @@ importPackage(Packages.ca.phon.media.util)
 var session;
 var textGridManager;
 var textGrid;
-var longSound;
+var annotator;
+// native resources are closed at the end of each session
+var scope;
+// analysis is performed in Java, scripts only format output
+var analysisService;
+var pitchSettings;
+var wavFile;
+// requests are analysed in batches of at most MAX_BATCH_SIZE, remaining
+// requests are analysed in end_search
+var MAX_BATCH_SIZE = 256;
+var requests;
+var listed;
 
 var printedTableHeader = false;
 
@@ -120,24 +132,43 @@ function getMediaFile(s) {
 
 function begin_search(s) {
 	session = s;
+	scope = PraatQueryScriptHandler.getResourceScope();
+	scope.beginSession();
+	annotator = null;
+	wavFile = null;
 	printedTableHeader = false;
+	requests = new java.util.ArrayList();
+	listed = new Array();
 	
 	textGridManager = new TextGridManager(project);
 	
-	wavPath = getMediaFile(s);
-	if(wavPath != null) { 
-		wavPath = wavPath.getAbsolutePath();
+	wavFile = getMediaFile(s);
+	analysisService = PraatQueryScriptHandler.getAnalysisService();
 	
-		// load our audio file
-		var mf = MelderFile.fromPath(wavPath);
-		longSound = LongSound.open(mf);
-	}
+	pitchSettings = new PitchSettings();
+	pitchSettings.setTimeStep(parseFloat(filters.pitchOpts.timeStep));
+	pitchSettings.setRangeStart(parseFloat(filters.pitchOpts.rangeStart));
+	pitchSettings.setRangeEnd(parseFloat(filters.pitchOpts.rangeEnd));
+	pitchSettings.setUnits(kPitch_unit.fromString(filters.pitchOpts.unitType));
+	pitchSettings.setAutoCorrelate(filters.pitchOpts.corType.index == 0);
+	pitchSettings.setMaxCandidates(parseInt(filters.pitchOpts.maxCandidates));
+	pitchSettings.setVeryAccurate(filters.pitchOpts.veryAccurate == true);
+	pitchSettings.setSilenceThreshold(parseFloat(filters.pitchOpts.silenceThreshold));
+	pitchSettings.setVoicingThreshold(parseFloat(filters.pitchOpts.voicingThreshold));
+	pitchSettings.setOctaveCost(parseFloat(filters.pitchOpts.octaveCost));
+	pitchSettings.setOctaveJumpCost(parseFloat(filters.pitchOpts.octaveJumpCost));
+	pitchSettings.setVoicedUnvoicedCost(parseFloat(filters.pitchOpts.vUnvCost));
 	
 	try {
 		tgName = (filters.textGridName.name.length() > 0 ? filters.textGridName.name : textGridManager.defaultTextGridName(s.corpus, s.name));
 		textGrid = textGridManager.openTextGrid(s.corpus, s.name, tgName);
 		if(textGrid == null) {
 			err.println("No TextGrid found for session with name " + tgName);
+		} else {
+			// index intervals once and release native TextGrid
+			annotator = scope.register(TextGridRecordAnnotator.forTextGrid(textGrid));
+			textGrid.close();
+			textGrid = null;
 		}
 	} catch (e) {
 		err.println(e.message);
@@ -145,66 +176,47 @@ function begin_search(s) {
 }
 
 function annotateRecord(r) {
-	if(textGrid == null) return;
-	
-	// extract record from textgrid
-	if(r.segment.numberOfGroups() == 0) return;
-	mediaSeg = r.segment.getGroup(0);
-	
-	startTime = mediaSeg.startValue / 1000.0;
-	endTime = mediaSeg.endValue / 1000.0;
-	if(endTime - startTime <= 0) return;
-	
-	if(startTime <= textGrid.xmin || endTime >= textGrid.xmax) return;
-	
-	tg = textGrid.extractPart(startTime, endTime, 1);
-	if(tg == null) return;
+	if(annotator == null) return;
+	annotator.annotateRecord(r);
+}
+
+function getIntervalTimes(ipa) {
+	var tgi = ipa.textInterval;
+	if(tgi != null) return { start: tgi.getXmin(), end: tgi.getXmax() };
+	if(ipa.length() == 0) return null;
 	
-	tga = new TextGridAnnotator();
-	tga.annotateRecord(tg, r);
+	tgi = ipa.elementAt(0).textInterval;
+	if(tgi == null) {
+		err.println("No TextGrid information for " + ipa);
+		return null;
+	}
+	var times = { start: tgi.getXmin(), end: tgi.getXmax() };
+	var lastTgi = ipa.elementAt(ipa.length()-1).textInterval;
+	if(ipa.length() > 1 && lastTgi != null) {
+		times.end = lastTgi.getXmax();
+	}
+	return times;
 }
 
-function listPitch(recordIndex, groupIndex, pitch, ipa) {
-	tgi = ipa.textInterval;
-	if(tgi == null && ipa.length() > 0) {
-		tgi = ipa.elementAt(0).textInterval;
-		if(tgi == null) {
-			err.println("No TextGrid information for " + ipa);
-			return;
-		}
-		if(ipa.length() > 1 && ipa.elementAt(ipa.length()-1).textInterval) {
-			tgi = TextInterval(
-				tgi.getXmin(), ipa.elementAt(ipa.length()-1).textGridInterval.getXmax(), ipa.text);
-		}
+function listPitch(recordIndex, groupIndex, ipa, result) {
+	if(result.isError()) {
+		err.println("Unable to load pitch information for " + ipa + ": " + result.error);
+		return;
 	}
 	
-	var ixminPtr = new AtomicReference(new java.lang.Long(0));
-	var ixmaxPtr = new AtomicReference(new java.lang.Long(0));
-	
-	pitch.getWindowSamples(tgi.getXmin(), tgi.getXmax(), ixminPtr, ixmaxPtr);
-	
-	var xmin = ixminPtr.get().intValue();
-	var xmax = ixmaxPtr.get().intValue();
-	
-	var pitchUnit = kPitch_unit.fromString(filters.pitchOpts.unitType);
-	var unitTxt = pitch.getUnitText(Pitch.LEVEL_FREQUENCY, pitchUnit,
-	    Packages.ca.hedlund.jpraat.binding.fon.Function.UNIT_TEXT_SHORT);
-	
 	var nf = java.text.NumberFormat.getNumberInstance();
 	nf.setMaximumFractionDigits(6);
 	
 	// print header
 	if(!printedTableHeader) {
-	    out.println("\"record\",\"group\",\"ipa\",\"Time(s)\",\"F0(" + unitTxt + ")\"");
+	    out.println("\"record\",\"group\",\"ipa\",\"Time(s)\",\"F0(" + result.unitText + ")\"");
 	    printedTableHeader = true;
 	}
 	
-    for(i = xmin; i <= xmax; i++) {
-        var t = pitch.indexToX(i);
-        var f0 = pitch.getValueAtSample(i, Pitch.LEVEL_FREQUENCY, pitchUnit.ordinal());
-        f0 = pitch.convertToNonlogarithmic(f0, Pitch.LEVEL_FREQUENCY, pitchUnit.ordinal());
-        
-        if(i == xmin) {
+	var times = result.times;
+	var f0 = result.getValues(0);
+    for(i = 0; i < times.length; i++) {
+        if(i == 0) {
             out.print("\"" + (recordIndex+1) + "\",");
             out.print("\"" + (groupIndex+1) + "\",");
         } else {
@@ -213,8 +225,8 @@ function listPitch(recordIndex, groupIndex, pitch, ipa) {
         }
        
         out.print("\"" + ipa + "\",");
-        out.print("\"" + nf.format(t) + "\",");
-        out.print("\"" + nf.format(f0) + "\"\n");
+        out.print("\"" + nf.format(times[i]) + "\",");
+        out.print("\"" + nf.format(f0[i]) + "\"\n");
     }
     out.flush();
 }
@@ -237,33 +249,18 @@ function query_record(recordIndex, record) {
 	// annotate record with text grid information
 	annotateRecord(record);
 	
-	// get formant information
 	segment = (record.segment.numberOfGroups() == 1 ? record.segment.getGroup(0) : null);
-	var pitch = null;
-	if(segment) {
-		sound = longSound.extractPart(segment.startValue / 1000.0, segment.endValue / 1000.0, 1);
-		if(filters.pitchOpts.corType.index == 0) {
-		    // auto-correlate
-		    pitch = sound.to_Pitch_ac(filters.pitchOpts.timeStep, filters.pitchOpts.rangeStart, 3.0, 
-					filters.pitchOpts.maxCandidates, (filters.pitchOpts.veryAccurate ? 1 : 0), filters.pitchOpts.silenceThreshold, 
-					filters.pitchOpts.voicingThreshold, filters.pitchOpts.octaveCost, 
-					filters.pitchOpts.octaveJumpCost, filters.pitchOpts.vUnvCost, filters.pitchOpts.rangeEnd);
-		} else {
-		    // cross-correlate
-		    pitch = sound.to_Pitch_cc(filters.pitchOpts.timeStep, filters.pitchOpts.rangeStart, 3.0, 
-				filters.pitchOpts.maxCandidates, (filters.pitchOpts.veryAccurate ? 1 : 0), filters.pitchOpts.silenceThreshold, 
-				filters.pitchOpts.voicingThreshold, filters.pitchOpts.octaveCost, 
-				filters.pitchOpts.octaveJumpCost, filters.pitchOpts.vUnvCost, filters.pitchOpts.rangeEnd);
-		}
-	} else {
+	if(!segment) {
 		err.println("Record " + recordIndex + " does not have segment information.");
 		return;
 	}
-	
-	if(pitch == null) {
-		err.println("Unable to load pitch information for record " + recordIndex);
+	if(wavFile == null) {
+		err.println("No audio file found for session " + session.corpus + "." + session.name);
 		return;
 	}
+	
+	// matches are listed after analysis in end_search
+	var pending = new Array();
 
 	// perform searches
 	for(var i = 0; i < groups.length; i++)
@@ -321,7 +318,7 @@ function query_record(recordIndex, record) {
 		    for(k = 0; k < matches.length; k++) {
     	        var match = matches[k];
     	        
-    	        listPitch(recordIndex, i, pitch, match.value);
+    	        pending.push({ groupIndex: i, ipa: match.value });
     	        
     			var result = factory.createResult();
     			// calculate start/end positions of data in text
@@ -342,4 +339,46 @@ function query_record(recordIndex, record) {
     	    }
 		}
 	}
+	
+	// queue pitch requests, analysed when the batch is full or in end_search
+	for(j = 0; j < pending.length; j++) {
+		var times = getIntervalTimes(pending[j].ipa);
+		if(times == null) continue;
+		
+		requests.add(new AcousticAnalysisService.AnalysisRequest(wavFile,
+			segment.startValue / 1000.0, segment.endValue / 1000.0, times.start, times.end,
+			AcousticAnalysisService.Measure.PITCH, pitchSettings));
+		pending[j].recordIndex = recordIndex;
+		listed.push(pending[j]);
+	}
+	if(requests.size() >= MAX_BATCH_SIZE) {
+		flushRequests();
+	}
+}
+
+/*
+ * Analyse queued requests and list results, matches are listed in
+ * record order.
+ */
+function flushRequests() {
+	if(requests.size() > 0) {
+		// long sounds are owned by the scope and closed with the session
+		var analysisResults = analysisService.analyze(requests, scope);
+		for(j = 0; j < listed.length; j++) {
+			listPitch(listed[j].recordIndex, listed[j].groupIndex, listed[j].ipa, analysisResults.get(j));
+		}
+	}
+	requests = new java.util.ArrayList();
+	listed = new Array();
+}
+
+function end_search(s) {
+	try {
+		flushRequests();
+	} finally {
+		requests = null;
+		listed = null;
+		scope.endSession();
+		annotator = null;
+	}
 }
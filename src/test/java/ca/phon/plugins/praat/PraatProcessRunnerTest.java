@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests {@link PraatProcessRunner} using the reference server script
+ * with a stand-in for the Praat executable which echoes the script.
+ */
+@RunWith(JUnit4.class)
+public class PraatProcessRunnerTest {
+
+	private final static String FAKE_PRAAT =
+			"#!/bin/sh\n" +
+			"[ \"$1\" = \"--run\" ] || exit 2\n" +
+			"if grep -q '^exitScript' \"$2\"; then echo failed; exit 1; fi\n" +
+			"cat \"$2\"\n";
+
+	private Path tempFolder;
+
+	private PraatProcessRunner runner;
+
+	@Before
+	public void setUp() throws IOException {
+		assumeTrue(new File("/bin/sh").canExecute());
+		tempFolder = Files.createTempDirectory("praatrunner");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		if(runner != null) runner.close();
+		if(tempFolder != null) {
+			try(var paths = Files.walk(tempFolder)) {
+				paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+			}
+		}
+	}
+
+	private PraatProcessRunner createReferenceRunner() throws IOException {
+		final Path serverScript = tempFolder.resolve("praat-server.sh");
+		try(InputStream in = PraatProcessRunner.class.getResourceAsStream(PraatProcessRunner.REFERENCE_SERVER_SCRIPT)) {
+			assertNotNull(in);
+			Files.copy(in, serverScript);
+		}
+		final Path fakePraat = tempFolder.resolve("praat");
+		Files.writeString(fakePraat, FAKE_PRAAT, StandardCharsets.UTF_8);
+		assertTrue(fakePraat.toFile().setExecutable(true));
+
+		return new PraatProcessRunner(List.of("env", "PRAAT=" + fakePraat, "sh", serverScript.toString()));
+	}
+
+	@Test
+	public void testPipelinedRequests() throws Exception {
+		runner = createReferenceRunner();
+
+		final List<String> scripts = List.of("writeInfoLine: \"a\"", "b = 1\nwriteInfoLine: b", "");
+		final List<CompletableFuture<String>> futures = new ArrayList<>();
+		for(String script:scripts) futures.add(runner.submit(script));
+
+		for(int i = 0; i < scripts.size(); i++) {
+			assertEquals(scripts.get(i) + "\n", futures.get(i).get(10, TimeUnit.SECONDS));
+		}
+		assertEquals(0, runner.getPendingCount());
+		assertTrue(runner.isRunning());
+	}
+
+	@Test
+	public void testScriptFailure() throws Exception {
+		runner = createReferenceRunner();
+
+		try {
+			runner.submit("exitScript: \"error\"").get(10, TimeUnit.SECONDS);
+			fail("Expected script failure");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IOException);
+			assertTrue(e.getCause().getMessage().contains("status 1"));
+		}
+		// server is still usable after a failed script
+		assertEquals("x\n", runner.submit("x").get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testProtocolErrorDestroysServer() throws Exception {
+		runner = new PraatProcessRunner(List.of("sh", "-c", "read line; echo '#!response x'; exec sleep 60"));
+
+		try {
+			runner.submit("x").get(10, TimeUnit.SECONDS);
+			fail("Expected protocol error");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+		assertFalse(runner.isRunning());
+
+		// server process must not be left running
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while(ProcessHandle.current().children().anyMatch(ProcessHandle::isAlive)
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(50L);
+		}
+		assertFalse(ProcessHandle.current().children().anyMatch(ProcessHandle::isAlive));
+	}
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class TextGridReaderTest {
+
+	final static String LONG_FORMAT =
+			"File type = \"ooTextFile\"\n" +
+			"Object class = \"TextGrid\"\n" +
+			"\n" +
+			"xmin = 0 \n" +
+			"xmax = 2.5 \n" +
+			"tiers? <exists> \n" +
+			"size = 2 \n" +
+			"item []: \n" +
+			"    item [1]:\n" +
+			"        class = \"IntervalTier\" \n" +
+			"        name = \"words\" \n" +
+			"        xmin = 0 \n" +
+			"        xmax = 2.5 \n" +
+			"        intervals: size = 3 \n" +
+			"        intervals [1]:\n" +
+			"            xmin = 0 \n" +
+			"            xmax = 0.75 \n" +
+			"            text = \"\" \n" +
+			"        intervals [2]:\n" +
+			"            xmin = 0.75 \n" +
+			"            xmax = 1.5 \n" +
+			"            text = \"say \"\"hi\"\"\" \n" +
+			"        intervals [3]:\n" +
+			"            xmin = 1.5 \n" +
+			"            xmax = 2.5 \n" +
+			"            text = \"caf\u00e9\" \n" +
+			"    item [2]:\n" +
+			"        class = \"TextTier\" \n" +
+			"        name = \"bursts\" \n" +
+			"        xmin = 0 \n" +
+			"        xmax = 2.5 \n" +
+			"        points: size = 2 \n" +
+			"        points [1]:\n" +
+			"            number = 0.8 \n" +
+			"            mark = \"b1\" \n" +
+			"        points [2]:\n" +
+			"            number = 1.6 \n" +
+			"            mark = \"b2\" \n";
+
+	final static String SHORT_FORMAT =
+			"File type = \"ooTextFile\"\n" +
+			"Object class = \"TextGrid\"\n" +
+			"\n" +
+			"0\n" +
+			"2.5\n" +
+			"<exists>\n" +
+			"2\n" +
+			"\"IntervalTier\"\n" +
+			"\"words\"\n" +
+			"0\n" +
+			"2.5\n" +
+			"3\n" +
+			"0\n" +
+			"0.75\n" +
+			"\"\"\n" +
+			"0.75\n" +
+			"1.5\n" +
+			"\"say \"\"hi\"\"\"\n" +
+			"1.5\n" +
+			"2.5\n" +
+			"\"caf\u00e9\"\n" +
+			"\"TextTier\"\n" +
+			"\"bursts\"\n" +
+			"0\n" +
+			"2.5\n" +
+			"2\n" +
+			"0.8\n" +
+			"\"b1\"\n" +
+			"1.6\n" +
+			"\"b2\"\n";
+
+	private TextGridIndex read(String text, java.nio.charset.Charset charset) throws IOException {
+		return new TextGridReader().read(ByteBuffer.wrap(text.getBytes(charset)));
+	}
+
+	static void assertTextGrid(TextGridIndex textGrid) {
+		assertEquals(0.0, textGrid.getXmin(), 0.0);
+		assertEquals(2.5, textGrid.getXmax(), 0.0);
+		assertEquals(2, textGrid.getTierCount());
+
+		final TextGridIndex.TierIndex words = textGrid.getTier("words");
+		assertNotNull(words);
+		assertTrue(words.isIntervalTier());
+		assertEquals(1, words.getTierNumber());
+		assertEquals(3, words.size());
+		assertEquals(0.75, words.getStart(1), 0.0);
+		assertEquals(1.5, words.getEnd(1), 0.0);
+		assertEquals("", words.getLabel(0));
+		assertEquals("say \"hi\"", words.getLabel(1));
+		assertEquals("caf\u00e9", words.getLabel(2));
+
+		final TextGridIndex.TierIndex bursts = textGrid.getTier("bursts");
+		assertNotNull(bursts);
+		assertTrue(bursts.isPointTier());
+		assertEquals(2, bursts.getTierNumber());
+		assertEquals(2, bursts.size());
+		assertEquals(1.6, bursts.getTime(1), 0.0);
+		assertEquals("b1", bursts.getLabel(0));
+	}
+
+	@Test
+	public void testReadLongFormat() throws IOException {
+		assertTextGrid(read(LONG_FORMAT, StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testReadShortFormat() throws IOException {
+		assertTextGrid(read(SHORT_FORMAT, StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testReadUTF16() throws IOException {
+		assertTextGrid(read("\uFEFF" + LONG_FORMAT, StandardCharsets.UTF_16BE));
+		assertTextGrid(read("\uFEFF" + SHORT_FORMAT, StandardCharsets.UTF_16LE));
+	}
+
+	@Test
+	public void testReadISO88591() throws IOException {
+		assertTextGrid(read(LONG_FORMAT, StandardCharsets.ISO_8859_1));
+	}
+
+	@Test
+	public void testReadNoTiers() throws IOException {
+		final String text =
+				"File type = \"ooTextFile\"\n" +
+				"Object class = \"TextGrid\"\n\n" +
+				"xmin = 0 \nxmax = 1 \ntiers? <absent> \n";
+		final TextGridIndex textGrid = read(text, StandardCharsets.UTF_8);
+		assertEquals(0, textGrid.getTierCount());
+		assertEquals(1.0, textGrid.getXmax(), 0.0);
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadNotTextGrid() throws IOException {
+		read("File type = \"ooTextFile\"\nObject class = \"Sound\"\n", StandardCharsets.UTF_8);
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadTruncated() throws IOException {
+		read(LONG_FORMAT.substring(0, LONG_FORMAT.indexOf("intervals [2]")), StandardCharsets.UTF_8);
+	}
+
+}
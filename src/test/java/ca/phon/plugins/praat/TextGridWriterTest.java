@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class TextGridWriterTest {
+
+	private String write(TextGridIndex textGrid) throws IOException {
+		final StringWriter out = new StringWriter();
+		new TextGridWriter().write(textGrid, out);
+		return out.toString();
+	}
+
+	private TextGridIndex read(String text) throws IOException {
+		return new TextGridReader().read(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void testWriteLongFormat() throws IOException {
+		final TextGridIndex textGrid = read(TextGridReaderTest.SHORT_FORMAT);
+		assertEquals(TextGridReaderTest.LONG_FORMAT, write(textGrid));
+	}
+
+	@Test
+	public void testRoundTripLongFormat() throws IOException {
+		TextGridReaderTest.assertTextGrid(read(write(read(TextGridReaderTest.LONG_FORMAT))));
+	}
+
+	@Test
+	public void testRoundTripShortFormat() throws IOException {
+		TextGridReaderTest.assertTextGrid(read(write(read(TextGridReaderTest.SHORT_FORMAT))));
+	}
+
+	@Test
+	public void testWriteNoTiers() throws IOException {
+		final TextGridIndex textGrid = TextGridIndex.create(0.0, 1.0, java.util.List.of());
+		final String text = write(textGrid);
+		assertTrue(text.endsWith("tiers? <absent> \n"));
+		assertEquals(0, read(text).getTierCount());
+	}
+
+	@Test
+	public void testQuote() {
+		assertEquals("\"\"", TextGridWriter.quote(null));
+		assertEquals("\"a \"\"b\"\"\"", TextGridWriter.quote("a \"b\""));
+	}
+
+	@Test
+	public void testFormatNumber() {
+		assertEquals("0", TextGridWriter.formatNumber(0.0));
+		assertEquals("2", TextGridWriter.formatNumber(2.0));
+		assertEquals("0.75", TextGridWriter.formatNumber(0.75));
+		assertEquals("0.0000015", TextGridWriter.formatNumber(1.5e-6));
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat.opgraph;
+
+import ca.phon.session.SessionPath;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ReportCheckpointTest {
+
+	private File workFolder;
+
+	@Before
+	public void setUp() throws IOException {
+		workFolder = Files.createTempDirectory("checkpoint").toFile();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		final ReportCheckpoint checkpoint = new ReportCheckpoint(workFolder, "test");
+		checkpoint.clear();
+		Files.deleteIfExists(checkpoint.getFolder().toPath());
+		Files.deleteIfExists(workFolder.toPath());
+	}
+
+	private ColumnarTableDataSource rows() {
+		final ColumnarTableDataSource table = new ColumnarTableDataSource();
+		table.addColumn("Result", ColumnarTableDataSource.ColumnType.OBJECT);
+		table.addColumn("Duration", ColumnarTableDataSource.ColumnType.DOUBLE);
+		final int row = table.addRow();
+		table.setValueAt(row, 0, 0);
+		table.setDouble(row, 1, 0.25);
+		return table;
+	}
+
+	@Test
+	public void testWarningsRoundTrip() throws IOException {
+		final SessionPath sessionPath = new SessionPath("corpus", "session");
+		final List<ReportCheckpoint.Warning> warnings = List.of(
+				new ReportCheckpoint.Warning(0, "TextGrid not found"),
+				new ReportCheckpoint.Warning(3, "multi\tline\nwarning \\ text"));
+
+		final ReportCheckpoint checkpoint = new ReportCheckpoint(workFolder, "test");
+		checkpoint.markComplete(sessionPath, "fingerprint", rows(), warnings);
+
+		final ReportCheckpoint reloaded = new ReportCheckpoint(workFolder, "test");
+		assertTrue(reloaded.isComplete(sessionPath, "fingerprint"));
+		assertFalse(reloaded.isComplete(sessionPath, "changed"));
+		assertEquals(warnings, reloaded.loadWarnings(sessionPath));
+
+		final ColumnarTableDataSource table = rows();
+		table.clear();
+		assertEquals(1, reloaded.loadRows(sessionPath, table));
+		assertEquals(0.25, table.getDouble(0, 1), 0.0);
+	}
+
+	@Test
+	public void testNoWarnings() throws IOException {
+		final SessionPath sessionPath = new SessionPath("corpus", "session");
+		final ReportCheckpoint checkpoint = new ReportCheckpoint(workFolder, "test");
+		assertTrue(checkpoint.loadWarnings(sessionPath).isEmpty());
+
+		checkpoint.markComplete(sessionPath, "fingerprint", rows(), List.of());
+		assertTrue(checkpoint.loadWarnings(sessionPath).isEmpty());
+	}
+
+	@Test
+	public void testSettingsHashIgnoresPropertyOrder() {
+		final Properties a = new Properties();
+		a.setProperty("x", "1");
+		a.setProperty("y", "2");
+		final Properties b = new Properties();
+		b.setProperty("y", "2");
+		b.setProperty("x", "1");
+		assertEquals(ReportCheckpoint.settingsHash("node", a), ReportCheckpoint.settingsHash("node", b));
+		assertNotEquals(ReportCheckpoint.settingsHash("node", a), ReportCheckpoint.settingsHash("other", a));
+	}
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat.script;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class PraatBatchScriptTest {
+
+	private PraatBatchScript createScript() {
+		final PraatBatchScript retVal = new PraatBatchScript("/tmp/a \"b\".wav", null,
+				"selectObject: segment\nresult$ = fixed$(Get total duration, 3)");
+		retVal.addSegment(0.5, 1.25);
+		retVal.addSegment(2.0, 3.0);
+		retVal.addSegment(4.0, 4.1);
+		return retVal;
+	}
+
+	@Test
+	public void testGenerateScript() throws IOException {
+		final String script = createScript().generateScript();
+
+		assertTrue(script.contains("nSegments = 3"));
+		assertTrue(script.contains("segStart[1] = 0.5"));
+		assertTrue(script.contains("segEnd[1] = 1.25"));
+		assertTrue(script.contains("segStart[2] = 2"));
+		assertTrue(script.contains("segEnd[3] = 4.1"));
+		assertTrue(script.contains("Open long sound file: \"/tmp/a \"\"b\"\".wav\""));
+		assertFalse(script.contains("Read from file:"));
+		assertTrue(script.contains("\tselectObject: segment\n\tresult$ = fixed$(Get total duration, 3)"));
+	}
+
+	@Test(expected = IOException.class)
+	public void testGenerateScriptWithoutAudio() throws IOException {
+		new PraatBatchScript().generateScript();
+	}
+
+	@Test
+	public void testParseResults() {
+		final PraatBatchScript script = createScript();
+		// output as printed by 'appendInfoLine: segmentIndex, tab$, result$'
+		final String output =
+				"Praat warning: ignored\n" +
+				"2\t1.000\tx\n" +
+				"1\t0.750\n" +
+				"\n" +
+				"4\tout of range\n" +
+				"abc\tnot a segment\n" +
+				"3\t\n";
+
+		final List<Integer> indices = new ArrayList<>();
+		final List<String[]> values = new ArrayList<>();
+		final List<PraatBatchScript.Segment> segments = new ArrayList<>();
+		script.parseResults(output, (idx, segment, vals) -> {
+			indices.add(idx);
+			segments.add(segment);
+			values.add(vals);
+		});
+
+		assertEquals(List.of(1, 0, 2), indices);
+		assertEquals(new PraatBatchScript.Segment(2.0, 3.0), segments.get(0));
+		assertEquals(new PraatBatchScript.Segment(0.5, 1.25), segments.get(1));
+		assertArrayEquals(new String[] { "1.000", "x" }, values.get(0));
+		assertArrayEquals(new String[] { "0.750" }, values.get(1));
+		assertArrayEquals(new String[] { "" }, values.get(2));
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat.script;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class PraatScriptParamsTest {
+
+	private final static String SCRIPT =
+			"# BEGIN PARAMS #\n" +
+			"# [\n" +
+			"#   {\"name\": \"count\", \"type\": \"int\", \"label\": \"Count\", \"default\": \"3\"},\n" +
+			"#   {\"name\": \"step\", \"type\": \"double\", \"default\": 1},\n" +
+			"#   {\"name\": \"big\", \"type\": \"long\", \"default\": 2.0},\n" +
+			"#   {\"name\": \"ratio\", \"type\": \"float\", \"default\": \"0.5\"},\n" +
+			"#   {\"name\": \"enabled\", \"type\": \"boolean\", \"default\": \"true\"},\n" +
+			"#   {\"name\": \"label\", \"prompt\": \"Label \\\"x\\\"\", \"default\": 10},\n" +
+			"#   {\"name\": \"bad\", \"type\": \"int\", \"default\": \"abc\"},\n" +
+			"#   {\"label\": \"no name\"}\n" +
+			"# ]\n" +
+			"# END PARAMS #\n" +
+			"writeInfoLine: \"hello\"\n";
+
+	private PraatScriptParam find(List<PraatScriptParam> params, String name) {
+		for(PraatScriptParam param:params) {
+			if(param.getName().equals(name)) return param;
+		}
+		fail("Param " + name + " not found");
+		return null;
+	}
+
+	@Test
+	public void testDefaultValueConversion() {
+		final List<PraatScriptParam> params = PraatScriptParams.getScriptParams(SCRIPT);
+		// param without name is skipped
+		assertEquals(7, params.size());
+
+		assertEquals(Integer.class, find(params, "count").getType());
+		assertEquals(3, find(params, "count").getDefaultValue());
+		assertEquals("Count", find(params, "count").getDescription());
+
+		assertEquals(1.0, find(params, "step").getDefaultValue());
+		assertEquals(2L, find(params, "big").getDefaultValue());
+		assertEquals(0.5f, find(params, "ratio").getDefaultValue());
+		assertEquals(Boolean.TRUE, find(params, "enabled").getDefaultValue());
+
+		// type defaults to string
+		assertEquals(String.class, find(params, "label").getType());
+		assertEquals("10", find(params, "label").getDefaultValue());
+		assertEquals("Label \"x\"", find(params, "label").getPrompt());
+
+		// values which cannot be converted are kept
+		assertEquals("abc", find(params, "bad").getDefaultValue());
+	}
+
+	@Test
+	public void testParamsAreCopied() {
+		final List<PraatScriptParam> params = PraatScriptParams.getScriptParams(SCRIPT);
+		find(params, "count").setDefaultValue(10);
+		assertEquals(3, find(PraatScriptParams.getScriptParams(SCRIPT), "count").getDefaultValue());
+	}
+
+	@Test
+	public void testNoParamSection() {
+		assertNull(PraatScriptParams.extractParamSection("writeInfoLine: \"hello\"\n"));
+		assertTrue(PraatScriptParams.getScriptParams("writeInfoLine: \"hello\"\n").isEmpty());
+	}
+
+	@Test
+	public void testMalformedParamSection() {
+		assertTrue(PraatScriptParams.parseScriptParams("[{\"name\": \"a\", \"default\": --1}]").isEmpty());
+		assertTrue(PraatScriptParams.parseScriptParams("{\"name\": \"a\"}").isEmpty());
+	}
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2012-2018 Gregory Hedlund
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *    http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ca.phon.plugins.praat.script;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.text.ParseException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class SimpleJsonParserTest {
+
+	private void assertInvalid(String json) {
+		try {
+			SimpleJsonParser.parse(json);
+			fail("Expected ParseException for " + json);
+		} catch (ParseException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testLiterals() throws ParseException {
+		assertEquals(Boolean.TRUE, SimpleJsonParser.parse("true"));
+		assertEquals(Boolean.FALSE, SimpleJsonParser.parse(" false "));
+		assertNull(SimpleJsonParser.parse("null"));
+	}
+
+	@Test
+	public void testNumbers() throws ParseException {
+		assertEquals(0L, SimpleJsonParser.parse("0"));
+		assertEquals(-12L, SimpleJsonParser.parse("-12"));
+		assertEquals(1.5, SimpleJsonParser.parse("1.5"));
+		assertEquals(-0.25, SimpleJsonParser.parse("-0.25"));
+		assertEquals(1e3, SimpleJsonParser.parse("1e3"));
+		assertEquals(2.5e-3, SimpleJsonParser.parse("2.5E-3"));
+		assertEquals(1e20, SimpleJsonParser.parse("100000000000000000000"));
+	}
+
+	@Test
+	public void testMalformedNumbers() {
+		assertInvalid("1-2");
+		assertInvalid("--1");
+		assertInvalid("-");
+		assertInvalid("+1");
+		assertInvalid("01");
+		assertInvalid("1.");
+		assertInvalid(".5");
+		assertInvalid("1e");
+		assertInvalid("1e+");
+		assertInvalid("[1-2]");
+		assertInvalid("{\"a\": 1.2.3}");
+	}
+
+	@Test
+	public void testStringEscapes() throws ParseException {
+		assertEquals("a\"b\\c/d", SimpleJsonParser.parse("\"a\\\"b\\\\c\\/d\""));
+		assertEquals("\b\f\n\r\t", SimpleJsonParser.parse("\"\\b\\f\\n\\r\\t\""));
+		assertEquals("caf\u00e9 \u263A", SimpleJsonParser.parse("\"caf\\u00e9 \\u263a\""));
+	}
+
+	@Test
+	public void testMalformedStrings() {
+		assertInvalid("\"abc");
+		assertInvalid("\"abc\\");
+		assertInvalid("\"\\q\"");
+		assertInvalid("\"\\u12\"");
+		assertInvalid("\"\\uzzzz\"");
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testNesting() throws ParseException {
+		final Object parsed = SimpleJsonParser.parse(
+				"{ \"b\": [1, {\"c\": [true, null]}, []], \"a\": {}, \"d\": \"x\" }");
+		assertTrue(parsed instanceof Map);
+		final Map<String, Object> obj = (Map<String, Object>)parsed;
+		// document order is preserved
+		assertEquals(List.of("b", "a", "d"), new ArrayList<>(obj.keySet()));
+		assertEquals(Map.of(), obj.get("a"));
+		assertEquals("x", obj.get("d"));
+
+		final List<Object> b = (List<Object>)obj.get("b");
+		assertEquals(3, b.size());
+		assertEquals(1L, b.get(0));
+		assertEquals(Arrays.asList(true, null), ((Map<String, Object>)b.get(1)).get("c"));
+		assertEquals(List.of(), b.get(2));
+	}
+
+	@Test
+	public void testMalformedStructure() {
+		assertInvalid("");
+		assertInvalid("[1, 2");
+		assertInvalid("[1 2]");
+		assertInvalid("[1,]");
+		assertInvalid("{\"a\" 1}");
+		assertInvalid("{a: 1}");
+		assertInvalid("{\"a\": 1,}");
+		assertInvalid("{\"a\": 1} x");
+		assertInvalid("tru");
+	}
+
+}